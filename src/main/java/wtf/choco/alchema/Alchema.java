@@ -1,20 +1,11 @@
 package wtf.choco.alchema;
 
 import com.google.common.base.Preconditions;
-import com.google.common.io.Files;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonSyntaxException;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -32,14 +23,15 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.event.Listener;
 import org.bukkit.inventory.RecipeChoice;
 import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
-import wtf.choco.alchema.cauldron.AlchemicalCauldron;
 import wtf.choco.alchema.cauldron.CauldronManager;
+import wtf.choco.alchema.cauldron.CauldronPlayerCache;
 import wtf.choco.alchema.cauldron.CauldronUpdateHandler;
 import wtf.choco.alchema.command.CommandAlchema;
 import wtf.choco.alchema.command.CommandGiveVialOfEssence;
@@ -48,17 +40,27 @@ import wtf.choco.alchema.crafting.CauldronIngredientItemStack;
 import wtf.choco.alchema.crafting.CauldronIngredientMaterial;
 import wtf.choco.alchema.crafting.CauldronRecipeRegistry;
 import wtf.choco.alchema.crafting.CauldronRecipeResultItemStack;
+import wtf.choco.alchema.crafting.RecipeDirectoryWatcher;
 import wtf.choco.alchema.essence.EntityEssenceData;
 import wtf.choco.alchema.essence.EntityEssenceEffectRegistry;
+import wtf.choco.alchema.essence.EssenceExtractionCooldowns;
 import wtf.choco.alchema.integration.mmoitems.PluginIntegrationMMOItems;
 import wtf.choco.alchema.listener.CauldronDeathMessageListener;
 import wtf.choco.alchema.listener.CauldronManipulationListener;
+import wtf.choco.alchema.listener.CauldronPlayerCacheListener;
 import wtf.choco.alchema.listener.EmptyVialRecipeDiscoverListener;
 import wtf.choco.alchema.listener.EntityEssenceCollectionListener;
 import wtf.choco.alchema.listener.UpdateReminderListener;
 import wtf.choco.alchema.listener.VialOfEssenceConsumptionListener;
 import wtf.choco.alchema.metrics.MetricsHelper;
+import wtf.choco.alchema.storage.CauldronFileFormat;
+import wtf.choco.alchema.storage.CauldronFileStorage;
+import wtf.choco.alchema.storage.CauldronStorage;
+import wtf.choco.alchema.storage.ChunkCauldronStorage;
+import wtf.choco.alchema.storage.JournalCauldronStorage;
+import wtf.choco.alchema.storage.SQLiteCauldronStorage;
 import wtf.choco.alchema.util.AlchemaConstants;
+import wtf.choco.alchema.util.TransientStateStore;
 import wtf.choco.commons.integration.IntegrationHandler;
 import wtf.choco.commons.util.UpdateChecker;
 import wtf.choco.commons.util.UpdateChecker.UpdateReason;
@@ -73,20 +75,22 @@ public final class Alchema extends JavaPlugin {
     /** The chat prefix used by Alchema */
     public static final String CHAT_PREFIX = ChatColor.DARK_PURPLE.toString() + ChatColor.BOLD + "Alchema | " + ChatColor.GRAY;
 
-    private static final Gson GSON = new Gson();
-
     private static Alchema instance;
 
     private final CauldronManager cauldronManager = new CauldronManager(this);
+    private final CauldronPlayerCache cauldronPlayerCache = new CauldronPlayerCache();
     private final CauldronRecipeRegistry recipeRegistry = new CauldronRecipeRegistry();
     private final EntityEssenceEffectRegistry entityEssenceEffectRegistry = new EntityEssenceEffectRegistry();
+    private final TransientStateStore transientStateStore = new TransientStateStore(this);
+    private final EssenceExtractionCooldowns essenceExtractionCooldowns = new EssenceExtractionCooldowns(this);
 
     private final IntegrationHandler integrationHandler = new IntegrationHandler(this);
 
-    private File cauldronFile;
     private File recipesDirectory;
 
+    private CauldronStorage cauldronStorage;
     private CauldronUpdateHandler cauldronUpdateTask;
+    private RecipeDirectoryWatcher recipeDirectoryWatcher;
 
     private EntityEssenceCollectionListener entityEssenceLootListener;
 
@@ -109,6 +113,9 @@ public final class Alchema extends JavaPlugin {
         // Result types
         this.recipeRegistry.registerResultType(CauldronRecipeResultItemStack.KEY, CauldronRecipeResultItemStack::new);
 
+        // Streaming readers for the above types, used instead of their providers while reading recipe files
+        this.recipeRegistry.registerDefaultReaders(entityEssenceEffectRegistry);
+
         /*
          * We're also going to handle plugin integration registrations on load just to jump the gun a bit.
          * Calling #integrate() here ensures that PluginIntegration's load() methods are called onLoad().
@@ -133,30 +140,12 @@ public final class Alchema extends JavaPlugin {
             this.saveDefaultDirectory("recipes", true);
         }
 
-        // Load cauldrons from file
-        this.cauldronFile = new File(getDataFolder(), "cauldrons.json");
-        if (cauldronFile.exists()) {
-            Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
-                try (BufferedReader reader = Files.newReader(cauldronFile, Charset.defaultCharset())) {
-                    JsonArray cauldronArray = GSON.fromJson(reader, JsonArray.class);
-                    cauldronArray.forEach(element -> {
-                        if (!element.isJsonObject()) {
-                            return;
-                        }
-
-                        AlchemicalCauldron cauldron = AlchemicalCauldron.fromJson(element.getAsJsonObject(), recipeRegistry);
-                        if (cauldron == null) {
-                            this.getLogger().info("Attempted to load cauldron at a position where a cauldron was not present.");
-                            return;
-                        }
-
-                        this.cauldronManager.addCauldron(cauldron);
-                    });
-                } catch (IOException | JsonSyntaxException e) {
-                    e.printStackTrace();
-                }
-            });
-        }
+        // Must be known before cauldrons are added as it determines whether or not their blocks have metadata attached
+        this.transientStateStore.setBukkitMetadataEnabled(getConfig().getBoolean(AlchemaConstants.CONFIG_COMPATIBILITY_BUKKIT_METADATA, true));
+
+        // Load cauldrons from storage
+        this.cauldronStorage = createCauldronStorage();
+        this.cauldronStorage.loadCauldrons();
 
         // Load cauldron recipes (asynchronously)
         this.recipeRegistry.stopAcceptingRegistrations(); // Stop accepting registrations now. We're ready to load.
@@ -173,18 +162,34 @@ public final class Alchema extends JavaPlugin {
             result.getFailures().forEach(failureReport -> getLogger().warning("Failed to load recipe " + failureReport.getRecipeKey() + ". Reason: " + failureReport.getReason()));
         });
 
+        // Watch the recipes directory for changes (if enabled)
+        this.refreshRecipeDirectoryWatcher();
+
         // Register entity essence effects
         EntityEssenceEffectRegistry.registerDefaultAlchemaEssences(entityEssenceEffectRegistry);
 
+        // Players that joined before Alchema was enabled (e.g. during a reload) won't be caught by the listener below
+        this.cauldronPlayerCache.addOnlinePlayers();
+
         // Register listeners
         PluginManager manager = Bukkit.getPluginManager();
         manager.registerEvents(new CauldronDeathMessageListener(this), this);
         manager.registerEvents(new CauldronManipulationListener(this), this);
+        manager.registerEvents(new CauldronPlayerCacheListener(cauldronPlayerCache), this);
         manager.registerEvents(new EmptyVialRecipeDiscoverListener(), this);
         manager.registerEvents(this.entityEssenceLootListener = new EntityEssenceCollectionListener(this), this);
         manager.registerEvents(new UpdateReminderListener(this), this);
         manager.registerEvents(new VialOfEssenceConsumptionListener(this), this);
 
+        manager.registerEvents(essenceExtractionCooldowns, this);
+
+        if (cauldronStorage instanceof Listener listener) {
+            manager.registerEvents(listener, this);
+        }
+
+        // Entities that were loaded before Alchema was enabled (e.g. during a reload) won't be caught by the listener above
+        this.essenceExtractionCooldowns.restoreAll();
+
         // Register commands
         this.registerCommandSafely("alchema", new CommandAlchema(this));
         this.registerCommandSafely("givevialofessence", new CommandGiveVialOfEssence(this));
@@ -195,6 +200,12 @@ public final class Alchema extends JavaPlugin {
         this.cauldronUpdateTask = CauldronUpdateHandler.init(this);
         this.cauldronUpdateTask.startTask();
 
+        // Periodically save cauldrons that have changed
+        long autosaveIntervalTicks = Math.max(getConfig().getLong(AlchemaConstants.CONFIG_STORAGE_AUTOSAVE_INTERVAL_SECONDS, 300), 0) * 20;
+        if (autosaveIntervalTicks > 0) {
+            Bukkit.getScheduler().runTaskTimer(this, cauldronStorage::save, autosaveIntervalTicks, autosaveIntervalTicks);
+        }
+
         // Enable integrations
         this.integrationHandler.enableIntegrations();
 
@@ -232,29 +243,27 @@ public final class Alchema extends JavaPlugin {
     public void onDisable() {
         this.integrationHandler.disableIntegrations(true);
 
-        // Write all cauldrons to file
-        Collection<AlchemicalCauldron> cauldrons = cauldronManager.getCauldrons();
-        if (!cauldrons.isEmpty()) {
-            JsonArray cauldronsArray = new JsonArray();
-            cauldrons.forEach(cauldron -> cauldronsArray.add(cauldron.write(new JsonObject())));
-
-            try (PrintWriter writer = new PrintWriter(cauldronFile)) {
-                GSON.toJson(cauldronsArray, writer);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        } else {
-            this.cauldronFile.delete();
+        if (recipeDirectoryWatcher != null) {
+            this.recipeDirectoryWatcher.stop();
+            this.recipeDirectoryWatcher = null;
         }
 
+        // Stop ticking cauldrons before writing them
+        this.cauldronUpdateTask.cancelTask();
+
+        // Write all cauldrons that have changed since the last save to file
+        this.cauldronStorage.close();
+
         this.cauldronManager.clearCauldrons();
+        this.cauldronPlayerCache.clear();
+        this.transientStateStore.clear();
+        this.essenceExtractionCooldowns.persistAll();
+        this.essenceExtractionCooldowns.clear();
         this.recipeRegistry.clearRecipes();
         this.recipeRegistry.clearIngredientTypes();
         this.recipeRegistry.clearResultTypes();
         this.entityEssenceEffectRegistry.clearEntityEssenceData();
 
-        this.cauldronUpdateTask.cancelTask();
-
         MetricsHelper.clearKeyWhitelists();
     }
 
@@ -268,6 +277,46 @@ public final class Alchema extends JavaPlugin {
         return cauldronManager;
     }
 
+    /**
+     * Get the {@link CauldronPlayerCache} instance.
+     *
+     * @return the cauldron player cache
+     */
+    @NotNull
+    public CauldronPlayerCache getCauldronPlayerCache() {
+        return cauldronPlayerCache;
+    }
+
+    /**
+     * Get the {@link TransientStateStore} instance.
+     *
+     * @return the transient state store
+     */
+    @NotNull
+    public TransientStateStore getTransientStateStore() {
+        return transientStateStore;
+    }
+
+    /**
+     * Get the {@link EssenceExtractionCooldowns} instance.
+     *
+     * @return the essence extraction cooldowns
+     */
+    @NotNull
+    public EssenceExtractionCooldowns getEssenceExtractionCooldowns() {
+        return essenceExtractionCooldowns;
+    }
+
+    /**
+     * Get the {@link CauldronStorage} instance.
+     *
+     * @return the cauldron storage
+     */
+    @NotNull
+    public CauldronStorage getCauldronStorage() {
+        return cauldronStorage;
+    }
+
     /**
      * Get the {@link CauldronRecipeRegistry} instance.
      *
@@ -315,6 +364,31 @@ public final class Alchema extends JavaPlugin {
         this.entityEssenceLootListener.refreshBlacklists();
     }
 
+    /**
+     * Start or stop watching the recipes directory for changes according to the configuration
+     * loaded into memory.
+     */
+    public void refreshRecipeDirectoryWatcher() {
+        if (recipeDirectoryWatcher != null) {
+            this.recipeDirectoryWatcher.stop();
+            this.recipeDirectoryWatcher = null;
+        }
+
+        if (!getConfig().getBoolean(AlchemaConstants.CONFIG_RECIPES_LIVE_RELOAD_ENABLED, false)) {
+            return;
+        }
+
+        long debounceMillis = Math.max(getConfig().getLong(AlchemaConstants.CONFIG_RECIPES_LIVE_RELOAD_DEBOUNCE_MILLIS, 500L), 0L);
+        RecipeDirectoryWatcher recipeDirectoryWatcher = new RecipeDirectoryWatcher(this, recipeRegistry, recipesDirectory, debounceMillis);
+
+        try {
+            recipeDirectoryWatcher.start();
+            this.recipeDirectoryWatcher = recipeDirectoryWatcher;
+        } catch (IOException e) {
+            this.getLogger().warning("Could not watch the recipes directory for changes. Reason: " + e.getMessage());
+        }
+    }
+
     /**
      * Get a list of paths to the default recipes provided by Alchema.
      * <p>
@@ -477,6 +551,35 @@ public final class Alchema extends JavaPlugin {
         }
     }
 
+    @NotNull
+    private CauldronStorage createCauldronStorage() {
+        String storageType = getConfig().getString(AlchemaConstants.CONFIG_STORAGE_TYPE, "FILE");
+        if ("CHUNK".equalsIgnoreCase(storageType)) {
+            return new ChunkCauldronStorage(this, getDataFolder());
+        } else if ("SQLITE".equalsIgnoreCase(storageType)) {
+            return new SQLiteCauldronStorage(this, new File(getDataFolder(), "cauldrons.db"));
+        }
+
+        String formatName = getConfig().getString(AlchemaConstants.CONFIG_STORAGE_FORMAT, "JSON");
+        CauldronFileFormat format = CauldronFileFormat.JSON;
+        try {
+            format = CauldronFileFormat.valueOf(formatName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            this.getLogger().warning("Unknown storage format \"" + formatName + "\". Cauldrons will be stored in " + format.getFileName() + " instead.");
+        }
+
+        if ("JOURNAL".equalsIgnoreCase(storageType)) {
+            int flushIntervalTicks = Math.max(getConfig().getInt(AlchemaConstants.CONFIG_STORAGE_JOURNAL_FLUSH_INTERVAL_TICKS, 20), 1);
+            return new JournalCauldronStorage(this, getDataFolder(), format, new File(getDataFolder(), "cauldrons.journal"), flushIntervalTicks);
+        }
+
+        if (!"FILE".equalsIgnoreCase(storageType)) {
+            this.getLogger().warning("Unknown storage type \"" + storageType + "\". Cauldrons will be stored in " + format.getFileName() + " instead.");
+        }
+
+        return new CauldronFileStorage(this, getDataFolder(), format);
+    }
+
     private void registerCommandSafely(@NotNull String commandString, @NotNull CommandExecutor executor) {
         PluginCommand command = getCommand(commandString);
         if (command == null) {
@@ -20,7 +20,10 @@ import wtf.choco.alchema.crafting.CauldronRecipeRegistry;
  * done in an event listener for this event instead.
  * <p>
  * By the time this event has been called, all recipes provided by Alchema will have
- * been registered already.
+ * been loaded already. Loaded recipes, as well as those registered by listeners of this
+ * event, are staged and will not be visible through the registry's getters until all
+ * listeners have been called, at which point they replace the previously registered
+ * recipes all at once.
  *
  * @author Parker Hawke - Choco
  */
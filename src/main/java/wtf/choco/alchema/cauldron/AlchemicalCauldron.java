@@ -1,8 +1,6 @@
 package wtf.choco.alchema.cauldron;
 
 import com.google.common.base.Preconditions;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 
@@ -70,9 +68,13 @@ import wtf.choco.alchema.crafting.CauldronRecipeResult;
 import wtf.choco.alchema.essence.EntityEssenceData;
 import wtf.choco.alchema.essence.EntityEssenceEffectRegistry;
 import wtf.choco.alchema.metrics.MetricsHelper;
+import wtf.choco.alchema.storage.CauldronPosition;
+import wtf.choco.alchema.storage.CauldronRecord;
 import wtf.choco.alchema.util.AlchemaConstants;
 import wtf.choco.alchema.util.AlchemaEventFactory;
 import wtf.choco.alchema.util.EssenceUtil;
+import wtf.choco.alchema.util.TimerWheel;
+import wtf.choco.alchema.util.TransientStateStore;
 import wtf.choco.commons.util.MathUtil;
 import wtf.choco.commons.util.NamespacedKeyUtil;
 
@@ -85,6 +87,21 @@ import wtf.choco.commons.util.NamespacedKeyUtil;
  */
 public class AlchemicalCauldron {
 
+    /** Dirty flag, set when the heating or bubbling state of a cauldron changes */
+    @Internal
+    public static final int DIRTY_STATE = 1;
+    /** Dirty flag, set when the ingredients of a cauldron change */
+    @Internal
+    public static final int DIRTY_INGREDIENTS = 1 << 1;
+    /** Dirty flag, set when the brewing state of a cauldron changes */
+    @Internal
+    public static final int DIRTY_BREWING = 1 << 2;
+
+    private static final int DIRTY_ALL = DIRTY_STATE | DIRTY_INGREDIENTS | DIRTY_BREWING;
+
+    // The interval (in ticks) at which dormant cauldrons check whether they were broken or their heat source changed
+    private static final int STATE_CHECK_INTERVAL = 10;
+
     private static final Set<Material> HEAT_SOURCE_MATERIALS = Set.of(Material.FIRE, Material.SOUL_FIRE, Material.LAVA);
     private static final Map<@NotNull Material, @NotNull Predicate<@NotNull BlockData>> HEAT_SOURCE_BLOCKS = new EnumMap<>(Material.class);
     static {
@@ -103,6 +120,26 @@ public class AlchemicalCauldron {
 
     private final List<@NotNull CauldronIngredient> ingredients = new ArrayList<>();
 
+    // Incremented whenever ingredients change so that asynchronously computed recipe matches can be discarded if stale
+    private int ingredientGeneration = 0;
+    private int requestedIngredientGeneration = -1;
+    private long requestedRegistryGeneration = -1;
+    private volatile CauldronRecipeMatcher.Result recipeMatch;
+
+    private final int updatePhase;
+    private int updateInterval = 1;
+    private int lastUpdateTick = -1;
+
+    private TimerWheel.Timeout heatingTimeout, stateCheckTimeout, damageTimeout, ambientSoundTimeout;
+    private boolean damageDue = false, ambientSoundDue = false;
+
+    private NamespacedKey brewingRecipeKey;
+    private int brewTicksRemaining = 0, brewDeadlineTick = -1, brewGeneration = 0;
+    private boolean brewComplete = false;
+
+    // Set whenever persistent state changes such that only changed cauldrons are written by the next save
+    private volatile int dirty = DIRTY_ALL;
+
     /**
      * Construct a new {@link AlchemicalCauldron}.
      *
@@ -119,6 +156,9 @@ public class AlchemicalCauldron {
         );
 
         this.heatingStartTime = hasValidHeatSource() ? System.currentTimeMillis() : -1;
+
+        // Spread out cauldrons with reduced update rates so they don't all update on the same tick
+        this.updatePhase = (block.getX() * 73856093) ^ (block.getY() * 19349663) ^ (block.getZ() * 83492791);
     }
 
     /**
@@ -283,6 +323,12 @@ public class AlchemicalCauldron {
         this.lastInteracted = new WeakReference<>(player);
     }
 
+    // Resolved lazily by getLastInteracted() such that offline players are not looked up while updating
+    private void setLastInteracted(@NotNull UUID playerUUID) {
+        this.lastInteractedUUID = playerUUID;
+        this.lastInteracted = null;
+    }
+
     /**
      * Get the {@link OfflinePlayer} that last interacted with this cauldron.
      *
@@ -350,6 +396,7 @@ public class AlchemicalCauldron {
 
         this.heatingStartTime = System.currentTimeMillis();
         this.heatingUp = true;
+        this.dirty |= DIRTY_STATE;
         return true;
     }
 
@@ -366,8 +413,13 @@ public class AlchemicalCauldron {
      * Stop this cauldron from heating up.
      */
     public void stopHeatingUp() {
+        if (!heatingUp && heatingStartTime == -1) {
+            return;
+        }
+
         this.heatingStartTime = -1;
         this.heatingUp = false;
+        this.dirty |= DIRTY_STATE;
     }
 
     /**
@@ -387,7 +439,12 @@ public class AlchemicalCauldron {
      * @param bubbling the new bubbling state
      */
     public void setBubbling(boolean bubbling) {
+        if (this.bubbling == bubbling) {
+            return;
+        }
+
         this.bubbling = bubbling;
+        this.dirty |= DIRTY_STATE;
     }
 
     /**
@@ -422,6 +479,9 @@ public class AlchemicalCauldron {
         } else {
             this.ingredients.add(ingredient);
         }
+
+        this.ingredientGeneration++;
+        this.dirty |= DIRTY_INGREDIENTS;
     }
 
     /**
@@ -447,6 +507,9 @@ public class AlchemicalCauldron {
                 }
             }
         });
+
+        this.ingredientGeneration++;
+        this.dirty |= DIRTY_INGREDIENTS;
     }
 
     /**
@@ -505,6 +568,8 @@ public class AlchemicalCauldron {
         }
 
         this.ingredients.clear();
+        this.ingredientGeneration++;
+        this.dirty |= DIRTY_INGREDIENTS;
         return true;
     }
 
@@ -526,16 +591,303 @@ public class AlchemicalCauldron {
      */
     public void clearIngredients() {
         this.ingredients.clear();
+        this.ingredientGeneration++;
+        this.dirty |= DIRTY_INGREDIENTS;
+    }
+
+    /**
+     * Get the interval (in ticks) at which this cauldron is being updated. This is determined
+     * by the distance between this cauldron and its nearest player.
+     *
+     * @return the update interval
+     *
+     * @see CauldronConfigurationContext#getUpdateInterval(double)
+     */
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    /**
+     * Set the interval (in ticks) at which this cauldron should be updated.
+     *
+     * @param updateInterval the update interval. Must be {@literal >=} 1
+     */
+    @Internal
+    void setUpdateInterval(int updateInterval) {
+        this.updateInterval = Math.max(updateInterval, 1);
+    }
+
+    /**
+     * Check whether or not this cauldron is due for an update on the given tick according to
+     * its current update interval.
+     *
+     * @param currentTick the current update tick
+     *
+     * @return true if an update is due, false otherwise
+     */
+    @Internal
+    boolean isUpdateDue(int currentTick) {
+        return updateInterval <= 1 || Math.floorMod(currentTick + updatePhase, updateInterval) == 0;
+    }
+
+    /**
+     * Check whether or not this cauldron may stop being updated every tick. Dormant cauldrons
+     * (those that are idle or heating up) are instead woken up by their timers, either once
+     * their heating time has elapsed or once a periodic check finds that their state changed.
+     *
+     * @return true if dormant, false otherwise
+     *
+     * @see #scheduleTimers(TimerWheel, CauldronConfigurationContext)
+     */
+    @Internal
+    boolean isDormant() {
+        return !bubbling;
+    }
+
+    /**
+     * Schedule (or cancel) this cauldron's timers according to its current state. This should
+     * be called after this cauldron has been updated.
+     *
+     * @param timerWheel the timer wheel in which to schedule timers
+     * @param cauldronConfiguration the cauldron configuration
+     */
+    @Internal
+    void scheduleTimers(@NotNull TimerWheel timerWheel, @NotNull CauldronConfigurationContext cauldronConfiguration) {
+        if (heatingUp) {
+            // A heating timer that has expired while still heating was early (wall clock vs. ticks). Schedule the remainder
+            if (heatingTimeout == null || !heatingTimeout.isPending()) {
+                long remainingMillis = (heatingStartTime + cauldronConfiguration.getMillisecondsToHeatUp()) - System.currentTimeMillis();
+                int delay = (int) Math.max((remainingMillis + 49) / 50, 1);
+                this.heatingTimeout = timerWheel.schedule(this::wakeUp, delay);
+            }
+        }
+        else {
+            this.heatingTimeout = TimerWheel.Timeout.cancel(heatingTimeout);
+        }
+
+        // Dormant cauldrons are not updated, so they must still notice when they are broken or lose (or gain) their heat source
+        if (!bubbling) {
+            if (stateCheckTimeout == null) {
+                int delay = STATE_CHECK_INTERVAL - Math.floorMod((int) timerWheel.getCurrentTick() + updatePhase, STATE_CHECK_INTERVAL);
+                this.stateCheckTimeout = timerWheel.scheduleRepeating(this::checkState, delay, STATE_CHECK_INTERVAL);
+            }
+        }
+        else {
+            this.stateCheckTimeout = TimerWheel.Timeout.cancel(stateCheckTimeout);
+        }
+
+        if (bubbling) {
+            // Cadences are aligned to the global tick so that all cauldrons damage entities and play sounds in unison
+            int currentTick = (int) timerWheel.getCurrentTick();
+            if (damageTimeout == null) {
+                this.damageTimeout = timerWheel.scheduleRepeating(() -> damageDue = true, 20 - Math.floorMod(currentTick, 20), 20);
+            }
+
+            if (ambientSoundTimeout == null) {
+                this.ambientSoundTimeout = timerWheel.scheduleRepeating(() -> ambientSoundDue = true, 40 - Math.floorMod(currentTick, 40), 40);
+            }
+        }
+        else if (damageTimeout != null || ambientSoundTimeout != null) {
+            this.cancelTimers();
+        }
+    }
+
+    /**
+     * Cancel all timers scheduled by this cauldron.
+     */
+    @Internal
+    void cancelTimers() {
+        this.heatingTimeout = TimerWheel.Timeout.cancel(heatingTimeout);
+        this.stateCheckTimeout = TimerWheel.Timeout.cancel(stateCheckTimeout);
+        this.damageTimeout = TimerWheel.Timeout.cancel(damageTimeout);
+        this.ambientSoundTimeout = TimerWheel.Timeout.cancel(ambientSoundTimeout);
+        this.damageDue = false;
+        this.ambientSoundDue = false;
+    }
+
+    /*
+     * Wake this dormant cauldron up if its state no longer matches what it is waiting on. Cauldrons in unloaded
+     * chunks are left alone so as to not load their chunk.
+     */
+    private void checkState() {
+        if (!isLoaded()) {
+            return;
+        }
+
+        boolean wakeUpDue;
+        if (bubbling || !isValid()) {
+            wakeUpDue = true;
+        }
+        else if (heatingUp) {
+            wakeUpDue = (heatingTimeout == null || !heatingTimeout.isPending() || !canHeatUp());
+        }
+        else {
+            wakeUpDue = canHeatUp();
+        }
+
+        if (wakeUpDue) {
+            this.wakeUp();
+        }
+    }
+
+    private void wakeUp() {
+        CauldronUpdateHandler.get().wakeUp(this);
+    }
+
+    /**
+     * Check whether or not this cauldron is currently brewing a recipe. While brewing, the
+     * cauldron's ingredients are not matched against recipes until the brew completes.
+     *
+     * @return true if brewing, false otherwise
+     */
+    public boolean isBrewing() {
+        return brewingRecipeKey != null;
+    }
+
+    /**
+     * Get the key of the recipe being brewed by this cauldron, if any.
+     *
+     * @return the brewing recipe key. null if not brewing
+     */
+    @Nullable
+    public NamespacedKey getBrewingRecipeKey() {
+        return brewingRecipeKey;
+    }
+
+    /**
+     * Get the amount of ticks remaining until this cauldron's brew completes.
+     *
+     * @return the remaining brew ticks. 0 if not brewing or if the brew is complete
+     */
+    public int getBrewTicksRemaining() {
+        if (brewingRecipeKey == null || brewComplete) {
+            return 0;
+        }
+
+        if (brewDeadlineTick < 0) {
+            return brewTicksRemaining;
+        }
+
+        return Math.max(brewDeadlineTick - CauldronUpdateHandler.get().getCurrentTick(), 0);
+    }
+
+    /**
+     * Deliver the result of an asynchronous recipe match to this cauldron. The result will be
+     * applied on this cauldron's next update if it is still current. May be called from any
+     * thread.
+     *
+     * @param recipeMatch the recipe match
+     */
+    @Internal
+    void setRecipeMatch(@NotNull CauldronRecipeMatcher.Result recipeMatch) {
+        this.recipeMatch = recipeMatch;
+    }
+
+    /**
+     * Forget that a recipe match was requested such that a new request will be made on this
+     * cauldron's next update.
+     */
+    @Internal
+    void clearRecipeMatchRequest() {
+        this.requestedIngredientGeneration = -1;
+    }
+
+    /*
+     * Get the current recipe match for this cauldron's ingredients, or request one from the matcher if no
+     * current match is available. Returns null while a match is pending.
+     */
+    @Nullable
+    private CauldronRecipeMatcher.Result getOrRequestRecipeMatch(@NotNull CauldronRecipeRegistry recipeRegistry, @NotNull CauldronRecipeMatcher matcher) {
+        long registryGeneration = recipeRegistry.getGeneration();
+
+        CauldronRecipeMatcher.Result recipeMatch = this.recipeMatch;
+        if (recipeMatch != null && recipeMatch.isCurrent(ingredientGeneration, registryGeneration)) {
+            return recipeMatch;
+        }
+
+        if (requestedIngredientGeneration != ingredientGeneration || requestedRegistryGeneration != registryGeneration) {
+            this.requestedIngredientGeneration = ingredientGeneration;
+            this.requestedRegistryGeneration = registryGeneration;
+            matcher.submit(this, recipeRegistry, List.copyOf(ingredients), ingredientGeneration, registryGeneration);
+        }
+
+        return null;
+    }
+
+    /**
+     * Check whether or not this cauldron has started brewing but has yet to be placed in the
+     * brew completion queue.
+     *
+     * @return true if awaiting scheduling, false otherwise
+     */
+    @Internal
+    boolean isAwaitingBrewSchedule() {
+        return brewingRecipeKey != null && !brewComplete && brewDeadlineTick < 0;
+    }
+
+    /**
+     * Schedule this cauldron's brew to complete on the given tick.
+     *
+     * @param deadlineTick the tick at which the brew completes
+     *
+     * @return the brew generation. Used to identify stale completions
+     */
+    @Internal
+    int scheduleBrew(int deadlineTick) {
+        this.brewDeadlineTick = deadlineTick;
+        return brewGeneration;
+    }
+
+    /**
+     * Mark this cauldron's brew as complete such that it may craft on its next update.
+     *
+     * @param generation the brew generation returned by {@link #scheduleBrew(int)}. If this
+     * does not match the current generation, the brew was since cancelled or restarted and
+     * this call is ignored
+     */
+    @Internal
+    void completeBrew(int generation) {
+        if (generation != brewGeneration || brewingRecipeKey == null) {
+            return;
+        }
+
+        this.brewComplete = true;
+    }
+
+    private void startBrewing(@NotNull NamespacedKey recipeKey, int brewTime) {
+        this.brewingRecipeKey = recipeKey;
+        this.brewTicksRemaining = brewTime;
+        this.brewDeadlineTick = -1;
+        this.brewComplete = false;
+        this.brewGeneration++;
+        this.dirty |= DIRTY_BREWING;
+    }
+
+    private void stopBrewing() {
+        if (brewingRecipeKey == null) {
+            return;
+        }
+
+        this.brewingRecipeKey = null;
+        this.brewTicksRemaining = 0;
+        this.brewDeadlineTick = -1;
+        this.brewComplete = false;
+        this.brewGeneration++;
+        this.dirty |= DIRTY_BREWING;
     }
 
     /**
      * Attach metadata values to all relevant metadatable objects pertaining to
-     * this cauldron.
+     * this cauldron, if enabled by {@link TransientStateStore#isBukkitMetadataEnabled()}.
      *
      * @param plugin the plugin instance
      */
     @Internal
     void attachMetadata(@NotNull Alchema plugin) {
+        if (!plugin.getTransientStateStore().isBukkitMetadataEnabled()) {
+            return;
+        }
+
         this.cauldronBlock.setMetadata(AlchemaConstants.METADATA_KEY_ALCHEMICAL_CAULDRON, new FixedMetadataValue(plugin, true));
         this.cauldronBlock.setMetadata(AlchemaConstants.METADATA_KEY_ALCHEMICAL_CAULDRON_BUBBLING, new LazyMetadataValue(plugin, CacheStrategy.NEVER_CACHE, this::isBubbling));
     }
@@ -548,6 +900,10 @@ public class AlchemicalCauldron {
      */
     @Internal
     void detachMetadata(@NotNull Alchema plugin) {
+        if (!plugin.getTransientStateStore().isBukkitMetadataEnabled()) {
+            return;
+        }
+
         this.cauldronBlock.removeMetadata(AlchemaConstants.METADATA_KEY_ALCHEMICAL_CAULDRON, plugin);
         this.cauldronBlock.removeMetadata(AlchemaConstants.METADATA_KEY_ALCHEMICAL_CAULDRON_BUBBLING, plugin);
     }
@@ -563,6 +919,10 @@ public class AlchemicalCauldron {
         Preconditions.checkArgument(plugin != null, "plugin must not be null");
         Preconditions.checkArgument(cauldronConfiguration != null, "cauldronConfiguration must not be null");
 
+        // Cauldrons far from players are updated less frequently. Keep track of how many ticks were skipped
+        int elapsedTicks = (lastUpdateTick >= 0) ? Math.max(currentTick - lastUpdateTick, 1) : 1;
+        this.lastUpdateTick = currentTick;
+
         World world = getWorld();
         Location location = getLocation().add(0.5, 0.25, 0.5);
         Location particleLocation = getLocation().add(0.5, 1, 0.5);
@@ -599,37 +959,50 @@ public class AlchemicalCauldron {
             return;
         }
 
-        world.spawnParticle(Particle.BUBBLE_COLUMN_UP, getLocation().add(0.5, 0.95, 0.5), 2, 0.15F, 0F, 0.15F, 0F);
-        if (currentTick % 40 == 0 && cauldronConfiguration.getAmbientBubbleVolume() > 0.0) {
+        float particleDensity = cauldronConfiguration.getParticleDensity();
+        int bubbleParticles = scaleParticleCount(2, particleDensity);
+        if (bubbleParticles > 0) {
+            world.spawnParticle(Particle.BUBBLE_COLUMN_UP, getLocation().add(0.5, 0.95, 0.5), bubbleParticles, 0.15F, 0F, 0.15F, 0F);
+        }
+
+        if (ambientSoundDue && cauldronConfiguration.getAmbientBubbleVolume() > 0.0) {
             world.playSound(location, Sound.BLOCK_BUBBLE_COLUMN_UPWARDS_AMBIENT, cauldronConfiguration.getAmbientBubbleVolume(), 0.8F);
         }
 
+        this.ambientSoundDue = false;
+
         // Dissolve items in bubbling cauldrons
-        if (currentTick % cauldronConfiguration.getItemSearchInterval() == 0) {
+        if (isCadenceDue(currentTick, elapsedTicks, cauldronConfiguration.getItemSearchInterval())) {
             EntityEssenceEffectRegistry essenceEffectRegistry = plugin.getEntityEssenceEffectRegistry();
+            CauldronPlayerCache playerCache = plugin.getCauldronPlayerCache();
+            TransientStateStore transientStateStore = plugin.getTransientStateStore();
+            boolean damageDue = this.damageDue;
+            this.damageDue = false;
 
             world.getNearbyEntities(getItemConsumptionBounds()).forEach(entity -> {
                 if (entity instanceof Item item) {
-                    if (item.hasMetadata(AlchemaConstants.METADATA_KEY_CAULDRON_CRAFTED)) {
+                    if (transientStateStore.isCauldronCrafted(item)) {
                         return;
                     }
 
                     // Don't collect non-player-sourced items (configuration based)
                     UUID itemThrowerUUID = item.getThrower();
-                    OfflinePlayer itemThrower = (itemThrowerUUID != null) ? Bukkit.getOfflinePlayer(itemThrowerUUID) : null;
-                    if (cauldronConfiguration.shouldEnforcePlayerDroppedItems() && (itemThrowerUUID == null || itemThrower == null)) {
+                    if (cauldronConfiguration.shouldEnforcePlayerDroppedItems() && itemThrowerUUID == null) {
                         return;
                     }
 
-                    // Permission check for boiling player-sourced items
-                    if (itemThrower != null && itemThrower.isOnline()) {
-                        Player itemThrowerOnline = itemThrower.getPlayer();
-                        if (itemThrowerOnline != null && !itemThrowerOnline.hasPermission(AlchemaConstants.PERMISSION_CRAFT)) {
-                            return;
-                        }
+                    // Permission check for boiling player-sourced items. Offline throwers are never looked up
+                    Player itemThrower = (itemThrowerUUID != null) ? playerCache.getOnlinePlayer(itemThrowerUUID) : null;
+                    if (itemThrower != null && !playerCache.hasPermission(itemThrower, AlchemaConstants.PERMISSION_CRAFT)) {
+                        return;
                     }
 
-                    this.setLastInteracted(itemThrower);
+                    if (itemThrower != null) {
+                        this.setLastInteracted(itemThrower);
+                    }
+                    else {
+                        this.setLastInteracted(itemThrowerUUID);
+                    }
                     ItemStack itemStack = item.getItemStack();
 
                     // Apparently this can be 0 sometimes on Spigot (I guess due to item merging)
@@ -657,14 +1030,17 @@ public class AlchemicalCauldron {
                     this.addIngredient(ingredientAddEvent.getIngredient());
                     item.remove();
 
-                    world.spawnParticle(Particle.WATER_SPLASH, particleLocation, 4);
+                    int splashParticles = scaleParticleCount(4, particleDensity);
+                    if (splashParticles > 0) {
+                        world.spawnParticle(Particle.WATER_SPLASH, particleLocation, splashParticles);
+                    }
 
                     if (cauldronConfiguration.getItemSplashVolume() > 0.0) {
                         world.playSound(location, Sound.ENTITY_PLAYER_SPLASH, cauldronConfiguration.getItemSplashVolume(), 2F);
                     }
                 }
                 else if (cauldronConfiguration.shouldDamageEntities() && entity instanceof LivingEntity livingEntity) {
-                    if (currentTick % 20 == 0 && !livingEntity.isDead()) {
+                    if (damageDue && !livingEntity.isDead()) {
                         EntityDamageByCauldronEvent entityDamageByCauldronEvent = AlchemaEventFactory.callEntityDamageByCauldronEvent(livingEntity, this, 1.0);
 
                         double damage = entityDamageByCauldronEvent.getDamage();
@@ -672,7 +1048,7 @@ public class AlchemicalCauldron {
                             return;
                         }
 
-                        livingEntity.setMetadata(AlchemaConstants.METADATA_KEY_DAMAGED_BY_CAULDRON, new FixedMetadataValue(plugin, System.currentTimeMillis()));
+                        transientStateStore.markDamagedByCauldron(livingEntity);
                         livingEntity.damage(damage);
 
                         // Entity died due to cauldron damage. Insert essence into the cauldron
@@ -694,31 +1070,59 @@ public class AlchemicalCauldron {
         }
 
         if (!hasIngredients()) {
+            this.stopBrewing();
+            return;
+        }
+
+        // Brewing cauldrons are woken up by the brew completion queue. Ingredients are not re-matched until then
+        if (brewingRecipeKey != null && !brewComplete) {
             return;
         }
 
         CauldronRecipeRegistry recipeRegistry = plugin.getRecipeRegistry();
-        CauldronRecipe activeRecipe = recipeRegistry.getApplicableRecipe(getIngredients(), true);
+        CauldronRecipe activeRecipe;
+
+        // Matching off-thread only requests a match here. The craft happens on a later update once the match is delivered
+        if (cauldronConfiguration.isAsyncRecipeMatching()) {
+            CauldronRecipeMatcher.Result recipeMatch = getOrRequestRecipeMatch(recipeRegistry, CauldronUpdateHandler.get().getRecipeMatcher());
+            if (recipeMatch == null) {
+                return;
+            }
+
+            activeRecipe = recipeMatch.getRecipe();
+        }
+        else {
+            activeRecipe = recipeRegistry.getApplicableRecipe(getIngredients(), true);
+        }
+
         if (activeRecipe == null) {
+            this.stopBrewing();
             return;
         }
 
         // Check if the player has permission to craft this specific recipe. If not, drop the items out of the cauldron
-        OfflinePlayer lastInteracted = getLastInteracted();
-        if (lastInteracted != null) {
-            Player player = lastInteracted.getPlayer();
-            if (player != null && !player.hasPermission(activeRecipe.getCraftingPermission())) {
-                player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new ComponentBuilder("You don't have permission to craft this.").color(ChatColor.RED).create());
-                this.dropIngredients(CauldronIngredientsDropEvent.Reason.NO_PERMISSION, player, true);
-                return;
-            }
+        Player lastInteracted = (lastInteractedUUID != null) ? plugin.getCauldronPlayerCache().getOnlinePlayer(lastInteractedUUID) : null;
+        if (lastInteracted != null && !plugin.getCauldronPlayerCache().hasPermission(lastInteracted, activeRecipe.getCraftingPermission())) {
+            lastInteracted.spigot().sendMessage(ChatMessageType.ACTION_BAR, new ComponentBuilder("You don't have permission to craft this.").color(ChatColor.RED).create());
+            this.dropIngredients(CauldronIngredientsDropEvent.Reason.NO_PERMISSION, lastInteracted, true);
+            this.stopBrewing();
+            return;
         }
 
-        CauldronItemCraftEvent cauldronCraftEvent = AlchemaEventFactory.callCauldronItemCraftEvent(this, activeRecipe, lastInteracted != null ? lastInteracted.getPlayer() : null);
+        // Start brewing the recipe if it has a brew time and has not yet been brewed (or the ingredients changed to another recipe)
+        if (activeRecipe.getBrewTime() > 0 && (!brewComplete || !activeRecipe.getKey().equals(brewingRecipeKey))) {
+            this.startBrewing(activeRecipe.getKey(), activeRecipe.getBrewTime());
+            return;
+        }
+
+        // A cancelled craft keeps its completed brew such that it is not brewed again from the start
+        CauldronItemCraftEvent cauldronCraftEvent = AlchemaEventFactory.callCauldronItemCraftEvent(this, activeRecipe, lastInteracted);
         if (cauldronCraftEvent.isCancelled()) {
             return;
         }
 
+        this.stopBrewing();
+
         ThreadLocalRandom random = ThreadLocalRandom.current();
         Vector itemVelocity = new Vector(random.nextDouble() / 10.0, 0.10 + (random.nextDouble() / 3), random.nextDouble() / 10.0);
         Location resultSpawnLocation = getLocation().add(0.5, 1.1, 0.5);
@@ -728,7 +1132,7 @@ public class AlchemicalCauldron {
         if (result != null) {
             Item item = world.dropItem(resultSpawnLocation, result.asItemStack());
             item.setVelocity(itemVelocity);
-            item.setMetadata(AlchemaConstants.METADATA_KEY_CAULDRON_CRAFTED, new FixedMetadataValue(plugin, true));
+            plugin.getTransientStateStore().markCauldronCrafted(item);
         }
 
         // Experience
@@ -739,7 +1143,10 @@ public class AlchemicalCauldron {
 
         this.removeIngredients(activeRecipe);
 
-        world.spawnParticle(Particle.SPELL_WITCH, particleLocation, 10, 0.3, 0.2, 0.3, 0.0);
+        int craftParticles = scaleParticleCount(10, particleDensity);
+        if (craftParticles > 0) {
+            world.spawnParticle(Particle.SPELL_WITCH, particleLocation, craftParticles, 0.3, 0.2, 0.3, 0.0);
+        }
 
         if (cauldronConfiguration.getSuccessfulCraftVolume() > 0.0) {
             world.playSound(location, Sound.BLOCK_BUBBLE_COLUMN_UPWARDS_AMBIENT, cauldronConfiguration.getSuccessfulCraftVolume(), 1.5F);
@@ -749,6 +1156,83 @@ public class AlchemicalCauldron {
         MetricsHelper.addSuccessfulCraft();
     }
 
+    /*
+     * Whether or not a tick that is a multiple of the given period has passed since the last update. With
+     * an update interval of 1 this is equivalent to currentTick % period == 0, but it will not miss a period
+     * if the cauldron was not updated on that exact tick.
+     */
+    private static boolean isCadenceDue(int currentTick, int elapsedTicks, int period) {
+        return Math.floorDiv(currentTick, period) != Math.floorDiv(currentTick - elapsedTicks, period);
+    }
+
+    /*
+     * Scale a particle count by the configured density. The fractional remainder is spawned randomly so that
+     * low densities still spawn the occasional particle rather than rounding down to nothing.
+     */
+    private static int scaleParticleCount(int count, float density) {
+        if (density >= 1.0F) {
+            return count;
+        }
+
+        float scaled = count * density;
+        int whole = (int) scaled;
+        return (ThreadLocalRandom.current().nextFloat() < (scaled - whole)) ? whole + 1 : whole;
+    }
+
+    /**
+     * Check whether or not the persistent state of this cauldron has changed since it was last
+     * saved. Cauldrons that are brewing are always considered to have changed as their brewing
+     * progress changes every tick.
+     *
+     * @return true if changed, false otherwise
+     */
+    @Internal
+    public boolean isDirty() {
+        return getDirtyFlags() != 0;
+    }
+
+    /**
+     * Get the parts of the persistent state of this cauldron that have changed since it was last
+     * saved as a combination of {@link #DIRTY_STATE}, {@link #DIRTY_INGREDIENTS} and
+     * {@link #DIRTY_BREWING}. As with {@link #isDirty()}, brewing cauldrons always include
+     * {@link #DIRTY_BREWING}.
+     *
+     * @return the dirty flags. 0 if unchanged
+     */
+    @Internal
+    public int getDirtyFlags() {
+        return (brewingRecipeKey != null) ? dirty | DIRTY_BREWING : dirty;
+    }
+
+    /**
+     * Set whether or not the persistent state of this cauldron has changed since it was last
+     * saved.
+     *
+     * @param dirty the new dirty state
+     */
+    @Internal
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty ? DIRTY_ALL : 0;
+    }
+
+    /**
+     * Take an immutable snapshot of the persistent state of this cauldron. This should be called
+     * on the thread that owns the cauldron.
+     *
+     * @return the record
+     */
+    @NotNull
+    public CauldronRecord toRecord() {
+        List<JsonObject> ingredientObjects = new ArrayList<>(ingredients.size());
+        this.ingredients.forEach(ingredient -> {
+            JsonObject ingredientObject = ingredient.toJson();
+            ingredientObject.addProperty("type", ingredient.getKey().toString());
+            ingredientObjects.add(ingredientObject);
+        });
+
+        return new CauldronRecord(CauldronPosition.of(cauldronBlock), heatingStartTime, heatingUp, bubbling, ingredientObjects, brewingRecipeKey, getBrewTicksRemaining());
+    }
+
     /**
      * Write and serialize this object into the given {@link JsonObject}.
      *
@@ -760,27 +1244,7 @@ public class AlchemicalCauldron {
     public JsonObject write(@NotNull JsonObject object) {
         Preconditions.checkArgument(object != null, "object cannot be null");
 
-        object.addProperty("heatingStartTime", heatingStartTime);
-        object.addProperty("heatingUp", heatingUp);
-        object.addProperty("bubbling", bubbling);
-        object.addProperty("world", getWorld().getUID().toString());
-
-        JsonObject cauldronBlockObject = new JsonObject();
-        cauldronBlockObject.addProperty("x", cauldronBlock.getX());
-        cauldronBlockObject.addProperty("y", cauldronBlock.getY());
-        cauldronBlockObject.addProperty("z", cauldronBlock.getZ());
-        object.add("cauldron", cauldronBlockObject);
-
-        if (ingredients.size() > 0) {
-            JsonArray ingredientsArray = new JsonArray();
-            this.ingredients.forEach(ingredient -> {
-                JsonObject ingredientObject = ingredient.toJson();
-                ingredientObject.addProperty("type", ingredient.getKey().toString());
-                ingredientsArray.add(ingredientObject);
-            });
-            object.add("ingredients", ingredientsArray);
-        }
-
+        this.toRecord().toJson().entrySet().forEach(entry -> object.add(entry.getKey(), entry.getValue()));
         return object;
     }
 
@@ -798,57 +1262,65 @@ public class AlchemicalCauldron {
         Preconditions.checkArgument(object != null, "object must not be null");
         Preconditions.checkArgument(recipeRegistry != null, "recipeRegistry must not be null");
 
-        UUID worldUUID = object.has("world") ? UUID.fromString(object.get("world").getAsString()) : null;
-        World world = worldUUID != null ? Bukkit.getWorld(worldUUID) : null;
-        if (world == null) {
+        CauldronRecord record = CauldronRecord.fromJson(object);
+        if (Bukkit.getWorld(record.getPosition().getWorld()) == null) {
             throw new JsonParseException("World could not be deserialized for cauldron.");
         }
 
-        JsonObject cauldronBlockObject = object.has("cauldron") ? object.getAsJsonObject("cauldron") : null;
-        if (cauldronBlockObject == null) {
-            throw new JsonParseException("Location could not be deserialized for cauldron.");
-        }
+        return fromRecord(record, recipeRegistry);
+    }
 
-        int x = cauldronBlockObject.get("x").getAsInt();
-        int y = cauldronBlockObject.get("y").getAsInt();
-        int z = cauldronBlockObject.get("z").getAsInt();
-        Block block = world.getBlockAt(x, y, z);
+    /**
+     * Create a new {@link AlchemicalCauldron} instance from the provided {@link CauldronRecord}.
+     * The record's world must be loaded.
+     *
+     * @param record the record from which to create the cauldron
+     * @param recipeRegistry the recipe registry
+     *
+     * @return the cauldron. null if the block at the record's position is no longer a cauldron
+     *
+     * @throws JsonParseException if one of the record's ingredients could not be parsed
+     */
+    @Nullable
+    public static AlchemicalCauldron fromRecord(@NotNull CauldronRecord record, @NotNull CauldronRecipeRegistry recipeRegistry) {
+        Preconditions.checkArgument(record != null, "record must not be null");
+        Preconditions.checkArgument(recipeRegistry != null, "recipeRegistry must not be null");
+
+        CauldronPosition position = record.getPosition();
+        World world = Bukkit.getWorld(position.getWorld());
+        Preconditions.checkArgument(world != null, "record's world is not loaded");
 
+        Block block = world.getBlockAt(position.getX(), position.getY(), position.getZ());
         if (block.getType() != Material.WATER_CAULDRON) {
             return null;
         }
 
         AlchemicalCauldron cauldron = new AlchemicalCauldron(block);
-        cauldron.heatingStartTime = object.has("heatingStartTime") ? object.get("heatingStartTime").getAsLong() : -1;
-        cauldron.heatingUp = object.has("heatingUp") && object.get("heatingUp").getAsBoolean();
-        cauldron.bubbling = object.has("bubbling") && object.get("bubbling").getAsBoolean();
+        cauldron.heatingStartTime = record.getHeatingStartTime();
+        cauldron.heatingUp = record.isHeatingUp();
+        cauldron.bubbling = record.isBubbling();
 
         // Parse ingredients
-        if (object.has("ingredients")) {
-            JsonArray ingredientsArray = object.getAsJsonArray("ingredients");
-            for (int i = 0; i < ingredientsArray.size(); i++) {
-                JsonElement ingredientElement = ingredientsArray.get(i);
-                if (!ingredientElement.isJsonObject()) {
-                    continue;
-                }
+        List<JsonObject> ingredientObjects = record.getIngredients();
+        for (int i = 0; i < ingredientObjects.size(); i++) {
+            JsonObject ingredientObject = ingredientObjects.get(i);
 
-                JsonObject ingredientObject = ingredientElement.getAsJsonObject();
-                if (!ingredientObject.has("type")) {
-                    throw new JsonParseException("ingredient at index " + i + " does not have an ingredient type");
-                }
+            NamespacedKey typeKey = NamespacedKeyUtil.fromString(ingredientObject.get("type").getAsString(), Alchema.getInstance());
+            if (typeKey == null) {
+                throw new JsonParseException("Invalid namespaced key \"" + typeKey + "\". Expected format is \"alchema:example\"");
+            }
 
-                NamespacedKey typeKey = NamespacedKeyUtil.fromString(ingredientObject.get("type").getAsString(), Alchema.getInstance());
-                if (typeKey == null) {
-                    throw new JsonParseException("Invalid namespaced key \"" + typeKey + "\". Expected format is \"alchema:example\"");
-                }
+            CauldronIngredient ingredient = recipeRegistry.parseIngredientType(typeKey, ingredientObject);
+            if (ingredient == null) {
+                throw new JsonParseException("Could not find ingredient type with id \"" + typeKey + "\"");
+            }
 
-                CauldronIngredient ingredient = recipeRegistry.parseIngredientType(typeKey, ingredientObject);
-                if (ingredient == null) {
-                    throw new JsonParseException("Could not find ingredient type with id \"" + typeKey + "\"");
-                }
+            cauldron.addIngredient(ingredient);
+        }
 
-                cauldron.addIngredient(ingredient);
-            }
+        // Parse brewing progress. The recipe is not resolved here as recipes may not yet be loaded
+        if (record.getBrewingRecipeKey() != null && cauldron.hasIngredients()) {
+            cauldron.startBrewing(record.getBrewingRecipeKey(), record.getBrewTicksRemaining());
         }
 
         return cauldron;
@@ -2,13 +2,19 @@ package wtf.choco.alchema.cauldron;
 
 import com.google.common.base.Preconditions;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
+import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnmodifiableView;
@@ -22,9 +28,13 @@ import wtf.choco.alchema.Alchema;
  */
 public final class CauldronManager {
 
-    private final Map<Block, AlchemicalCauldron> cauldrons = new HashMap<>();
+    // Cauldrons may be added and removed while being iterated (e.g. by events called while cauldrons are updated)
+    private final Map<Block, AlchemicalCauldron> cauldrons = new ConcurrentHashMap<>();
+    private final Map<ChunkKey, Set<AlchemicalCauldron>> cauldronsByChunk = new ConcurrentHashMap<>();
     private final Alchema plugin;
 
+    private volatile CauldronUpdateHandler updateHandler;
+
     /**
      * Construct a new {@link CauldronManager}.
      *
@@ -41,8 +51,32 @@ public final class CauldronManager {
      */
     public void addCauldron(@NotNull AlchemicalCauldron cauldron) {
         Preconditions.checkNotNull(cauldron, "Cannot add null alchemical cauldron");
-        this.cauldrons.put(cauldron.getCauldronBlock(), cauldron);
+        AlchemicalCauldron previous = cauldrons.put(cauldron.getCauldronBlock(), cauldron);
+        boolean replaced = previous != null && previous != cauldron;
+
+        // The replaced cauldron shares the block, so its metadata must be detached before the new cauldron's is attached
+        if (replaced) {
+            previous.detachMetadata(plugin);
+            previous.cancelTimers();
+        }
+
         cauldron.attachMetadata(plugin);
+
+        Set<AlchemicalCauldron> chunkCauldrons = cauldronsByChunk.computeIfAbsent(ChunkKey.of(cauldron.getCauldronBlock()), key -> ConcurrentHashMap.newKeySet());
+        if (previous != null) {
+            chunkCauldrons.remove(previous);
+        }
+
+        chunkCauldrons.add(cauldron);
+
+        CauldronUpdateHandler updateHandler = this.updateHandler;
+        if (updateHandler != null) {
+            if (replaced) {
+                updateHandler.untrack(previous);
+            }
+
+            updateHandler.track(cauldron);
+        }
     }
 
     /**
@@ -51,8 +85,33 @@ public final class CauldronManager {
      * @param cauldron the cauldron to remove
      */
     public void removeCauldron(@NotNull AlchemicalCauldron cauldron) {
+        this.unloadCauldron(cauldron);
+        this.plugin.getCauldronStorage().removeCauldron(cauldron);
+    }
+
+    /**
+     * Remove an {@link AlchemicalCauldron} from the world without removing it from storage. This
+     * is intended for cauldrons whose chunk is being unloaded and whose state has been (or will
+     * be) persisted elsewhere.
+     *
+     * @param cauldron the cauldron to unload
+     */
+    @Internal
+    public void unloadCauldron(@NotNull AlchemicalCauldron cauldron) {
         this.cauldrons.remove(cauldron.getCauldronBlock());
         cauldron.detachMetadata(plugin);
+        cauldron.cancelTimers();
+
+        ChunkKey chunkKey = ChunkKey.of(cauldron.getCauldronBlock());
+        this.cauldronsByChunk.computeIfPresent(chunkKey, (key, chunkCauldrons) -> {
+            chunkCauldrons.remove(cauldron);
+            return chunkCauldrons.isEmpty() ? null : chunkCauldrons;
+        });
+
+        CauldronUpdateHandler updateHandler = this.updateHandler;
+        if (updateHandler != null) {
+            updateHandler.untrack(cauldron);
+        }
     }
 
     /**
@@ -92,12 +151,73 @@ public final class CauldronManager {
         return Collections.unmodifiableCollection(cauldrons.values());
     }
 
+    /**
+     * Get all {@link AlchemicalCauldron}s in the given {@link Chunk}. Changes made to the returned
+     * List will not affect this manager.
+     *
+     * @param chunk the chunk
+     *
+     * @return all cauldrons in the chunk
+     */
+    @NotNull
+    public List<@NotNull AlchemicalCauldron> getCauldrons(@NotNull Chunk chunk) {
+        Set<AlchemicalCauldron> chunkCauldrons = cauldronsByChunk.get(new ChunkKey(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ()));
+        return (chunkCauldrons != null) ? new ArrayList<>(chunkCauldrons) : new ArrayList<>();
+    }
+
     /**
      * Clear all alchemical cauldrons from the world.
      */
     public void clearCauldrons() {
-        this.cauldrons.values().forEach(cauldron -> cauldron.detachMetadata(plugin));
+        CauldronUpdateHandler updateHandler = this.updateHandler;
+        this.cauldrons.values().forEach(cauldron -> {
+            cauldron.detachMetadata(plugin);
+            cauldron.cancelTimers();
+
+            if (updateHandler != null) {
+                updateHandler.untrack(cauldron);
+            }
+        });
         this.cauldrons.clear();
+        this.cauldronsByChunk.clear();
+    }
+
+    /**
+     * Set the update handler to be notified when cauldrons are added or removed.
+     *
+     * @param updateHandler the update handler
+     */
+    @Internal
+    void setUpdateHandler(@Nullable CauldronUpdateHandler updateHandler) {
+        this.updateHandler = updateHandler;
+    }
+
+    private static final class ChunkKey {
+
+        private final UUID world;
+        private final int x, z;
+
+        private ChunkKey(@NotNull UUID world, int x, int z) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+
+        @NotNull
+        private static ChunkKey of(@NotNull Block block) {
+            return new ChunkKey(block.getWorld().getUID(), block.getX() >> 4, block.getZ() >> 4);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * world.hashCode() + x) + z;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj == this || (obj instanceof ChunkKey other && x == other.x && z == other.z && world.equals(other.world));
+        }
+
     }
 
 }
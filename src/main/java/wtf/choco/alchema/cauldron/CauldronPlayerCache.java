@@ -0,0 +1,130 @@
+package wtf.choco.alchema.cauldron;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A cache of online {@link Player} handles and of the results of the permission checks made
+ * while cauldrons absorb items and craft recipes. Cauldrons resolve item throwers and the
+ * player that last interacted with them through this cache such that no offline player lookup
+ * is ever made while updating.
+ * <p>
+ * Players are added when they join and removed when they quit. Cached permission results are
+ * discarded when a player joins, quits or changes worlds, when recipe permissions are added
+ * or removed, and otherwise after a short period of time as Bukkit does not notify plugins
+ * when a player's permissions are recalculated.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class CauldronPlayerCache {
+
+    private static final long PERMISSION_EXPIRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<@NotNull UUID, @NotNull Player> onlinePlayers = new ConcurrentHashMap<>();
+    private final Map<@NotNull UUID, @NotNull PermissionResults> permissions = new ConcurrentHashMap<>();
+
+    /**
+     * Add all players that are currently online to this cache. This is intended to be called
+     * once when Alchema is enabled such that players who joined before (e.g. during a reload)
+     * are known.
+     */
+    public void addOnlinePlayers() {
+        Bukkit.getOnlinePlayers().forEach(this::addPlayer);
+    }
+
+    /**
+     * Add a player that has joined the server to this cache.
+     *
+     * @param player the player to add
+     */
+    public void addPlayer(@NotNull Player player) {
+        Preconditions.checkArgument(player != null, "player must not be null");
+
+        this.onlinePlayers.put(player.getUniqueId(), player);
+        this.permissions.remove(player.getUniqueId());
+    }
+
+    /**
+     * Remove a player that has left the server from this cache.
+     *
+     * @param player the player to remove
+     */
+    public void removePlayer(@NotNull Player player) {
+        Preconditions.checkArgument(player != null, "player must not be null");
+
+        this.onlinePlayers.remove(player.getUniqueId());
+        this.permissions.remove(player.getUniqueId());
+    }
+
+    /**
+     * Get the online player with the given UUID.
+     *
+     * @param uuid the player's UUID
+     *
+     * @return the online player. null if the player is not online
+     */
+    @Nullable
+    public Player getOnlinePlayer(@NotNull UUID uuid) {
+        return onlinePlayers.get(uuid);
+    }
+
+    /**
+     * Check whether or not the given player has a permission. The result is cached until the
+     * player's cached permission results are next invalidated.
+     *
+     * @param player the player to check
+     * @param permission the permission to check
+     *
+     * @return true if the player has the permission, false otherwise
+     */
+    public boolean hasPermission(@NotNull Player player, @NotNull String permission) {
+        long now = System.nanoTime();
+        PermissionResults results = permissions.compute(player.getUniqueId(), (uuid, existing) -> (existing != null && now - existing.created < PERMISSION_EXPIRY_NANOS) ? existing : new PermissionResults(now));
+        return results.results.computeIfAbsent(permission, player::hasPermission);
+    }
+
+    /**
+     * Invalidate the cached permission results of the given player.
+     *
+     * @param player the player whose results to invalidate
+     */
+    public void invalidatePermissions(@NotNull Player player) {
+        this.permissions.remove(player.getUniqueId());
+    }
+
+    /**
+     * Invalidate the cached permission results of all players.
+     */
+    public void invalidatePermissions() {
+        this.permissions.clear();
+    }
+
+    /**
+     * Clear this cache of all players and permission results.
+     */
+    public void clear() {
+        this.onlinePlayers.clear();
+        this.permissions.clear();
+    }
+
+    private static final class PermissionResults {
+
+        private final long created;
+        private final Map<@NotNull String, @NotNull Boolean> results = new ConcurrentHashMap<>();
+
+        private PermissionResults(long created) {
+            this.created = created;
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package wtf.choco.alchema.cauldron;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import wtf.choco.alchema.crafting.CauldronIngredient;
+import wtf.choco.alchema.crafting.CauldronRecipe;
+import wtf.choco.alchema.crafting.CauldronRecipeRegistry;
+
+/**
+ * Matches cauldron ingredients against registered recipes on a pool of worker threads.
+ * <p>
+ * Cauldrons submit an immutable snapshot of their ingredients along with the generation of
+ * their ingredients and of the recipe registry at the time of submission. Once matched, the
+ * {@link Result} is handed back to the cauldron which applies it on its own thread on its next
+ * update, but only if neither generation has changed in the meantime.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class CauldronRecipeMatcher {
+
+    private final ExecutorService executor;
+    private final Logger logger;
+
+    /**
+     * Construct a new {@link CauldronRecipeMatcher}.
+     *
+     * @param threads the amount of worker threads
+     * @param logger the logger to which matching errors should be logged
+     */
+    CauldronRecipeMatcher(int threads, @NotNull Logger logger) {
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Alchema Recipe Matcher #%d").setDaemon(true).build());
+        this.logger = logger;
+    }
+
+    /**
+     * Submit an ingredient snapshot to be matched.
+     *
+     * @param cauldron the cauldron to which the result should be delivered
+     * @param recipeRegistry the registry against which to match
+     * @param ingredients an immutable snapshot of the cauldron's ingredients
+     * @param ingredientGeneration the cauldron's ingredient generation at the time of the snapshot
+     * @param registryGeneration the registry's generation at the time of the snapshot
+     */
+    void submit(@NotNull AlchemicalCauldron cauldron, @NotNull CauldronRecipeRegistry recipeRegistry, @NotNull List<@NotNull CauldronIngredient> ingredients, int ingredientGeneration, long registryGeneration) {
+        try {
+            this.executor.execute(() -> {
+                CauldronRecipe recipe = null;
+
+                try {
+                    recipe = recipeRegistry.getApplicableRecipe(ingredients, true);
+                } catch (RuntimeException e) {
+                    // Deliver an empty result anyways so the cauldron does not resubmit the same snapshot every tick
+                    this.logger.log(Level.WARNING, "Could not match cauldron ingredients against recipes", e);
+                }
+
+                cauldron.setRecipeMatch(new Result(recipe, ingredientGeneration, registryGeneration));
+            });
+        } catch (RejectedExecutionException e) {
+            // The matcher was shut down. The cauldron will resubmit once a new matcher is available
+            cauldron.clearRecipeMatchRequest();
+        }
+    }
+
+    /**
+     * Shut down this matcher's worker threads. Snapshots that have yet to be matched are discarded.
+     */
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * The result of matching an ingredient snapshot.
+     */
+    static final class Result {
+
+        private final CauldronRecipe recipe;
+        private final int ingredientGeneration;
+        private final long registryGeneration;
+
+        private Result(@Nullable CauldronRecipe recipe, int ingredientGeneration, long registryGeneration) {
+            this.recipe = recipe;
+            this.ingredientGeneration = ingredientGeneration;
+            this.registryGeneration = registryGeneration;
+        }
+
+        /**
+         * Get the matched recipe.
+         *
+         * @return the recipe. null if no recipe matched
+         */
+        @Nullable
+        CauldronRecipe getRecipe() {
+            return recipe;
+        }
+
+        /**
+         * Check whether or not this result is still applicable given the current generations.
+         *
+         * @param ingredientGeneration the cauldron's current ingredient generation
+         * @param registryGeneration the registry's current generation
+         *
+         * @return true if current, false if stale
+         */
+        boolean isCurrent(int ingredientGeneration, long registryGeneration) {
+            return this.ingredientGeneration == ingredientGeneration && this.registryGeneration == registryGeneration;
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package wtf.choco.alchema.cauldron;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.config.CauldronConfigurationContext;
+
+/**
+ * Monitors the time spent updating cauldrons every tick and throttles the cauldron
+ * subsystem when it exceeds its share of the server's tick budget.
+ * <p>
+ * The controller operates on discrete throttle levels. Each level above 0 doubles the
+ * item search interval, halves the particle density and halves the level of detail
+ * distances (such that cauldrons fall into slower tiers sooner). Levels are raised when
+ * the average time spent per tick exceeds the configured budget and are lowered again
+ * once it falls comfortably below it.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class CauldronThrottleController {
+
+    private static final long NANOSECONDS_PER_TICK = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final int SAMPLE_SIZE = 100;
+    private static final int ADJUSTMENT_INTERVAL = 20;
+
+    // The average must fall below this fraction of the budget before the level is lowered (avoids oscillation)
+    private static final double RECOVERY_THRESHOLD = 0.5;
+
+    private boolean enabled = false;
+    private long budgetNanos = NANOSECONDS_PER_TICK / 10;
+    private int maxLevel = 3;
+
+    private int level = 0;
+    private int ticksSinceAdjustment = 0;
+
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int sampleIndex = 0, sampleCount = 0;
+    private long sampleTotal = 0L, peakSample = 0L;
+
+    CauldronThrottleController() { }
+
+    /**
+     * Configure this controller. If throttling is disabled, the throttle level is reset to 0.
+     *
+     * @param enabled whether or not throttling is enabled
+     * @param maxTickShare the maximum fraction of a 50ms tick that cauldron updates may consume
+     * before being throttled. Must be {@literal >} 0.0 and {@literal <=} 1.0
+     * @param maxLevel the maximum throttle level. Must be {@literal >=} 0
+     */
+    @Internal
+    void configure(boolean enabled, double maxTickShare, int maxLevel) {
+        Preconditions.checkArgument(maxTickShare > 0.0 && maxTickShare <= 1.0, "maxTickShare must be > 0.0 and <= 1.0");
+        Preconditions.checkArgument(maxLevel >= 0, "maxLevel must be >= 0");
+
+        this.enabled = enabled;
+        this.budgetNanos = (long) (NANOSECONDS_PER_TICK * maxTickShare);
+        this.maxLevel = maxLevel;
+        this.level = enabled ? Math.min(level, maxLevel) : 0;
+    }
+
+    /**
+     * Record the time taken to update cauldrons in a single tick and adjust the throttle
+     * level if necessary.
+     *
+     * @param durationNanos the duration of the tick's update in nanoseconds
+     *
+     * @return true if the throttle level changed as a result of this sample, false otherwise
+     */
+    @Internal
+    boolean recordTick(long durationNanos) {
+        this.sampleTotal += durationNanos - samples[sampleIndex];
+        this.samples[sampleIndex] = durationNanos;
+        this.sampleIndex = (sampleIndex + 1) % SAMPLE_SIZE;
+        this.sampleCount = Math.min(sampleCount + 1, SAMPLE_SIZE);
+
+        if (++ticksSinceAdjustment < ADJUSTMENT_INTERVAL) {
+            return false;
+        }
+
+        this.ticksSinceAdjustment = 0;
+        this.peakSample = 0L;
+        for (int i = 0; i < sampleCount; i++) {
+            this.peakSample = Math.max(peakSample, samples[i]);
+        }
+
+        if (!enabled) {
+            return false;
+        }
+
+        long average = getAverageTickNanos();
+        if (average > budgetNanos && level < maxLevel) {
+            this.level++;
+            return true;
+        }
+        else if (average < budgetNanos * RECOVERY_THRESHOLD && level > 0) {
+            this.level--;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Derive the effective configuration context from the given base configuration according
+     * to the current throttle level. If not throttling, the base context is returned as is.
+     *
+     * @param base the base configuration context
+     *
+     * @return the effective configuration context
+     */
+    @NotNull
+    @Internal
+    CauldronConfigurationContext apply(@NotNull CauldronConfigurationContext base) {
+        if (level <= 0) {
+            return base;
+        }
+
+        int factor = getThrottleFactor();
+        CauldronConfigurationContext.CauldronConfigurationContextBuilder builder = CauldronConfigurationContext.builder(base)
+                .itemSearchInterval(base.getItemSearchInterval() * factor)
+                .particleDensity(base.getParticleDensity() / factor)
+                .clearLevelOfDetailTiers();
+
+        // Tiers are iterated nearest first. Distances that divide down to the same value are spread apart such that no tier replaces another
+        int previousDistance = 0;
+        for (Map.Entry<@NotNull Integer, @NotNull Integer> tier : base.getLevelOfDetailTiers().entrySet()) {
+            int distance = Math.max(tier.getKey() / factor, previousDistance + 1);
+            builder.levelOfDetailTier(distance, tier.getValue());
+            previousDistance = distance;
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Check whether or not adaptive throttling is enabled.
+     *
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check whether or not the cauldron subsystem is currently being throttled.
+     *
+     * @return true if throttled, false otherwise
+     */
+    public boolean isThrottling() {
+        return level > 0;
+    }
+
+    /**
+     * Get the current throttle level. 0 if not throttling.
+     *
+     * @return the throttle level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the maximum throttle level.
+     *
+     * @return the maximum throttle level
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * Get the factor by which intervals are currently multiplied (and densities divided).
+     *
+     * @return the throttle factor
+     */
+    public int getThrottleFactor() {
+        return 1 << level;
+    }
+
+    /**
+     * Get the amount of time (in nanoseconds) that cauldron updates may consume per tick
+     * before the subsystem is throttled.
+     *
+     * @return the tick budget in nanoseconds
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Get the average amount of time (in nanoseconds) spent updating cauldrons per tick over
+     * the last 100 ticks.
+     *
+     * @return the average tick duration in nanoseconds
+     */
+    public long getAverageTickNanos() {
+        return (sampleCount > 0) ? sampleTotal / sampleCount : 0L;
+    }
+
+    /**
+     * Get the longest amount of time (in nanoseconds) spent updating cauldrons in a single tick
+     * over the last 100 ticks. This value is refreshed once every second.
+     *
+     * @return the peak tick duration in nanoseconds
+     */
+    public long getPeakTickNanos() {
+        return peakSample;
+    }
+
+}
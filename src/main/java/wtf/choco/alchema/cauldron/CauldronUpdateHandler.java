@@ -3,35 +3,66 @@ package wtf.choco.alchema.cauldron;
 import com.google.common.base.Preconditions;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import wtf.choco.alchema.Alchema;
 import wtf.choco.alchema.api.event.CauldronIngredientsDropEvent;
 import wtf.choco.alchema.config.CauldronConfigurationContext;
 import wtf.choco.alchema.util.AlchemaConstants;
+import wtf.choco.alchema.util.TimerWheel;
 
 /**
  * Responsible for the updating and ticking of in-world {@link AlchemicalCauldron} instances.
+ * <p>
+ * Only cauldrons that are awake (i.e. bubbling) are visited every tick. Dormant cauldrons, those
+ * that are idle or heating up, are left out of the tick entirely until one of their timers wakes
+ * them up, such that the cost of a tick scales with the amount of awake cauldrons and expiring
+ * timers rather than with the amount of cauldrons in the world. All cauldrons are ticked on the
+ * main thread.
  *
  * @author Parker Hawke - Choco
  */
 public final class CauldronUpdateHandler {
 
+    private static final int LEVEL_OF_DETAIL_RECALCULATION_INTERVAL = 20;
+    private static final int TIMER_WHEEL_SLOTS = 256;
+
     private static CauldronUpdateHandler instance = null;
 
     private BukkitTask task;
     private int currentTick = 0;
 
     private boolean dirty = true;
-    private CauldronConfigurationContext cauldronConfiguration;
+    private CauldronConfigurationContext baseCauldronConfiguration, cauldronConfiguration;
+
+    private final CauldronThrottleController throttleController = new CauldronThrottleController();
+    private CauldronRecipeMatcher recipeMatcher;
 
-    private final List<AlchemicalCauldron> forRemoval = new ArrayList<>(4);
+    private final TimerWheel timerWheel = new TimerWheel(TIMER_WHEEL_SLOTS, 0);
+    private final PriorityQueue<@NotNull BrewCompletion> brewCompletionQueue = new PriorityQueue<>();
+    private final List<@NotNull AlchemicalCauldron> forRemoval = new ArrayList<>(4);
+    private final Map<@NotNull World, double[]> playerPositions = new HashMap<>();
+
+    // Awake cauldrons are copied before being updated as cauldrons may be added, removed and put to sleep while updating
+    private final Set<@NotNull AlchemicalCauldron> cauldrons = new HashSet<>();
+    private final Set<@NotNull AlchemicalCauldron> awakeCauldrons = new HashSet<>();
+    private final List<@NotNull AlchemicalCauldron> updatingCauldrons = new ArrayList<>();
 
     private final Alchema plugin;
     private final CauldronManager cauldronManager;
@@ -44,33 +75,63 @@ public final class CauldronUpdateHandler {
     private void run() {
         this.currentTick++;
 
-        Collection<@NotNull AlchemicalCauldron> cauldrons = cauldronManager.getCauldrons();
-        if (cauldrons.isEmpty()) {
-            return;
-        }
-
         // Pull configuration values if dirty
         if (dirty) {
             FileConfiguration config = plugin.getConfig();
 
-            int minEssenceOnDeath = Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_ENTITIES_MIN_ESSENCE_ON_DEATH, 50), 0);
-            this.cauldronConfiguration = CauldronConfigurationContext.builder()
-                    .itemSearchInterval(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_ITEM_SEARCH_INTERVAL, 1), 1))
-                    .enforcePlayerDroppedItems(config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_ENFORCE_PLAYER_DROPPED_ITEMS, false))
-                    .millisecondsToHeatUp(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_MILLISECONDS_TO_HEAT_UP, 5000), 0))
-                    .damageEntities(config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_ENTITIES_DAMAGE, true))
-                    .minEssenceOnDeath(minEssenceOnDeath)
-                    .maxEssenceOnDeath(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_ENTITIES_MAX_ESSENCE_ON_DEATH, 100), minEssenceOnDeath))
-                    .ambientBubbleVolume((float) config.getDouble(AlchemaConstants.CONFIG_CAULDRON_SOUND_AMBIENT_BUBBLE_VOLUME, 0.45))
-                    .itemSplashVolume((float) config.getDouble(AlchemaConstants.CONFIG_CAULDRON_SOUND_ITEM_SPLASH_VOLUME, 1.0))
-                    .successfulCraftVolume((float) config.getDouble(AlchemaConstants.CONFIG_CAULDRON_SOUND_SUCCESSFUL_CRAFT_VOLUME, 0.5))
-                    .build();
+            this.throttleController.configure(
+                config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_THROTTLE_ENABLED, false),
+                Math.min(Math.max(config.getDouble(AlchemaConstants.CONFIG_CAULDRON_THROTTLE_MAX_TICK_SHARE, 0.1), 0.001), 1.0),
+                Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_THROTTLE_MAX_LEVEL, 3), 0)
+            );
 
+            this.baseCauldronConfiguration = loadConfiguration(config);
+            this.cauldronConfiguration = throttleController.apply(baseCauldronConfiguration);
             this.dirty = false;
         }
 
-        for (AlchemicalCauldron cauldron : cauldrons) {
-            if (!cauldron.isLoaded()) {
+        long startTime = System.nanoTime();
+        try {
+            this.tick();
+        } finally {
+            // If the throttle level changed, derive a new effective configuration from the configured values
+            if (throttleController.recordTick(System.nanoTime() - startTime)) {
+                this.cauldronConfiguration = throttleController.apply(baseCauldronConfiguration);
+            }
+        }
+    }
+
+    private void tick() {
+        // Fire expiring timers first so cauldrons woken up by their timers are updated this tick
+        this.timerWheel.advance(currentTick);
+
+        // Wake up cauldrons whose brews complete this tick
+        while (!brewCompletionQueue.isEmpty() && brewCompletionQueue.peek().deadlineTick <= currentTick) {
+            BrewCompletion completion = brewCompletionQueue.poll();
+            completion.cauldron.completeBrew(completion.generation);
+        }
+
+        if (awakeCauldrons.isEmpty()) {
+            return;
+        }
+
+        // Level of detail tiers are not recalculated every tick. Players don't move that fast
+        boolean recalculateLevelOfDetail = (currentTick % LEVEL_OF_DETAIL_RECALCULATION_INTERVAL == 0);
+
+        this.updatingCauldrons.clear();
+        this.updatingCauldrons.addAll(awakeCauldrons);
+
+        for (AlchemicalCauldron cauldron : updatingCauldrons) {
+            // Removed or put to sleep by an earlier cauldron's update (e.g. by an event listener)
+            if (!awakeCauldrons.contains(cauldron) || !cauldron.isLoaded()) {
+                continue;
+            }
+
+            if (recalculateLevelOfDetail) {
+                cauldron.setUpdateInterval(calculateUpdateInterval(cauldron));
+            }
+
+            if (!cauldron.isUpdateDue(currentTick)) {
                 continue;
             }
 
@@ -81,8 +142,22 @@ public final class CauldronUpdateHandler {
             }
 
             cauldron.update(plugin, cauldronConfiguration, currentTick);
+            cauldron.scheduleTimers(timerWheel, cauldronConfiguration);
+
+            // Idle and heating cauldrons have nothing to do until one of their timers wakes them up
+            if (cauldron.isDormant()) {
+                this.awakeCauldrons.remove(cauldron);
+            }
+
+            if (cauldron.isAwaitingBrewSchedule()) {
+                int deadlineTick = currentTick + Math.max(cauldron.getBrewTicksRemaining(), 1);
+                this.brewCompletionQueue.add(new BrewCompletion(cauldron, deadlineTick, cauldron.scheduleBrew(deadlineTick)));
+            }
         }
 
+        this.updatingCauldrons.clear();
+        this.playerPositions.clear();
+
         if (!forRemoval.isEmpty()) {
             this.forRemoval.forEach(cauldron -> {
                 cauldron.dropIngredients(CauldronIngredientsDropEvent.Reason.DESTROYED, null);
@@ -93,6 +168,132 @@ public final class CauldronUpdateHandler {
         }
     }
 
+    private int calculateUpdateInterval(@NotNull AlchemicalCauldron cauldron) {
+        if (!cauldronConfiguration.isLevelOfDetailEnabled()) {
+            return 1;
+        }
+
+        double[] positions = playerPositions.computeIfAbsent(cauldron.getWorld(), CauldronUpdateHandler::collectPlayerPositions);
+        double x = cauldron.getX() + 0.5, y = cauldron.getY() + 0.5, z = cauldron.getZ() + 0.5;
+        double nearestDistanceSquared = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < positions.length; i += 3) {
+            double deltaX = positions[i] - x, deltaY = positions[i + 1] - y, deltaZ = positions[i + 2] - z;
+            nearestDistanceSquared = Math.min(nearestDistanceSquared, (deltaX * deltaX) + (deltaY * deltaY) + (deltaZ * deltaZ));
+        }
+
+        return cauldronConfiguration.getUpdateInterval(nearestDistanceSquared);
+    }
+
+    @NotNull
+    private static double[] collectPlayerPositions(@NotNull World world) {
+        List<Player> players = world.getPlayers();
+        double[] positions = new double[players.size() * 3];
+
+        int index = 0;
+        for (Player player : players) {
+            Location location = player.getLocation();
+            positions[index++] = location.getX();
+            positions[index++] = location.getY();
+            positions[index++] = location.getZ();
+        }
+
+        return positions;
+    }
+
+    /**
+     * Get the matcher used to match cauldron ingredients against recipes off-thread. The matcher
+     * is created the first time it is requested.
+     *
+     * @return the recipe matcher
+     */
+    @NotNull
+    @Internal
+    synchronized CauldronRecipeMatcher getRecipeMatcher() {
+        if (recipeMatcher == null) {
+            this.recipeMatcher = new CauldronRecipeMatcher(Math.max(Runtime.getRuntime().availableProcessors() / 4, 1), plugin.getLogger());
+        }
+
+        return recipeMatcher;
+    }
+
+    /**
+     * Begin ticking the given cauldron. This is called by the {@link CauldronManager} when a
+     * cauldron is added.
+     *
+     * @param cauldron the cauldron to track
+     */
+    @Internal
+    void track(@NotNull AlchemicalCauldron cauldron) {
+        this.cauldrons.add(cauldron);
+        this.awakeCauldrons.add(cauldron);
+    }
+
+    /**
+     * Stop ticking the given cauldron. This is called by the {@link CauldronManager} when a
+     * cauldron is removed.
+     *
+     * @param cauldron the cauldron to untrack
+     */
+    @Internal
+    void untrack(@NotNull AlchemicalCauldron cauldron) {
+        this.cauldrons.remove(cauldron);
+        this.awakeCauldrons.remove(cauldron);
+    }
+
+    /**
+     * Wake up a dormant cauldron such that it is updated again from this tick onward. This is
+     * called by the cauldron's timers.
+     *
+     * @param cauldron the cauldron to wake up
+     */
+    @Internal
+    void wakeUp(@NotNull AlchemicalCauldron cauldron) {
+        if (cauldrons.contains(cauldron)) {
+            this.awakeCauldrons.add(cauldron);
+        }
+    }
+
+    @NotNull
+    private CauldronConfigurationContext loadConfiguration(@NotNull FileConfiguration config) {
+        int minEssenceOnDeath = Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_ENTITIES_MIN_ESSENCE_ON_DEATH, 50), 0);
+        CauldronConfigurationContext.CauldronConfigurationContextBuilder builder = CauldronConfigurationContext.builder()
+                .itemSearchInterval(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_ITEM_SEARCH_INTERVAL, 1), 1))
+                .enforcePlayerDroppedItems(config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_ENFORCE_PLAYER_DROPPED_ITEMS, false))
+                .millisecondsToHeatUp(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_MILLISECONDS_TO_HEAT_UP, 5000), 0))
+                .damageEntities(config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_ENTITIES_DAMAGE, true))
+                .minEssenceOnDeath(minEssenceOnDeath)
+                .maxEssenceOnDeath(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_ENTITIES_MAX_ESSENCE_ON_DEATH, 100), minEssenceOnDeath))
+                .ambientBubbleVolume((float) config.getDouble(AlchemaConstants.CONFIG_CAULDRON_SOUND_AMBIENT_BUBBLE_VOLUME, 0.45))
+                .itemSplashVolume((float) config.getDouble(AlchemaConstants.CONFIG_CAULDRON_SOUND_ITEM_SPLASH_VOLUME, 1.0))
+                .successfulCraftVolume((float) config.getDouble(AlchemaConstants.CONFIG_CAULDRON_SOUND_SUCCESSFUL_CRAFT_VOLUME, 0.5))
+                .asyncRecipeMatching(config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_ASYNC_RECIPE_MATCHING, false))
+                .levelOfDetail(config.getBoolean(AlchemaConstants.CONFIG_CAULDRON_LEVEL_OF_DETAIL_ENABLED, false))
+                .levelOfDetailFallbackInterval(Math.max(config.getInt(AlchemaConstants.CONFIG_CAULDRON_LEVEL_OF_DETAIL_FALLBACK_INTERVAL, 20), 1));
+
+        ConfigurationSection tiersSection = config.getConfigurationSection(AlchemaConstants.CONFIG_CAULDRON_LEVEL_OF_DETAIL_TIERS);
+        if (tiersSection != null) {
+            for (String distanceString : tiersSection.getKeys(false)) {
+                int distance;
+
+                try {
+                    distance = Integer.parseInt(distanceString);
+                } catch (NumberFormatException e) {
+                    this.plugin.getLogger().warning("Invalid level of detail distance, \"" + distanceString + "\". Must be a whole number.");
+                    continue;
+                }
+
+                if (distance <= 0) {
+                    continue;
+                }
+
+                builder.levelOfDetailTier(distance, Math.max(tiersSection.getInt(distanceString, 1), 1));
+            }
+        }
+
+        return builder.build();
+    }
+
     /**
      * Mark this cauldron update task as dirty.
      * <p>
@@ -103,13 +304,45 @@ public final class CauldronUpdateHandler {
         this.dirty = true;
     }
 
+    /**
+     * Get the current update tick. This is the amount of ticks that have elapsed since the
+     * update task was started.
+     *
+     * @return the current tick
+     */
+    public int getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Get the controller responsible for throttling cauldron updates when they consume too
+     * much of the server's tick.
+     *
+     * @return the throttle controller
+     */
+    @NotNull
+    public CauldronThrottleController getThrottleController() {
+        return throttleController;
+    }
+
+    /**
+     * Get the configuration context currently in effect for cauldron updates. This may differ
+     * from the configured values if the cauldron subsystem is being throttled.
+     *
+     * @return the effective configuration context, or null if not yet loaded
+     */
+    @Nullable
+    public CauldronConfigurationContext getEffectiveConfiguration() {
+        return cauldronConfiguration;
+    }
+
     /**
      * Start the update task. If the task was already started, an exception will be thrown.
      */
     public void startTask() {
         Preconditions.checkState(task == null, "task was already started and cannot be started again");
 
-        this.task = Bukkit.getScheduler().runTaskTimer(plugin, instance::run, 0L, 1L);
+        this.task = Bukkit.getScheduler().runTaskTimer(plugin, this::run, 0L, 1L);
     }
 
     /**
@@ -123,6 +356,14 @@ public final class CauldronUpdateHandler {
         }
 
         this.task.cancel();
+
+        synchronized (this) {
+            if (recipeMatcher != null) {
+                this.recipeMatcher.shutdown();
+                this.recipeMatcher = null;
+            }
+        }
+
         return true;
     }
 
@@ -154,9 +395,33 @@ public final class CauldronUpdateHandler {
 
         if (instance == null) {
             instance = new CauldronUpdateHandler(plugin);
+
+            // Cauldrons may have been added before the handler was initialized (or are being loaded concurrently)
+            CauldronManager cauldronManager = plugin.getCauldronManager();
+            cauldronManager.setUpdateHandler(instance);
+            cauldronManager.getCauldrons().forEach(instance::track);
         }
 
         return instance;
     }
 
+    private static final class BrewCompletion implements Comparable<@NotNull BrewCompletion> {
+
+        private final AlchemicalCauldron cauldron;
+        private final int deadlineTick;
+        private final int generation;
+
+        private BrewCompletion(@NotNull AlchemicalCauldron cauldron, int deadlineTick, int generation) {
+            this.cauldron = cauldron;
+            this.deadlineTick = deadlineTick;
+            this.generation = generation;
+        }
+
+        @Override
+        public int compareTo(@NotNull BrewCompletion other) {
+            return Integer.compare(deadlineTick, other.deadlineTick);
+        }
+
+    }
+
 }
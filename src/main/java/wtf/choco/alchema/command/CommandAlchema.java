@@ -15,6 +15,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.bukkit.ChatColor;
+import org.bukkit.NamespacedKey;
 import org.bukkit.Sound;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
@@ -29,7 +30,9 @@ import org.jetbrains.annotations.Nullable;
 
 import wtf.choco.alchema.Alchema;
 import wtf.choco.alchema.api.event.CauldronRecipeRegisterEvent;
+import wtf.choco.alchema.cauldron.CauldronThrottleController;
 import wtf.choco.alchema.cauldron.CauldronUpdateHandler;
+import wtf.choco.alchema.config.CauldronConfigurationContext;
 import wtf.choco.alchema.crafting.RecipeLoadFailureReport;
 import wtf.choco.alchema.util.AlchemaConstants;
 import wtf.choco.commons.integration.PluginIntegration;
@@ -42,12 +45,15 @@ public final class CommandAlchema implements TabExecutor {
     private static final List<String> RELOAD_ARGS = Arrays.asList("verbose");
     private static final List<String> SAVE_FLAG_ARGS = Arrays.asList("-f");
 
+    private static final int SLOWEST_RECIPE_COUNT = 5;
+
     private static final Map<String, String> BASE_ARGS = new HashMap<>();
     static {
         BASE_ARGS.put("version", null);
         BASE_ARGS.put("reload", AlchemaConstants.PERMISSION_COMMAND_RELOAD);
         BASE_ARGS.put("integrations", AlchemaConstants.PERMISSION_COMMAND_INTEGRATIONS);
         BASE_ARGS.put("saverecipe", AlchemaConstants.PERMISSION_COMMAND_SAVERECIPE);
+        BASE_ARGS.put("throttle", AlchemaConstants.PERMISSION_COMMAND_THROTTLE);
     }
 
     private final Alchema plugin;
@@ -109,10 +115,10 @@ public final class CommandAlchema implements TabExecutor {
             boolean verbose = args.length >= 2 && args[1].equalsIgnoreCase("verbose");
             boolean isPlayer = sender instanceof Player;
 
-            this.plugin.getRecipeRegistry().clearRecipes();
             this.plugin.reloadConfig();
             this.plugin.parseAndRegisterVialRecipe();
             this.plugin.refreshEntityBlacklists();
+            this.plugin.refreshRecipeDirectoryWatcher();
             CauldronUpdateHandler.get().markAsDirty();
 
             this.plugin.getRecipeRegistry().loadCauldronRecipes(plugin, plugin.getRecipesDirectory()).whenComplete((result, exception) -> {
@@ -127,6 +133,22 @@ public final class CommandAlchema implements TabExecutor {
                     : ".")
                         + " Took " + ChatColor.AQUA + result.getTimeToComplete() + "ms" + ChatColor.GRAY + ".");
 
+                sender.sendMessage(Alchema.CHAT_PREFIX + "Changes since the last load: " + ChatColor.GREEN + "+" + result.getAdded().size() + " " + ChatColor.YELLOW + "~" + result.getChanged().size() + " " + ChatColor.RED + "-" + result.getRemoved().size());
+
+                if (verbose) {
+                    result.getAdded().forEach(key -> sender.sendMessage(" " + ChatColor.GREEN + "+ " + ChatColor.WHITE + key));
+                    result.getChanged().forEach(key -> sender.sendMessage(" " + ChatColor.YELLOW + "~ " + ChatColor.WHITE + key));
+                    result.getRemoved().forEach(key -> sender.sendMessage(" " + ChatColor.RED + "- " + ChatColor.WHITE + key));
+
+                    if (!result.getLoadTimes().isEmpty()) {
+                        sender.sendMessage(Alchema.CHAT_PREFIX + "Slowest recipe files:");
+                        result.getLoadTimes().entrySet().stream()
+                            .sorted(Entry.<NamespacedKey, Long>comparingByValue().reversed())
+                            .limit(SLOWEST_RECIPE_COUNT)
+                            .forEach(entry -> sender.sendMessage(" - " + ChatColor.YELLOW + entry.getKey() + ": " + ChatColor.AQUA + formatMilliseconds(entry.getValue()) + "ms"));
+                    }
+                }
+
                 List<RecipeLoadFailureReport> failures = result.getFailures();
                 if (!failures.isEmpty()) {
                     String errorMessage = ChatColor.RED.toString() + ChatColor.BOLD + "(!) " + ChatColor.RED + "Failed to load " + ChatColor.YELLOW + "(" + failures.size() + ") " + ChatColor.RED + "recipes.";
@@ -253,6 +275,35 @@ public final class CommandAlchema implements TabExecutor {
             }
         }
 
+        else if (args[0].equalsIgnoreCase("throttle")) {
+            if (!sender.hasPermission(AlchemaConstants.PERMISSION_COMMAND_THROTTLE)) {
+                sender.sendMessage(Alchema.CHAT_PREFIX + "You have insufficient permissions to run this command.");
+                return true;
+            }
+
+            CauldronUpdateHandler updateHandler = CauldronUpdateHandler.get();
+            CauldronThrottleController throttleController = updateHandler.getThrottleController();
+
+            if (!throttleController.isEnabled()) {
+                sender.sendMessage(Alchema.CHAT_PREFIX + "Cauldron throttling is " + ChatColor.RED + "disabled" + ChatColor.GRAY + ".");
+            }
+            else if (throttleController.isThrottling()) {
+                sender.sendMessage(Alchema.CHAT_PREFIX + "Cauldrons are " + ChatColor.RED + "being throttled" + ChatColor.GRAY + " at level " + ChatColor.YELLOW + throttleController.getLevel() + "/" + throttleController.getMaxLevel() + ChatColor.GRAY + ".");
+            }
+            else {
+                sender.sendMessage(Alchema.CHAT_PREFIX + "Cauldrons are " + ChatColor.GREEN + "not being throttled" + ChatColor.GRAY + ".");
+            }
+
+            sender.sendMessage(" - " + ChatColor.GRAY + "Average tick time: " + ChatColor.AQUA + formatMilliseconds(throttleController.getAverageTickNanos()) + "ms" + ChatColor.GRAY + " (peak " + ChatColor.AQUA + formatMilliseconds(throttleController.getPeakTickNanos()) + "ms" + ChatColor.GRAY + ")");
+            sender.sendMessage(" - " + ChatColor.GRAY + "Tick budget: " + ChatColor.AQUA + formatMilliseconds(throttleController.getBudgetNanos()) + "ms");
+
+            CauldronConfigurationContext configuration = updateHandler.getEffectiveConfiguration();
+            if (configuration != null) {
+                sender.sendMessage(" - " + ChatColor.GRAY + "Item search interval: " + ChatColor.YELLOW + configuration.getItemSearchInterval() + " ticks");
+                sender.sendMessage(" - " + ChatColor.GRAY + "Particle density: " + ChatColor.YELLOW + String.format("%.0f%%", configuration.getParticleDensity() * 100));
+            }
+        }
+
         else {
             sender.sendMessage(Alchema.CHAT_PREFIX + "Unknown command argument, " + ChatColor.YELLOW + args[0] + ChatColor.GRAY + ".");
         }
@@ -325,6 +376,11 @@ public final class CommandAlchema implements TabExecutor {
         this.displayListOfIntegrations(sender, integrations, Function.identity(), isNative);
     }
 
+    @NotNull
+    private String formatMilliseconds(long nanoseconds) {
+        return String.format("%.3f", nanoseconds / 1_000_000.0);
+    }
+
     @NotNull
     private String generateListOfAuthors(@NotNull Plugin plugin) {
         Preconditions.checkArgument(plugin != null, "plugin must not be null");
@@ -1,7 +1,13 @@
 package wtf.choco.alchema.config;
 
+import com.google.common.base.Preconditions;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 import org.jetbrains.annotations.ApiStatus.NonExtendable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
 
 /**
  * Represents a collection of configurable values for alchemical cauldrons.
@@ -76,6 +82,63 @@ public interface CauldronConfigurationContext {
      */
     public float getSuccessfulCraftVolume();
 
+    /**
+     * Check whether or not cauldrons should be updated less frequently the further they are
+     * from the nearest player.
+     *
+     * @return true if level of detail is enabled, false if all cauldrons are updated every tick
+     */
+    public boolean isLevelOfDetailEnabled();
+
+    /**
+     * Get the interval (in ticks) at which a cauldron should be updated given the squared
+     * distance to the nearest player in its world. If level of detail is disabled, this will
+     * always return 1.
+     *
+     * @param distanceSquared the squared distance to the nearest player, or
+     * {@link Double#POSITIVE_INFINITY} if there are no players in the cauldron's world
+     *
+     * @return the update interval. Will always be {@literal >=} 1
+     *
+     * @see #isLevelOfDetailEnabled()
+     */
+    public int getUpdateInterval(double distanceSquared);
+
+    /**
+     * Get an unmodifiable view of the level of detail tiers where keys are the maximum distance
+     * (in blocks) to the nearest player and values are the update interval (in ticks) that applies
+     * within that distance. Tiers are sorted by ascending distance.
+     *
+     * @return the level of detail tiers
+     */
+    @NotNull
+    @UnmodifiableView
+    public SortedMap<@NotNull Integer, @NotNull Integer> getLevelOfDetailTiers();
+
+    /**
+     * Get the update interval (in ticks) of cauldrons that do not fall within any level of
+     * detail tier.
+     *
+     * @return the fallback update interval
+     */
+    public int getLevelOfDetailFallbackInterval();
+
+    /**
+     * Get the density of particles spawned by cauldrons where 1.0 is the default amount of
+     * particles and 0.0 spawns no particles at all.
+     *
+     * @return the particle density
+     */
+    public float getParticleDensity();
+
+    /**
+     * Check whether or not recipes should be matched against cauldron ingredients on a worker
+     * thread rather than the thread ticking the cauldron.
+     *
+     * @return true if recipes are matched asynchronously, false otherwise
+     */
+    public boolean isAsyncRecipeMatching();
+
     /**
      * Get a new builder instance to construct an instance of {@link CauldronConfigurationContext}.
      *
@@ -86,6 +149,37 @@ public interface CauldronConfigurationContext {
         return new CauldronConfigurationContextBuilder();
     }
 
+    /**
+     * Get a new builder instance to construct an instance of {@link CauldronConfigurationContext}
+     * with all values copied from the provided context.
+     *
+     * @param context the context whose values should be copied
+     *
+     * @return a context builder
+     */
+    @NotNull
+    public static CauldronConfigurationContextBuilder builder(@NotNull CauldronConfigurationContext context) {
+        Preconditions.checkArgument(context != null, "context must not be null");
+
+        CauldronConfigurationContextBuilder builder = new CauldronConfigurationContextBuilder()
+                .itemSearchInterval(context.getItemSearchInterval())
+                .millisecondsToHeatUp(context.getMillisecondsToHeatUp())
+                .enforcePlayerDroppedItems(context.shouldEnforcePlayerDroppedItems())
+                .damageEntities(context.shouldDamageEntities())
+                .minEssenceOnDeath(context.getMinEssenceOnDeath())
+                .maxEssenceOnDeath(context.getMaxEssenceOnDeath())
+                .ambientBubbleVolume(context.getAmbientBubbleVolume())
+                .itemSplashVolume(context.getItemSplashVolume())
+                .successfulCraftVolume(context.getSuccessfulCraftVolume())
+                .particleDensity(context.getParticleDensity())
+                .asyncRecipeMatching(context.isAsyncRecipeMatching())
+                .levelOfDetail(context.isLevelOfDetailEnabled())
+                .levelOfDetailFallbackInterval(context.getLevelOfDetailFallbackInterval());
+
+        context.getLevelOfDetailTiers().forEach(builder::levelOfDetailTier);
+        return builder;
+    }
+
 
     /**
      * A class to construct instances of {@link CauldronConfigurationContext}.
@@ -100,6 +194,13 @@ public interface CauldronConfigurationContext {
         private int minEssenceOnDeath = 50, maxEssenceOnDeath = 100;
 
         private float ambientBubbleVolume = 0.45F, itemSplashVolume = 1.0F, successfulCraftVolume = 0.5F;
+        private float particleDensity = 1.0F;
+
+        private boolean asyncRecipeMatching = false;
+
+        private boolean levelOfDetail = false;
+        private int levelOfDetailFallbackInterval = 20;
+        private final SortedMap<@NotNull Integer, @NotNull Integer> levelOfDetailTiers = new TreeMap<>();
 
         private CauldronConfigurationContextBuilder() { }
 
@@ -220,6 +321,93 @@ public interface CauldronConfigurationContext {
             return this;
         }
 
+        /**
+         * Set the particle density.
+         *
+         * @param particleDensity the value to set. Must be {@literal >=} 0.0
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronConfigurationContextBuilder particleDensity(float particleDensity) {
+            Preconditions.checkArgument(particleDensity >= 0.0F, "particleDensity must be >= 0.0");
+
+            this.particleDensity = particleDensity;
+            return this;
+        }
+
+        /**
+         * Set whether or not recipes should be matched asynchronously.
+         *
+         * @param asyncRecipeMatching the value to set
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronConfigurationContextBuilder asyncRecipeMatching(boolean asyncRecipeMatching) {
+            this.asyncRecipeMatching = asyncRecipeMatching;
+            return this;
+        }
+
+        /**
+         * Set whether or not level of detail is enabled.
+         *
+         * @param levelOfDetail the value to set
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronConfigurationContextBuilder levelOfDetail(boolean levelOfDetail) {
+            this.levelOfDetail = levelOfDetail;
+            return this;
+        }
+
+        /**
+         * Add a level of detail tier. Cauldrons whose nearest player is within the given
+         * distance (in blocks) will be updated at the given interval (in ticks) unless a
+         * closer tier applies.
+         *
+         * @param distance the maximum distance for this tier. Must be positive
+         * @param updateInterval the update interval for this tier. Must be {@literal >=} 1
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronConfigurationContextBuilder levelOfDetailTier(int distance, int updateInterval) {
+            Preconditions.checkArgument(distance > 0, "distance must be positive");
+            Preconditions.checkArgument(updateInterval >= 1, "updateInterval must be >= 1");
+
+            this.levelOfDetailTiers.put(distance, updateInterval);
+            return this;
+        }
+
+        /**
+         * Remove all level of detail tiers previously added to this builder.
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronConfigurationContextBuilder clearLevelOfDetailTiers() {
+            this.levelOfDetailTiers.clear();
+            return this;
+        }
+
+        /**
+         * Set the update interval for cauldrons that do not fall within any level of detail
+         * tier.
+         *
+         * @param levelOfDetailFallbackInterval the value to set. Must be {@literal >=} 1
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronConfigurationContextBuilder levelOfDetailFallbackInterval(int levelOfDetailFallbackInterval) {
+            Preconditions.checkArgument(levelOfDetailFallbackInterval >= 1, "levelOfDetailFallbackInterval must be >= 1");
+
+            this.levelOfDetailFallbackInterval = levelOfDetailFallbackInterval;
+            return this;
+        }
+
         /**
          * Build the {@link CauldronConfigurationContext}.
          *
@@ -236,7 +424,12 @@ public interface CauldronConfigurationContext {
                 maxEssenceOnDeath,
                 ambientBubbleVolume,
                 itemSplashVolume,
-                successfulCraftVolume
+                successfulCraftVolume,
+                particleDensity,
+                asyncRecipeMatching,
+                levelOfDetail,
+                levelOfDetailTiers,
+                levelOfDetailFallbackInterval
             );
         }
 
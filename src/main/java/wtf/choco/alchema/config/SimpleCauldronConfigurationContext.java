@@ -1,5 +1,12 @@
 package wtf.choco.alchema.config;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.jetbrains.annotations.NotNull;
+
 /**
  * A simple implementation of {@link CauldronConfigurationContext}.
  */
@@ -13,8 +20,16 @@ final class SimpleCauldronConfigurationContext implements CauldronConfigurationC
     private final int minEssenceOnDeath, maxEssenceOnDeath;
 
     private final float volumeAmbientBubble, volumeItemSplash, volumeSuccessfulCraft;
+    private final float particleDensity;
+    private final boolean asyncRecipeMatching;
 
-    SimpleCauldronConfigurationContext(int itemSearchInterval, int millisecondsToHeatUp, boolean enforcePlayerDroppedItems, boolean damageEntities, int minEssenceOnDeath, int maxEssenceOnDeath, float volumeAmbientBubble, float volumeItemSplash, float volumeSuccessfulCraft) {
+    private final boolean levelOfDetail;
+    private final SortedMap<@NotNull Integer, @NotNull Integer> levelOfDetailTiers;
+    private final double[] levelOfDetailDistancesSquared;
+    private final int[] levelOfDetailIntervals;
+    private final int levelOfDetailFallbackInterval;
+
+    SimpleCauldronConfigurationContext(int itemSearchInterval, int millisecondsToHeatUp, boolean enforcePlayerDroppedItems, boolean damageEntities, int minEssenceOnDeath, int maxEssenceOnDeath, float volumeAmbientBubble, float volumeItemSplash, float volumeSuccessfulCraft, float particleDensity, boolean asyncRecipeMatching, boolean levelOfDetail, @NotNull SortedMap<@NotNull Integer, @NotNull Integer> levelOfDetailTiers, int levelOfDetailFallbackInterval) {
         this.itemSearchInterval = itemSearchInterval;
         this.millisecondsToHeatUp = millisecondsToHeatUp;
         this.enforcePlayerDroppedItems = enforcePlayerDroppedItems;
@@ -24,6 +39,23 @@ final class SimpleCauldronConfigurationContext implements CauldronConfigurationC
         this.volumeAmbientBubble = volumeAmbientBubble;
         this.volumeItemSplash = volumeItemSplash;
         this.volumeSuccessfulCraft = volumeSuccessfulCraft;
+        this.particleDensity = particleDensity;
+        this.asyncRecipeMatching = asyncRecipeMatching;
+        this.levelOfDetail = levelOfDetail;
+        this.levelOfDetailTiers = Collections.unmodifiableSortedMap(new TreeMap<>(levelOfDetailTiers));
+        this.levelOfDetailFallbackInterval = levelOfDetailFallbackInterval;
+
+        // Tiers are sorted by distance so the first tier whose distance is not exceeded is the one that applies
+        this.levelOfDetailDistancesSquared = new double[levelOfDetailTiers.size()];
+        this.levelOfDetailIntervals = new int[levelOfDetailTiers.size()];
+
+        int index = 0;
+        for (Map.Entry<Integer, Integer> tier : levelOfDetailTiers.entrySet()) {
+            double distance = tier.getKey();
+
+            this.levelOfDetailDistancesSquared[index] = distance * distance;
+            this.levelOfDetailIntervals[index++] = tier.getValue();
+        }
     }
 
     @Override
@@ -71,4 +103,45 @@ final class SimpleCauldronConfigurationContext implements CauldronConfigurationC
         return volumeSuccessfulCraft;
     }
 
+    @Override
+    public boolean isLevelOfDetailEnabled() {
+        return levelOfDetail;
+    }
+
+    @Override
+    public int getUpdateInterval(double distanceSquared) {
+        if (!levelOfDetail) {
+            return 1;
+        }
+
+        for (int i = 0; i < levelOfDetailDistancesSquared.length; i++) {
+            if (distanceSquared <= levelOfDetailDistancesSquared[i]) {
+                return levelOfDetailIntervals[i];
+            }
+        }
+
+        return levelOfDetailFallbackInterval;
+    }
+
+    @NotNull
+    @Override
+    public SortedMap<@NotNull Integer, @NotNull Integer> getLevelOfDetailTiers() {
+        return levelOfDetailTiers;
+    }
+
+    @Override
+    public int getLevelOfDetailFallbackInterval() {
+        return levelOfDetailFallbackInterval;
+    }
+
+    @Override
+    public float getParticleDensity() {
+        return particleDensity;
+    }
+
+    @Override
+    public boolean isAsyncRecipeMatching() {
+        return asyncRecipeMatching;
+    }
+
 }
@@ -77,25 +77,36 @@ public class CauldronIngredientEntityEssence implements CauldronIngredient {
      * @param essenceEffectRegistry the effect registry
      */
     public CauldronIngredientEntityEssence(@NotNull JsonObject object, @NotNull EntityEssenceEffectRegistry essenceEffectRegistry) {
-        Preconditions.checkArgument(object != null, "object must not be null");
+        this(RecipeStreamParser.Fields.of(object), essenceEffectRegistry);
+    }
+
+    /**
+     * Construct a new {@link CauldronIngredientEntityEssence} deserialized from the
+     * provided {@link RecipeStreamParser.Fields}.
+     *
+     * @param fields the fields from which to deserialize
+     * @param essenceEffectRegistry the effect registry
+     */
+    CauldronIngredientEntityEssence(@NotNull RecipeStreamParser.Fields fields, @NotNull EntityEssenceEffectRegistry essenceEffectRegistry) {
         Preconditions.checkArgument(essenceEffectRegistry != null, "essenceEffectRegistry must not be null");
 
-        if (!object.has("entity")) {
+        String entity = fields.getString("entity");
+        if (entity == null) {
             throw new JsonParseException("object does not contain entity.");
         }
 
-        NamespacedKey entityKey = NamespacedKeyUtil.fromString(object.get("entity").getAsString(), null);
+        NamespacedKey entityKey = NamespacedKeyUtil.fromString(entity, null);
         if (entityKey == null) {
             throw new JsonParseException("entity has an invalid registry key");
         }
 
         this.entityType = Registry.ENTITY_TYPE.get(entityKey);
         if (entityType == null) {
-            throw new JsonParseException("Could not find entity type with id " + entityType);
+            throw new JsonParseException("Could not find entity type with id " + entityKey);
         }
 
         this.essenceEffectRegistry = essenceEffectRegistry;
-        this.amount = object.has("amount") ? object.get("amount").getAsInt() : 1;
+        this.amount = fields.getInt("amount", 1);
     }
 
     @NotNull
@@ -58,12 +58,23 @@ public class CauldronIngredientItemStack implements CauldronIngredient {
      * @param object the object from which to deserialize
      */
     public CauldronIngredientItemStack(@NotNull JsonObject object) {
-        if (!object.has("item_base64")) {
+        this(RecipeStreamParser.Fields.of(object));
+    }
+
+    /**
+     * Construct a new {@link CauldronIngredientItemStack} deserialized from the
+     * provided {@link RecipeStreamParser.Fields}.
+     *
+     * @param fields the fields from which to deserialize
+     */
+    CauldronIngredientItemStack(@NotNull RecipeStreamParser.Fields fields) {
+        String itemBase64 = fields.getString("item_base64");
+        if (itemBase64 == null) {
             throw new JsonParseException("object does not contain item_base64.");
         }
 
-        this.item = ItemUtil.deserialize(Base64.getDecoder().decode(object.get("item_base64").getAsString()));
-        this.item.setAmount(object.has("amount") ? Math.max(object.get("amount").getAsInt(), 1) : 1);
+        this.item = ItemUtil.deserialize(Base64.getDecoder().decode(itemBase64));
+        this.item.setAmount(Math.max(fields.getInt("amount", 1), 1));
     }
 
     @NotNull
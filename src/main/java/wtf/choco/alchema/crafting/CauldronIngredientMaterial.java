@@ -59,17 +59,26 @@ public class CauldronIngredientMaterial implements CauldronIngredient {
      * @param object the object from which to deserialize
      */
     public CauldronIngredientMaterial(@NotNull JsonObject object) {
-        Preconditions.checkArgument(object != null, "object must not be null");
+        this(RecipeStreamParser.Fields.of(object));
+    }
 
-        if (!object.has("item")) {
+    /**
+     * Construct a new {@link CauldronIngredientMaterial} deserialized from the
+     * provided {@link RecipeStreamParser.Fields}.
+     *
+     * @param fields the fields from which to deserialize
+     */
+    CauldronIngredientMaterial(@NotNull RecipeStreamParser.Fields fields) {
+        String item = fields.getString("item");
+        if (item == null) {
             throw new JsonParseException("object does not contain item.");
         }
 
-        this.material = Material.matchMaterial(object.get("item").getAsString());
-        this.amount = object.has("amount") ? object.get("amount").getAsInt() : 1;
+        this.material = Material.matchMaterial(item);
+        this.amount = fields.getInt("amount", 1);
 
         if (material == null) {
-            throw new JsonParseException("Could not find material with id " + object.get("item").getAsString());
+            throw new JsonParseException("Could not find material with id " + item);
         }
     }
 
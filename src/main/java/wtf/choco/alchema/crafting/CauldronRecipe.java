@@ -1,11 +1,11 @@
 package wtf.choco.alchema.crafting;
 
 import com.google.common.base.Preconditions;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.internal.bind.JsonTreeReader;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -20,9 +20,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
-import wtf.choco.alchema.Alchema;
 import wtf.choco.alchema.cauldron.AlchemicalCauldron;
-import wtf.choco.commons.util.NamespacedKeyUtil;
 
 /**
  * Represents a recipe that may be crafted in an {@link AlchemicalCauldron}.
@@ -100,6 +98,18 @@ public interface CauldronRecipe {
      */
     public int getExperience();
 
+    /**
+     * Get the time (in ticks) for which this recipe must brew in a cauldron before its result
+     * is crafted. A brew time of 0 will craft the result as soon as the ingredients match.
+     * <p>
+     * Recipes do not brew by default.
+     *
+     * @return the brew time in ticks. Will always be {@literal >=} 0
+     */
+    public default int getBrewTime() {
+        return 0;
+    }
+
     /**
      * Check whether this recipe contains the specified ingredient. Quantity is not
      * accounted for in this check.
@@ -177,71 +187,20 @@ public interface CauldronRecipe {
      * @param recipeRegistry the recipe registry
      *
      * @return the cauldron recipe
+     *
+     * @throws JsonParseException if the recipe is malformed
      */
     @NotNull
     public static CauldronRecipe fromJson(@NotNull NamespacedKey key, @NotNull JsonObject object, @NotNull CauldronRecipeRegistry recipeRegistry) {
         Preconditions.checkArgument(key != null, "key cannot be null");
         Preconditions.checkArgument(object != null, "object cannot be null");
 
-        if (!object.has("result")) {
-            throw new JsonParseException("Missing result object");
-        }
-
-        if (!object.has("ingredients") || !object.get("ingredients").isJsonArray()) {
-            throw new JsonParseException("Missing ingredients array");
+        try (JsonTreeReader reader = new JsonTreeReader(object)) {
+            return RecipeStreamParser.parse(key, reader, recipeRegistry);
+        } catch (IOException e) {
+            // Trees are held in memory. This is never thrown
+            throw new JsonParseException(e);
         }
-
-        // Parse the result
-        JsonObject resultObject = object.getAsJsonObject("result");
-        NamespacedKey resultTypeKey = (resultObject.has("type") ? NamespacedKeyUtil.fromString(resultObject.get("type").getAsString(), Alchema.getInstance()) : CauldronRecipeResultItemStack.KEY);
-        if (resultTypeKey == null) {
-            throw new JsonParseException("Invalid namespaced key \"" + resultObject.get("type").getAsString() + "\". Expected format is \"alchema:example\"");
-        }
-
-        CauldronRecipeResult result = recipeRegistry.parseResultType(resultTypeKey, resultObject);
-
-        if (result == null) {
-            throw new JsonParseException("Could not find result type with id \"" + resultTypeKey + "\"");
-        }
-
-        // Parse ingredients
-        JsonArray ingredientsArray = object.getAsJsonArray("ingredients");
-        if (ingredientsArray.size() < 2) {
-            throw new JsonParseException("ingredients array must contain at least two ingredients");
-        }
-
-        List<@NotNull CauldronIngredient> ingredients = new ArrayList<>(ingredientsArray.size());
-
-        for (int i = 0; i < ingredientsArray.size(); i++) {
-            JsonElement ingredientElement = ingredientsArray.get(i);
-            if (!ingredientElement.isJsonObject()) {
-                throw new JsonParseException("ingredient at index " + i + " was a " + ingredientElement.getClass().getSimpleName() + ". Expected object");
-            }
-
-            JsonObject ingredientObject = ingredientElement.getAsJsonObject();
-            if (!ingredientObject.has("type")) {
-                throw new JsonParseException("ingredient at index " + i + " does not have an ingredient type");
-            }
-
-            NamespacedKey typeKey = NamespacedKeyUtil.fromString(ingredientObject.get("type").getAsString(), Alchema.getInstance());
-            if (typeKey == null) {
-                throw new JsonParseException("Invalid namespaced key \"" + typeKey + "\". Expected format is \"alchema:example\"");
-            }
-
-            CauldronIngredient ingredient = recipeRegistry.parseIngredientType(typeKey, ingredientObject);
-            if (ingredient == null) {
-                throw new JsonParseException("Could not find ingredient type with id \"" + typeKey + "\"");
-            }
-
-            ingredients.add(ingredient);
-        }
-
-        int experience = object.has("experience") ? object.get("experience").getAsInt() : 0;
-        String name = object.has("name") ? object.get("name").getAsString() : null;
-        String description = object.has("description") ? object.get("description").getAsString() : null;
-        String comment = object.has("comment") ? object.get("comment").getAsString() : null;
-
-        return new SimpleCauldronRecipe(key, result, name, description, comment, experience, ingredients);
     }
 
     /**
@@ -251,6 +210,7 @@ public interface CauldronRecipe {
 
         private String name = null, description = null, comment = null;
         private int experience = 0;
+        private int brewTime = 0;
 
         private final List<@NotNull CauldronIngredient> ingredients = new ArrayList<>();
 
@@ -375,6 +335,22 @@ public interface CauldronRecipe {
             return this;
         }
 
+        /**
+         * Set the time (in ticks) for which this recipe must brew in a cauldron before its
+         * result is crafted.
+         *
+         * @param brewTime the brew time to set. Must be positive or 0
+         *
+         * @return this instance. Allows for chained method calls
+         */
+        @NotNull
+        public CauldronRecipe.Builder brewTime(int brewTime) {
+            Preconditions.checkArgument(brewTime >= 0, "brewTime must be positive or 0");
+
+            this.brewTime = brewTime;
+            return this;
+        }
+
         /**
          * Build a new {@link CauldronRecipe} instance.
          *
@@ -382,7 +358,7 @@ public interface CauldronRecipe {
          */
         @NotNull
         public CauldronRecipe build() {
-            return new SimpleCauldronRecipe(key, result, name, description, comment, experience, ingredients);
+            return new SimpleCauldronRecipe(key, result, name, description, comment, experience, brewTime, ingredients);
         }
 
     }
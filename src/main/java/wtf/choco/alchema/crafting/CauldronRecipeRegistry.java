@@ -1,24 +1,47 @@
 package wtf.choco.alchema.crafting;
 
 import com.google.common.base.Preconditions;
-import com.google.common.io.Files;
-import com.google.gson.Gson;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
@@ -34,25 +57,52 @@ import org.jetbrains.annotations.UnmodifiableView;
 import wtf.choco.alchema.Alchema;
 import wtf.choco.alchema.api.event.CauldronRecipeRegisterEvent;
 import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+import wtf.choco.alchema.essence.EntityEssenceEffectRegistry;
 import wtf.choco.alchema.util.AlchemaConstants;
 import wtf.choco.alchema.util.AlchemaEventFactory;
 import wtf.choco.commons.util.NamespacedKeyUtil;
 
 /**
  * Represents a registry in which recipes and recipe types may be registered.
+ * <p>
+ * Registered recipes are held in an immutable snapshot which is replaced in its entirety
+ * whenever recipes are registered or unregistered. Reads are therefore lock-free and always
+ * see a consistent set of recipes, even while recipes are being loaded on another thread.
+ * Recipes registered while {@link #loadCauldronRecipes(Alchema, File)} is in progress are
+ * staged and published together with the loaded recipes once loading has completed.
  *
  * @author Parker Hawke - Choco
  */
 public class CauldronRecipeRegistry {
 
-    private static final Gson GSON = new Gson();
+    private static final HashFunction RECIPE_HASH_FUNCTION = Hashing.sha256();
+    private static final int MAX_LOADER_THREADS = 4;
+    private static final String RECIPE_CACHE_FILE_NAME = "recipes.cache";
+    private static final String RECIPE_PACK_SEPARATOR = "!/";
 
     private boolean acceptingRegistrations = true;
 
-    private final Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> recipes = new HashMap<>();
+    private final AtomicReference<@NotNull RecipeSnapshot> snapshot = new AtomicReference<>(new RecipeSnapshot(Collections.emptyMap(), 0));
+    private volatile Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> stagedRecipes;
+
+    private volatile RecipeManifest recipeManifest = new RecipeManifest();
+
+    // Recipe cache writes run one at a time in submission order such that an older manifest never overwrites a newer one. Its thread exits when idle
+    private final ExecutorService recipeCacheWriter = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("Alchema Recipe Cache Writer").setDaemon(true).build());
+
+    // Recipe file changes detected while a full load is staging recipes, merged into it before it publishes. Only accessed on the main thread
+    private final List<@NotNull RecipeFileChanges> deferredRecipeFileChanges = new ArrayList<>();
+
+    // Crafting permissions registered for recipes, keyed by recipe. Only accessed on the main thread
+    private final Map<@NotNull NamespacedKey, @NotNull String> craftingPermissions = new HashMap<>();
+
     private final Map<@NotNull NamespacedKey, Function<@NotNull JsonObject, @NotNull ? extends CauldronIngredient>> ingredientTypes = new HashMap<>();
     private final Map<@NotNull NamespacedKey, Function<@NotNull JsonObject, @NotNull ? extends CauldronRecipeResult>> resultTypes = new HashMap<>();
 
+    // Streaming readers for built-in types. Types without a reader are parsed from a tree by their provider instead
+    private final Map<@NotNull NamespacedKey, Function<RecipeStreamParser.Fields, @NotNull ? extends CauldronIngredient>> ingredientReaders = new HashMap<>();
+    private final Map<@NotNull NamespacedKey, Function<RecipeStreamParser.Fields, @NotNull ? extends CauldronRecipeResult>> resultReaders = new HashMap<>();
+
     /**
      * Register a {@link CauldronRecipe} to be used by any {@link AlchemicalCauldron}.
      *
@@ -60,7 +110,18 @@ public class CauldronRecipeRegistry {
      */
     public void registerCauldronRecipe(@NotNull CauldronRecipe recipe) {
         Preconditions.checkNotNull(recipe, "Cannot register null recipe");
-        this.recipes.put(recipe.getKey(), recipe);
+
+        synchronized (snapshot) {
+            Map<NamespacedKey, CauldronRecipe> stagedRecipes = this.stagedRecipes;
+            if (stagedRecipes != null) {
+                stagedRecipes.put(recipe.getKey(), recipe);
+                return;
+            }
+
+            Map<NamespacedKey, CauldronRecipe> recipes = new HashMap<>(snapshot.get().recipes);
+            recipes.put(recipe.getKey(), recipe);
+            this.publish(recipes);
+        }
     }
 
     /**
@@ -70,7 +131,7 @@ public class CauldronRecipeRegistry {
      * @param recipe the recipe to unregister
      */
     public void unregisterCauldronRecipe(@NotNull CauldronRecipe recipe) {
-        this.recipes.remove(recipe.getKey());
+        this.unregisterCauldronRecipe(recipe.getKey());
     }
 
     /**
@@ -83,7 +144,35 @@ public class CauldronRecipeRegistry {
      */
     @Nullable
     public CauldronRecipe unregisterCauldronRecipe(@NotNull NamespacedKey key) {
-        return recipes.remove(key);
+        synchronized (snapshot) {
+            Map<NamespacedKey, CauldronRecipe> stagedRecipes = this.stagedRecipes;
+            if (stagedRecipes != null) {
+                CauldronRecipe stagedRecipe = stagedRecipes.remove(key);
+                if (stagedRecipe != null) {
+                    return stagedRecipe;
+                }
+            }
+
+            Map<NamespacedKey, CauldronRecipe> recipes = new HashMap<>(snapshot.get().recipes);
+            CauldronRecipe recipe = recipes.remove(key);
+            if (recipe != null) {
+                this.publish(recipes);
+            }
+
+            return recipe;
+        }
+    }
+
+    /**
+     * Get the generation of this registry. The generation is incremented every time a new set
+     * of recipes is published (i.e. when a recipe is registered or unregistered, or when a load
+     * has completed) such that any results computed from this registry's recipes may be
+     * invalidated if the generation has changed since they were computed.
+     *
+     * @return the registry generation
+     */
+    public long getGeneration() {
+        return snapshot.get().generation;
     }
 
     /**
@@ -95,7 +184,7 @@ public class CauldronRecipeRegistry {
      */
     @Nullable
     public CauldronRecipe getCauldronRecipe(@NotNull NamespacedKey key) {
-        return recipes.get(key);
+        return snapshot.get().recipes.get(key);
     }
 
     /**
@@ -115,7 +204,7 @@ public class CauldronRecipeRegistry {
     public CauldronRecipe getApplicableRecipe(@NotNull List<@NotNull CauldronIngredient> ingredients, boolean mostComplex) {
         CauldronRecipe result = null;
 
-        for (CauldronRecipe recipe : recipes.values()) {
+        for (CauldronRecipe recipe : snapshot.get().recipes.values()) {
             if (recipe.getYieldFromIngredients(ingredients) == 0) {
                 continue;
             }
@@ -163,7 +252,7 @@ public class CauldronRecipeRegistry {
     public List<@NotNull CauldronRecipe> getApplicableRecipes(@NotNull List<@NotNull CauldronIngredient> ingredients) {
         List<CauldronRecipe> applicable = new ArrayList<>();
 
-        this.recipes.values().forEach(recipe -> {
+        this.snapshot.get().recipes.values().forEach(recipe -> {
             if (recipe.getYieldFromIngredients(ingredients) == 0) {
                 return;
             }
@@ -176,22 +265,35 @@ public class CauldronRecipeRegistry {
     }
 
     /**
-     * Get a collection of all registered recipes. Changes made to the returned collection will be
-     * reflected internally to this instance.
+     * Get a collection of all registered recipes. The returned collection is a consistent view of
+     * the recipes registered at the time this method was invoked and will not reflect any changes
+     * made to this registry afterwards.
      *
      * @return the collection of registered recipes
      */
     @NotNull
     @UnmodifiableView
     public Collection<@NotNull CauldronRecipe> getRecipes() {
-        return Collections.unmodifiableCollection(recipes.values());
+        return Collections.unmodifiableCollection(snapshot.get().recipes.values());
     }
 
     /**
      * Clear all recipes in the manager.
      */
     public void clearRecipes() {
-        this.recipes.clear();
+        synchronized (snapshot) {
+            Map<NamespacedKey, CauldronRecipe> stagedRecipes = this.stagedRecipes;
+            if (stagedRecipes != null) {
+                stagedRecipes.clear();
+            }
+
+            this.publish(Collections.emptyMap());
+        }
+    }
+
+    // Must be called while synchronized on the snapshot
+    private void publish(@NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> recipes) {
+        this.snapshot.set(new RecipeSnapshot(recipes, snapshot.get().generation + 1));
     }
 
     /**
@@ -226,6 +328,7 @@ public class CauldronRecipeRegistry {
         }
 
         this.ingredientTypes.put(key, ingredientProvider);
+        this.ingredientReaders.remove(key); // The provider may have replaced a built-in type
     }
 
     /**
@@ -266,6 +369,7 @@ public class CauldronRecipeRegistry {
      */
     public void clearIngredientTypes() {
         this.ingredientTypes.clear();
+        this.ingredientReaders.clear();
     }
 
     /**
@@ -288,6 +392,7 @@ public class CauldronRecipeRegistry {
         }
 
         this.resultTypes.put(key, resultProvider);
+        this.resultReaders.remove(key); // The provider may have replaced a built-in type
     }
 
     /**
@@ -328,12 +433,74 @@ public class CauldronRecipeRegistry {
      */
     public void clearResultTypes() {
         this.resultTypes.clear();
+        this.resultReaders.clear();
+    }
+
+    /**
+     * Register the streaming readers for Alchema's built-in ingredient and result types. These
+     * readers parse built-in types directly while recipe files are being read rather than from
+     * a {@link JsonObject} tree. Must be called after the built-in types have been registered.
+     *
+     * @param essenceEffectRegistry the entity essence effect registry
+     */
+    @Internal
+    public void registerDefaultReaders(@NotNull EntityEssenceEffectRegistry essenceEffectRegistry) {
+        Preconditions.checkArgument(essenceEffectRegistry != null, "essenceEffectRegistry must not be null");
+
+        this.ingredientReaders.put(CauldronIngredientItemStack.KEY, CauldronIngredientItemStack::new);
+        this.ingredientReaders.put(CauldronIngredientMaterial.KEY, CauldronIngredientMaterial::new);
+        this.ingredientReaders.put(CauldronIngredientEntityEssence.KEY, fields -> new CauldronIngredientEntityEssence(fields, essenceEffectRegistry));
+
+        this.resultReaders.put(CauldronRecipeResultItemStack.KEY, CauldronRecipeResultItemStack::new);
+    }
+
+    /**
+     * Read a {@link CauldronIngredient} with the ingredient type matching the provided
+     * {@link NamespacedKey} from streamed fields, falling back to the type's tree provider if
+     * it has no streaming reader.
+     *
+     * @param key the key of the ingredient type to read
+     * @param fields the fields from which to read the ingredient
+     *
+     * @return the read ingredient. null if invalid
+     */
+    @Nullable
+    CauldronIngredient readIngredientType(@NotNull NamespacedKey key, @NotNull RecipeStreamParser.Fields fields) {
+        Function<RecipeStreamParser.Fields, @NotNull ? extends CauldronIngredient> ingredientReader = ingredientReaders.get(key);
+        return (ingredientReader != null) ? ingredientReader.apply(fields) : parseIngredientType(key, fields.toJsonObject());
+    }
+
+    /**
+     * Read a {@link CauldronRecipeResult} with the result type matching the provided
+     * {@link NamespacedKey} from streamed fields, falling back to the type's tree provider if
+     * it has no streaming reader.
+     *
+     * @param key the key of the result type to read
+     * @param fields the fields from which to read the result
+     *
+     * @return the read result. null if invalid
+     */
+    @Nullable
+    CauldronRecipeResult readResultType(@NotNull NamespacedKey key, @NotNull RecipeStreamParser.Fields fields) {
+        Function<RecipeStreamParser.Fields, @NotNull ? extends CauldronRecipeResult> resultReader = resultReaders.get(key);
+        return (resultReader != null) ? resultReader.apply(fields) : parseResultType(key, fields.toJsonObject());
     }
 
     /**
      * Asynchronously load all cauldron recipes from Alchema's file system, as well as any
      * recipes from third-party plugins listening to the {@link CauldronRecipeRegisterEvent}.
      * The returned {@link CompletableFuture} instance provides the load result.
+     * <p>
+     * Recipe files that have not changed since the previous load (as determined by their
+     * modification time, size and content hash) are not parsed again. The recipes parsed from
+     * them during the previous load are reused instead. On the first load, the previous load
+     * is restored from a recipe cache written to the plugin's data folder by the last run, if
+     * it is still valid for the current plugin version and registered ingredient and result
+     * types.
+     * <p>
+     * In addition to loose recipe files, the recipes directory may contain {@code .zip} recipe
+     * packs. Recipe files within a pack are read directly from the archive and keyed by their
+     * path within it just as though the archive had been extracted into the recipes directory.
      *
      * @param plugin the instance of Alchema (for logging purposes)
      * @param recipesDirectory the directory from which to load recipes
@@ -344,7 +511,36 @@ public class CauldronRecipeRegistry {
     public CompletableFuture<@NotNull RecipeLoadResult> loadCauldronRecipes(@NotNull Alchema plugin, @NotNull File recipesDirectory) {
         long now = System.currentTimeMillis();
 
-        return CompletableFuture.supplyAsync(() -> loadCauldronRecipesFromDirectory(plugin, new StandardRecipeLoadResult(), recipesDirectory, recipesDirectory))
+        // Recipes are loaded into a fresh staging map. The currently published recipes remain visible until the load completes
+        Map<NamespacedKey, CauldronRecipe> stagedRecipes = new ConcurrentHashMap<>();
+        synchronized (snapshot) {
+            this.stagedRecipes = stagedRecipes;
+        }
+
+        RecipeManifest currentManifest = recipeManifest, manifest = new RecipeManifest();
+        HashCode cacheFingerprint = getRecipeCacheFingerprint(plugin);
+
+        return CompletableFuture.supplyAsync(() -> {
+            // Cached and changed recipe files are both parsed on the same bounded pool
+            ExecutorService executor = newRecipeLoaderPool();
+
+            try {
+                // On the first load, the previous manifest is restored from the recipe cache written by the last run
+                RecipeManifest previousManifest = currentManifest.isEmpty() ? readRecipeCache(plugin, cacheFingerprint, executor) : currentManifest;
+                StandardRecipeLoadResult result = loadCauldronRecipesFromDirectory(plugin, stagedRecipes, previousManifest, manifest, recipesDirectory, executor);
+
+                // Any file recorded by the previous load that was not recorded by this one has been removed (or can no longer be loaded)
+                previousManifest.getPaths().forEach(path -> {
+                    if (manifest.get(path) == null) {
+                        result.addRemoved(previousManifest.get(path).getKey());
+                    }
+                });
+
+                return result;
+            } finally {
+                executor.shutdownNow();
+            }
+        })
             .thenCompose(result -> {
                 CompletableFuture<RecipeLoadResult> registryEventFuture = new CompletableFuture<>();
 
@@ -355,11 +551,19 @@ public class CauldronRecipeRegistry {
                  * runTask() is run on the next server tick which is done post-plugin enable.
                  */
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    AlchemaEventFactory.callCauldronRecipeRegisterEvent(this);
+                    try {
+                        AlchemaEventFactory.callCauldronRecipeRegisterEvent(this);
+                    } finally {
+                        this.mergeDeferredRecipeFileChanges(stagedRecipes, manifest);
+                        this.publishStagedRecipes(stagedRecipes);
+                        this.recipeManifest = manifest;
+                    }
+
+                    this.recipeCacheWriter.execute(() -> writeRecipeCache(plugin, manifest, cacheFingerprint));
 
                     long timeToComplete = System.currentTimeMillis() - now;
 
-                    result.setThirdParty(getRecipes().size() - result.getNative());
+                    result.setThirdParty(stagedRecipes.size() - result.getNative());
                     result.setTimeToComplete(timeToComplete);
 
                     registryEventFuture.complete(result);
@@ -368,78 +572,534 @@ public class CauldronRecipeRegistry {
                 return registryEventFuture;
             })
 
-            // Once all recipes have been registered, create and register permissions for them all
+            // Once all recipes have been registered, create and register permissions for those that were added (and remove those of recipes that were removed)
             .whenComplete((result, e) -> {
-                PluginManager pluginManager = Bukkit.getPluginManager();
-                Permission craftPermission = pluginManager.getPermission(AlchemaConstants.PERMISSION_CRAFT);
-                if (craftPermission == null) {
+                if (e != null) {
+                    this.abandonStagedRecipes(stagedRecipes);
+                    Bukkit.getScheduler().runTask(plugin, () -> applyDeferredRecipeFileChanges(plugin));
                     return;
                 }
 
-                boolean changed = false;
+                this.updateCraftingPermissions(plugin);
+            });
+    }
 
-                for (CauldronRecipe recipe : recipes.values()) {
-                    Permission permission = new Permission(recipe.getCraftingPermission(), "Allows a player to craft the " + recipe.getKey() + " recipe.", PermissionDefault.TRUE);
+    private void publishStagedRecipes(@NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> stagedRecipes) {
+        synchronized (snapshot) {
+            this.publish(stagedRecipes);
 
-                    // Add the permission to the plugin manager
-                    pluginManager.removePermission(permission);
-                    pluginManager.addPermission(permission);
+            if (this.stagedRecipes == stagedRecipes) {
+                this.stagedRecipes = null;
+            }
+        }
+    }
 
-                    // Declare it as a child permission of "alchema.craft"
-                    craftPermission.getChildren().put(recipe.getCraftingPermission(), true);
-                    changed = true;
-                }
+    private void abandonStagedRecipes(@NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> stagedRecipes) {
+        synchronized (snapshot) {
+            if (this.stagedRecipes == stagedRecipes) {
+                this.stagedRecipes = null;
+            }
+        }
+    }
+
+    // Diffs the published recipes against the crafting permissions registered for them such that only permissions of added or removed recipes are touched
+    private void updateCraftingPermissions(@NotNull Alchema plugin) {
+        PluginManager pluginManager = Bukkit.getPluginManager();
+        Permission craftPermission = pluginManager.getPermission(AlchemaConstants.PERMISSION_CRAFT);
+        if (craftPermission == null) {
+            return;
+        }
+
+        Map<NamespacedKey, CauldronRecipe> recipes = snapshot.get().recipes;
+        Map<String, Boolean> children = craftPermission.getChildren();
+        boolean changed = false;
+
+        Iterator<Map.Entry<NamespacedKey, String>> iterator = craftingPermissions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<NamespacedKey, String> entry = iterator.next();
+            CauldronRecipe recipe = recipes.get(entry.getKey());
+            if (recipe != null && recipe.getCraftingPermission().equals(entry.getValue())) {
+                continue;
+            }
+
+            pluginManager.removePermission(entry.getValue());
+            children.remove(entry.getValue());
+            iterator.remove();
+            changed = true;
+        }
 
-                if (changed) {
-                    craftPermission.recalculatePermissibles();
+        for (CauldronRecipe recipe : recipes.values()) {
+            if (craftingPermissions.containsKey(recipe.getKey())) {
+                continue;
+            }
+
+            Permission permission = new Permission(recipe.getCraftingPermission(), "Allows a player to craft the " + recipe.getKey() + " recipe.", PermissionDefault.TRUE);
+
+            // Add the permission to the plugin manager
+            pluginManager.removePermission(permission);
+            pluginManager.addPermission(permission);
+
+            // Declare it as a child permission of "alchema.craft"
+            children.put(permission.getName(), true);
+            this.craftingPermissions.put(recipe.getKey(), permission.getName());
+            changed = true;
+        }
+
+        // Recalculation is expensive with many players online and is avoided entirely if no recipe was added or removed
+        if (changed) {
+            craftPermission.recalculatePermissibles();
+            plugin.getCauldronPlayerCache().invalidatePermissions();
+        }
+    }
+
+    /**
+     * Reload the recipe files at the given paths. Paths to files that no longer exist will have
+     * their recipes unregistered, and paths to directories and recipe packs will have all of
+     * their recipe files reconciled. Files are read and parsed on the calling thread and the resulting registrations
+     * and unregistrations are applied on the main thread.
+     *
+     * @param plugin the instance of Alchema
+     * @param recipesDirectory the directory from which recipes are loaded
+     * @param paths the paths of the files or directories that have changed
+     */
+    @Internal
+    void reloadRecipeFiles(@NotNull Alchema plugin, @NotNull File recipesDirectory, @NotNull Collection<@NotNull Path> paths) {
+        Path root = recipesDirectory.toPath();
+        RecipeManifest manifest = recipeManifest;
+
+        Map<String, RecipeManifest.Entry> updated = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+
+        for (Path path : paths) {
+            String relativePath = root.relativize(path).toString().replace('\\', '/');
+
+            if (Files.isDirectory(path)) {
+                // Anything recorded beneath the directory that no longer exists has been removed. Recipe packs are reconciled below
+                String prefix = relativePath.isEmpty() ? "" : relativePath + "/";
+                manifest.getPaths().stream().filter(recordedPath -> recordedPath.startsWith(prefix) && !recordedPath.contains(RECIPE_PACK_SEPARATOR) && !Files.exists(root.resolve(recordedPath))).forEach(removed::add);
+                manifest.getPaths().stream().filter(recordedPath -> recordedPath.startsWith(prefix) && recordedPath.contains(RECIPE_PACK_SEPARATOR))
+                    .map(recordedPath -> recordedPath.substring(0, recordedPath.indexOf(RECIPE_PACK_SEPARATOR)))
+                    .filter(packPath -> !Files.exists(root.resolve(packPath)))
+                    .forEach(removed::add);
+
+                try (Stream<Path> files = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        String filePath = root.relativize(file).toString().replace('\\', '/');
+
+                        if (filePath.endsWith(".json")) {
+                            this.reloadRecipeFile(plugin, filePath, file, manifest, updated);
+                        } else if (filePath.endsWith(".zip")) {
+                            this.reloadRecipePack(plugin, filePath, file, manifest, updated, removed);
+                        }
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    plugin.getLogger().warning("Could not reload recipes in " + relativePath + ". Reason: " + e.getMessage());
                 }
-            });
+            } else if (!Files.exists(path)) {
+                removed.add(relativePath);
+            } else if (relativePath.endsWith(".json")) {
+                this.reloadRecipeFile(plugin, relativePath, path, manifest, updated);
+            } else if (relativePath.endsWith(".zip")) {
+                this.reloadRecipePack(plugin, relativePath, path, manifest, updated, removed);
+            }
+        }
+
+        if (updated.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, () -> applyRecipeFileChanges(plugin, updated, removed));
+    }
+
+    private void reloadRecipePack(@NotNull Alchema plugin, @NotNull String packPath, @NotNull Path file, @NotNull RecipeManifest manifest, @NotNull Map<@NotNull String, RecipeManifest.Entry> updated, @NotNull Set<@NotNull String> removed) {
+        String prefix = packPath + RECIPE_PACK_SEPARATOR;
+        Map<String, Path> recipeFiles = new LinkedHashMap<>();
+
+        // A pack that cannot be opened may still be being written. It will be reloaded again once it has been modified
+        try (FileSystem recipePack = FileSystems.newFileSystem(file)) {
+            this.collectRecipeFiles(plugin, recipePack.getPath("/"), prefix, recipeFiles, null);
+            recipeFiles.forEach((path, recipeFile) -> reloadRecipeFile(plugin, path, recipeFile, manifest, updated));
+        } catch (IOException | UncheckedIOException e) {
+            plugin.getLogger().warning("Could not reload recipe pack " + packPath + ". Reason: " + e.getMessage());
+            return;
+        }
+
+        manifest.getPaths().stream().filter(recordedPath -> recordedPath.startsWith(prefix) && !recipeFiles.containsKey(recordedPath)).forEach(removed::add);
     }
 
-    private StandardRecipeLoadResult loadCauldronRecipesFromDirectory(@NotNull Alchema plugin, @NotNull StandardRecipeLoadResult result, @NotNull File recipesDirectory, File subdirectory) throws JsonSyntaxException {
-        for (File recipeFile : subdirectory.listFiles(file -> file.isDirectory() || file.getName().endsWith(".json"))) {
-            if (recipeFile.isDirectory()) {
-                this.loadCauldronRecipesFromDirectory(plugin, result, recipesDirectory, recipeFile);
+    private void reloadRecipeFile(@NotNull Alchema plugin, @NotNull String path, @NotNull Path file, @NotNull RecipeManifest manifest, @NotNull Map<@NotNull String, RecipeManifest.Entry> updated) {
+        String recipeKey = getRecipeKey(path);
+
+        if (!NamespacedKeyUtil.isValidKey(recipeKey)) {
+            plugin.getLogger().warning("Invalid recipe file name, \"" + file.getFileName() + "\". Must be alphanumerical, lowercased and separated by underscores.");
+            return;
+        }
+
+        NamespacedKey key = new NamespacedKey(plugin, recipeKey);
+        RecipeManifest.Entry previousEntry = manifest.get(path);
+
+        try {
+            RecipeManifest.Entry entry = readRecipeFile(key, file, previousEntry);
+            if (previousEntry == null || entry.getRecipe() != previousEntry.getRecipe()) {
+                updated.put(path, entry);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to load recipe " + key + ". Reason: " + e.getLocalizedMessage());
+        }
+    }
+
+    private void applyRecipeFileChanges(@NotNull Alchema plugin, @NotNull Map<@NotNull String, RecipeManifest.Entry> updated, @NotNull Set<@NotNull String> removedPaths) {
+        // Publishing now would be undone once a full load in flight publishes its staged recipes
+        if (stagedRecipes != null) {
+            this.deferredRecipeFileChanges.add(new RecipeFileChanges(updated, removedPaths));
+            return;
+        }
+
+        RecipeManifest manifest = new RecipeManifest(recipeManifest);
+        List<CauldronRecipe> registered = new ArrayList<>(), unregistered = new ArrayList<>();
+        mergeRecipeFileChanges(manifest, updated, removedPaths, registered, unregistered);
+
+        this.updateRecipes(registered, unregistered);
+        this.recipeManifest = manifest;
+        this.updateCraftingPermissions(plugin);
+
+        HashCode cacheFingerprint = getRecipeCacheFingerprint(plugin);
+        this.recipeCacheWriter.execute(() -> writeRecipeCache(plugin, manifest, cacheFingerprint));
+
+        plugin.getLogger().info("Reloaded changed recipe files. (" + registered.size() + " registered, " + unregistered.size() + " unregistered)");
+    }
+
+    private void applyDeferredRecipeFileChanges(@NotNull Alchema plugin) {
+        List<RecipeFileChanges> deferredChanges = new ArrayList<>(deferredRecipeFileChanges);
+        this.deferredRecipeFileChanges.clear();
+        deferredChanges.forEach(changes -> applyRecipeFileChanges(plugin, changes.updated, changes.removedPaths));
+    }
+
+    // Merges changes deferred during a full load into its staged recipes and manifest, unless it was superseded by another load
+    private void mergeDeferredRecipeFileChanges(@NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> stagedRecipes, @NotNull RecipeManifest manifest) {
+        if (this.stagedRecipes != stagedRecipes || deferredRecipeFileChanges.isEmpty()) {
+            return;
+        }
+
+        for (RecipeFileChanges changes : deferredRecipeFileChanges) {
+            List<CauldronRecipe> registered = new ArrayList<>(), unregistered = new ArrayList<>();
+            mergeRecipeFileChanges(manifest, changes.updated, changes.removedPaths, registered, unregistered);
+
+            unregistered.forEach(recipe -> stagedRecipes.remove(recipe.getKey()));
+            registered.forEach(recipe -> stagedRecipes.put(recipe.getKey(), recipe));
+        }
+
+        this.deferredRecipeFileChanges.clear();
+    }
+
+    // Records recipe file changes in the manifest, collecting the recipes that they register and unregister
+    private static void mergeRecipeFileChanges(@NotNull RecipeManifest manifest, @NotNull Map<@NotNull String, RecipeManifest.Entry> updated, @NotNull Set<@NotNull String> removedPaths, @NotNull List<@NotNull CauldronRecipe> registered, @NotNull List<@NotNull CauldronRecipe> unregistered) {
+        // Removed paths may be directories or recipe packs, in which case every recipe beneath them is removed
+        List<String> recordedPaths = manifest.getPaths().stream()
+            .filter(path -> removedPaths.contains(path) || removedPaths.stream().anyMatch(removedPath -> path.startsWith(removedPath + "/") || path.startsWith(removedPath + RECIPE_PACK_SEPARATOR)))
+            .collect(Collectors.toList());
+
+        for (String path : recordedPaths) {
+            CauldronRecipe recipe = manifest.remove(path).getRecipe();
+            if (!updated.containsKey(path)) {
+                unregistered.add(recipe);
+            }
+        }
+
+        updated.forEach((path, entry) -> {
+            manifest.put(path, entry);
+            registered.add(entry.getRecipe());
+        });
+    }
+
+    // Registers and unregisters the given recipes with a single publication
+    private void updateRecipes(@NotNull Collection<@NotNull CauldronRecipe> registered, @NotNull Collection<@NotNull CauldronRecipe> unregistered) {
+        synchronized (snapshot) {
+            Map<NamespacedKey, CauldronRecipe> recipes = new HashMap<>(snapshot.get().recipes);
+            unregistered.forEach(recipe -> recipes.remove(recipe.getKey()));
+            registered.forEach(recipe -> recipes.put(recipe.getKey(), recipe));
+            this.publish(recipes);
+        }
+    }
+
+    @NotNull
+    private RecipeManifest.Entry readRecipeFile(@NotNull NamespacedKey key, @NotNull Path recipeFile, @Nullable RecipeManifest.Entry previousEntry) throws IOException {
+        long lastModified = Files.getLastModifiedTime(recipeFile).toMillis(), size = Files.size(recipeFile);
+        byte[] contents = Files.readAllBytes(recipeFile);
+        HashCode hash = RECIPE_HASH_FUNCTION.hashBytes(contents);
+
+        // The file was touched but its contents are the same
+        if (previousEntry != null && previousEntry.getHash().equals(hash)) {
+            return new RecipeManifest.Entry(lastModified, size, hash, previousEntry.getEncodedContents(), previousEntry.getRecipe());
+        }
+
+        // Read twice. Once to encode the contents for the recipe cache and once to parse the recipe, neither of which builds a tree
+        byte[] encodedContents = RecipeCache.encode(newJsonReader(contents));
+        CauldronRecipe recipe = RecipeStreamParser.parse(key, newJsonReader(contents), this);
+
+        return new RecipeManifest.Entry(lastModified, size, hash, encodedContents, recipe);
+    }
+
+    @NotNull
+    @SuppressWarnings("deprecation") // setLenient() is deprecated in newer versions of Gson in favour of setStrictness(), which older versions lack
+    private static JsonReader newJsonReader(@NotNull byte[] contents) {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(contents), Charset.defaultCharset()));
+        reader.setLenient(true); // Gson#fromJson() reads leniently as well
+        return reader;
+    }
+
+    @NotNull
+    private HashCode getRecipeCacheFingerprint(@NotNull Alchema plugin) {
+        return RecipeCache.fingerprint(plugin.getDescription().getVersion(), ingredientTypes.keySet(), resultTypes.keySet());
+    }
+
+    @NotNull
+    private RecipeManifest readRecipeCache(@NotNull Alchema plugin, @NotNull HashCode fingerprint, @NotNull ExecutorService executor) {
+        RecipeManifest manifest = new RecipeManifest();
+        List<RecipeCache.CachedFile> cachedFiles;
+
+        try {
+            cachedFiles = RecipeCache.read(new File(plugin.getDataFolder(), RECIPE_CACHE_FILE_NAME), fingerprint);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read the recipe cache. It will be rebuilt. Reason: " + e.getMessage());
+            return manifest;
+        }
+
+        Map<String, Future<RecipeManifest.Entry>> parses = new LinkedHashMap<>();
+        for (RecipeCache.CachedFile cachedFile : cachedFiles) {
+            String recipeKey = getRecipeKey(cachedFile.getPath());
+            if (!NamespacedKeyUtil.isValidKey(recipeKey)) {
                 continue;
             }
 
-            String fileName = recipeFile.getName();
-            fileName = fileName.substring(0, fileName.indexOf(".json"));
+            // Contents are streamed straight from their binary form. They remain in the cache file and are not held by the entry
+            NamespacedKey key = new NamespacedKey(plugin, recipeKey);
+            parses.put(cachedFile.getPath(), executor.submit(() -> {
+                CauldronRecipe recipe = RecipeStreamParser.parse(key, RecipeCache.newReader(cachedFile.getEncodedContents()), this);
+                return new RecipeManifest.Entry(cachedFile.getLastModified(), cachedFile.getSize(), cachedFile.getHash(), null, recipe);
+            }));
+        }
 
-            String joinedRecipeKey = null;
-            if (recipesDirectory.equals(subdirectory)) {
-                joinedRecipeKey = fileName; // The root directory is too short to substring itself + 1
-            } else {
-                /*
-                 * Converts file paths to valid keys. Example:
-                 *
-                 * Given: File#getAbsolutePath() (C:\Users\foo\bar\baz)
-                 * Parsed: bar/baz + / + fileName
-                 */
-                joinedRecipeKey = subdirectory.getAbsolutePath().substring(recipesDirectory.getAbsolutePath().length() + 1).replace('\\', '/') + "/" + fileName;
+        try {
+            for (Map.Entry<String, Future<RecipeManifest.Entry>> parse : parses.entrySet()) {
+                try {
+                    manifest.put(parse.getKey(), parse.getValue().get());
+                } catch (ExecutionException e) {
+                    // Cached files that can no longer be parsed will be read again from the file
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the recipe cache", e);
+        }
+
+        return manifest;
+    }
+
+    private void writeRecipeCache(@NotNull Alchema plugin, @NotNull RecipeManifest manifest, @NotNull HashCode fingerprint) {
+        try {
+            RecipeCache.write(new File(plugin.getDataFolder(), RECIPE_CACHE_FILE_NAME), fingerprint, manifest);
+
+            // The cache file now holds the encoded contents of every entry. They are copied from it when it is next written
+            manifest.getEntries().values().forEach(RecipeManifest.Entry::releaseEncodedContents);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write the recipe cache. Reason: " + e.getMessage());
+        }
+    }
+
+    private StandardRecipeLoadResult loadCauldronRecipesFromDirectory(@NotNull Alchema plugin, @NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> stagedRecipes, @NotNull RecipeManifest previousManifest, @NotNull RecipeManifest manifest, @NotNull File recipesDirectory, @NotNull ExecutorService executor) {
+        StandardRecipeLoadResult result = new StandardRecipeLoadResult();
+        Path root = recipesDirectory.toPath();
 
-            if (!NamespacedKeyUtil.isValidKey(joinedRecipeKey)) {
-                plugin.getLogger().warning("Invalid recipe file name, \"" + recipeFile.getName() + "\". Must be alphanumerical, lowercased and separated by underscores.");
+        // Recipe packs remain mounted until all of their files have been loaded
+        Map<String, Path> recipeFiles = new LinkedHashMap<>();
+        List<FileSystem> recipePacks = new ArrayList<>();
+
+        try {
+            this.collectRecipeFiles(plugin, root, "", recipeFiles, recipePacks);
+
+            if (!recipeFiles.isEmpty()) {
+                this.loadRecipeFiles(plugin, stagedRecipes, previousManifest, manifest, recipeFiles, result, executor);
+            }
+        } finally {
+            for (FileSystem recipePack : recipePacks) {
+                try {
+                    recipePack.close();
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not close recipe pack " + recipePack + ". Reason: " + e.getMessage());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    // Collects recipe files keyed by their manifest path. Sorted such that results are merged in the same order regardless of the order in which files finish loading
+    private void collectRecipeFiles(@NotNull Alchema plugin, @NotNull Path root, @NotNull String prefix, @NotNull Map<@NotNull String, @NotNull Path> recipeFiles, @Nullable List<@NotNull FileSystem> recipePacks) {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(file -> Files.isRegularFile(file) && (file.toString().endsWith(".json") || (recipePacks != null && file.toString().endsWith(".zip")))).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Path file : files) {
+            String path = prefix + root.relativize(file).toString().replace('\\', '/');
+            if (path.endsWith(".json")) {
+                recipeFiles.put(path, file);
                 continue;
             }
 
-            NamespacedKey key = new NamespacedKey(plugin, joinedRecipeKey);
+            // Recipe packs are mounted and their recipe files read directly from the archive. Packs within packs are not supported
+            FileSystem recipePack;
+            try {
+                recipePack = FileSystems.newFileSystem(file);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not open recipe pack " + path + ". Reason: " + e.getMessage());
+                continue;
+            }
+
+            recipePacks.add(recipePack);
+            this.collectRecipeFiles(plugin, recipePack.getPath("/"), path + RECIPE_PACK_SEPARATOR, recipeFiles, null);
+        }
+    }
+
+    // Threads are only started as tasks are submitted, so small loads do not start the whole pool
+    @NotNull
+    private static ExecutorService newRecipeLoaderPool() {
+        int threads = Math.max(Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_LOADER_THREADS), 1);
+        return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Alchema Recipe Loader #%d").setDaemon(true).build());
+    }
+
+    private void loadRecipeFiles(@NotNull Alchema plugin, @NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> stagedRecipes, @NotNull RecipeManifest previousManifest, @NotNull RecipeManifest manifest, @NotNull Map<@NotNull String, @NotNull Path> recipeFiles, @NotNull StandardRecipeLoadResult result, @NotNull ExecutorService executor) {
+        try {
+            List<Future<RecipeFileLoad>> loads = new ArrayList<>(recipeFiles.size());
+            recipeFiles.forEach((path, recipeFile) -> loads.add(executor.submit(() -> loadRecipeFile(plugin, path, recipeFile, previousManifest))));
+
+            for (Future<RecipeFileLoad> future : loads) {
+                RecipeFileLoad load = future.get();
+                if (load.key == null) {
+                    plugin.getLogger().warning("Invalid recipe file name, \"" + load.path.substring(load.path.lastIndexOf('/') + 1) + "\". Must be alphanumerical, lowercased and separated by underscores.");
+                    continue;
+                }
+
+                if (load.failure != null) {
+                    result.addFailureInfo(new RecipeLoadFailureReport(load.key, load.failure));
+                    continue;
+                }
+
+                // The same key may be provided by a loose file and a recipe pack, or by two recipe packs
+                if (stagedRecipes.containsKey(load.key)) {
+                    plugin.getLogger().warning("Duplicate recipe " + load.key + " in " + load.path + ". It will replace the recipe loaded before it.");
+                    result.setNative(result.getNative() - 1);
+                }
+
+                RecipeManifest.Entry previousEntry = previousManifest.get(load.path);
+                if (previousEntry == null) {
+                    result.addAdded(load.key);
+                } else if (load.entry.getRecipe() != previousEntry.getRecipe()) {
+                    result.addChanged(load.key);
+                }
 
-            try (BufferedReader reader = Files.newReader(recipeFile, Charset.defaultCharset())) {
-                JsonObject recipeObject = GSON.fromJson(reader, JsonObject.class);
-                CauldronRecipe recipe = CauldronRecipe.fromJson(key, recipeObject, this);
+                if (load.entry != previousEntry) {
+                    result.addLoadTime(load.key, load.timeNanos);
+                }
 
-                this.registerCauldronRecipe(recipe);
+                manifest.put(load.path, load.entry);
+                stagedRecipes.put(load.key, load.entry.getRecipe());
                 result.setNative(result.getNative() + 1);
-            } catch (Exception e) {
-                result.addFailureInfo(new RecipeLoadFailureReport(key, e));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading recipes", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not load recipes", e.getCause());
+        }
+    }
+
+    @NotNull
+    private RecipeFileLoad loadRecipeFile(@NotNull Alchema plugin, @NotNull String path, @NotNull Path recipeFile, @NotNull RecipeManifest previousManifest) {
+        long start = System.nanoTime();
+
+        String recipeKey = getRecipeKey(path);
+        if (!NamespacedKeyUtil.isValidKey(recipeKey)) {
+            return new RecipeFileLoad(path, null, null, null, 0L);
+        }
+
+        NamespacedKey key = new NamespacedKey(plugin, recipeKey);
+
+        try {
+            // Fast path. Files whose modification time and size are unchanged are not read at all. For recipe packs, these are read from the archive's central directory
+            RecipeManifest.Entry previousEntry = previousManifest.get(path);
+            if (previousEntry != null && previousEntry.matches(Files.getLastModifiedTime(recipeFile).toMillis(), Files.size(recipeFile))) {
+                return new RecipeFileLoad(path, key, previousEntry, null, System.nanoTime() - start);
+            }
+
+            return new RecipeFileLoad(path, key, readRecipeFile(key, recipeFile, previousEntry), null, System.nanoTime() - start);
+        } catch (Exception e) {
+            return new RecipeFileLoad(path, key, null, e, System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Converts manifest paths to valid keys. Recipe files within recipe packs are keyed by their path within the pack. Example:
+     *
+     * Given: bar/baz.json
+     * Parsed: bar/baz
+     *
+     * Given: packs/foo.zip!/bar/baz.json
+     * Parsed: bar/baz
+     */
+    @NotNull
+    private static String getRecipeKey(@NotNull String path) {
+        int packSeparatorIndex = path.lastIndexOf(RECIPE_PACK_SEPARATOR);
+        String recipePath = (packSeparatorIndex != -1) ? path.substring(packSeparatorIndex + RECIPE_PACK_SEPARATOR.length()) : path;
+        return recipePath.substring(0, recipePath.length() - ".json".length());
+    }
+
+    private static final class RecipeSnapshot {
+
+        private final Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> recipes;
+        private final long generation;
+
+        private RecipeSnapshot(@NotNull Map<@NotNull NamespacedKey, @NotNull CauldronRecipe> recipes, long generation) {
+            this.recipes = Collections.unmodifiableMap(new HashMap<>(recipes));
+            this.generation = generation;
+        }
+
+    }
+
+    // Recipe files updated and removed since the last load, as detected by the recipe directory watcher
+    private static final class RecipeFileChanges {
+
+        private final Map<@NotNull String, RecipeManifest.Entry> updated;
+        private final Set<@NotNull String> removedPaths;
+
+        private RecipeFileChanges(@NotNull Map<@NotNull String, RecipeManifest.Entry> updated, @NotNull Set<@NotNull String> removedPaths) {
+            this.updated = updated;
+            this.removedPaths = removedPaths;
         }
 
-        return result;
     }
 
+    // The outcome of loading a single recipe file. Either entry or failure is set if the key is valid
+    private static final class RecipeFileLoad {
+
+        private final String path;
+        private final NamespacedKey key;
+        private final RecipeManifest.Entry entry;
+        private final Exception failure;
+        private final long timeNanos;
+
+        private RecipeFileLoad(@NotNull String path, @Nullable NamespacedKey key, @Nullable RecipeManifest.Entry entry, @Nullable Exception failure, long timeNanos) {
+            this.path = path;
+            this.key = key;
+            this.entry = entry;
+            this.failure = failure;
+            this.timeNanos = timeNanos;
+        }
+
+    }
 
     private class StandardRecipeLoadResult implements RecipeLoadResult {
 
@@ -447,6 +1107,8 @@ public class CauldronRecipeRegistry {
         private long timeToComplete;
 
         private final List<RecipeLoadFailureReport> failures = new ArrayList<>();
+        private final List<NamespacedKey> added = new ArrayList<>(), changed = new ArrayList<>(), removed = new ArrayList<>();
+        private final Map<NamespacedKey, Long> loadTimes = new LinkedHashMap<>();
 
         StandardRecipeLoadResult() { }
 
@@ -487,6 +1149,46 @@ public class CauldronRecipeRegistry {
             return Collections.unmodifiableList(failures);
         }
 
+        private void addAdded(@NotNull NamespacedKey key) {
+            this.added.add(key);
+        }
+
+        @NotNull
+        @Override
+        public List<@NotNull NamespacedKey> getAdded() {
+            return Collections.unmodifiableList(added);
+        }
+
+        private void addChanged(@NotNull NamespacedKey key) {
+            this.changed.add(key);
+        }
+
+        @NotNull
+        @Override
+        public List<@NotNull NamespacedKey> getChanged() {
+            return Collections.unmodifiableList(changed);
+        }
+
+        private void addRemoved(@NotNull NamespacedKey key) {
+            this.removed.add(key);
+        }
+
+        @NotNull
+        @Override
+        public List<@NotNull NamespacedKey> getRemoved() {
+            return Collections.unmodifiableList(removed);
+        }
+
+        private void addLoadTime(@NotNull NamespacedKey key, long timeNanos) {
+            this.loadTimes.put(key, timeNanos);
+        }
+
+        @NotNull
+        @Override
+        public Map<@NotNull NamespacedKey, @NotNull Long> getLoadTimes() {
+            return Collections.unmodifiableMap(loadTimes);
+        }
+
     }
 
 }
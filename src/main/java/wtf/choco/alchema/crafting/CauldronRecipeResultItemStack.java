@@ -55,8 +55,17 @@ public class CauldronRecipeResultItemStack implements CauldronRecipeResult {
      * @param object the object from which to deserialize
      */
     public CauldronRecipeResultItemStack(@NotNull JsonObject object) {
-        this.item = ItemUtil.parseItemStack(object);
-        this.item.setAmount(object.has("amount") ? object.get("amount").getAsInt() : 1);
+        this(RecipeStreamParser.Fields.of(object));
+    }
+
+    /**
+     * Construct a new {@link CauldronRecipeResultItemStack} deserialized from the
+     * provided {@link RecipeStreamParser.Fields}.
+     *
+     * @param fields the fields from which to deserialize
+     */
+    CauldronRecipeResultItemStack(@NotNull RecipeStreamParser.Fields fields) {
+        this.item = ItemUtil.parseItemStack(fields.getString("item"), fields.getInt("amount", 1));
     }
 
     @NotNull
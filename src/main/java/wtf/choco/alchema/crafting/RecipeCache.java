@@ -0,0 +1,722 @@
+package wtf.choco.alchema.crafting;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A versioned binary cache of the recipe files read during a recipe load, written such that
+ * the next startup may restore its {@link RecipeManifest} with a single sequential read rather
+ * than opening and parsing every recipe file.
+ * <p>
+ * Each record holds the path, modification time, size and content hash of a recipe file along
+ * with its JSON contents encoded in a compact binary form that can be decoded without text
+ * parsing. The cache as a whole is keyed by a fingerprint of the plugin version and the set of
+ * registered ingredient and result types, and is ignored entirely if the fingerprint differs.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class RecipeCache {
+
+    private static final int MAGIC = 0x414C4352; // "ALCR"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private static final byte TAG_NULL = 0, TAG_OBJECT = 1, TAG_ARRAY = 2, TAG_STRING = 3, TAG_BOOLEAN = 4, TAG_NUMBER = 5;
+
+    private RecipeCache() { }
+
+    /**
+     * Compute the fingerprint of the environment in which recipes are parsed. A cache written
+     * with one fingerprint may not be used with another.
+     *
+     * @param version the plugin version
+     * @param ingredientTypes the keys of all registered ingredient types
+     * @param resultTypes the keys of all registered result types
+     *
+     * @return the fingerprint
+     */
+    @NotNull
+    static HashCode fingerprint(@NotNull String version, @NotNull Collection<@NotNull NamespacedKey> ingredientTypes, @NotNull Collection<@NotNull NamespacedKey> resultTypes) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(version, StandardCharsets.UTF_8).putInt(FORMAT_VERSION);
+
+        ingredientTypes.stream().map(NamespacedKey::toString).sorted().forEach(key -> hasher.putString(key, StandardCharsets.UTF_8).putByte((byte) 0));
+        hasher.putByte((byte) 1);
+        resultTypes.stream().map(NamespacedKey::toString).sorted().forEach(key -> hasher.putString(key, StandardCharsets.UTF_8).putByte((byte) 0));
+
+        return hasher.hash();
+    }
+
+    /**
+     * Read all records from the cache file. If the file does not exist, was written by an
+     * incompatible format version or with a different fingerprint, no records are returned.
+     *
+     * @param file the cache file
+     * @param fingerprint the expected fingerprint
+     *
+     * @return the cached records
+     *
+     * @throws IOException if the file could not be read or is malformed
+     */
+    @NotNull
+    static List<@NotNull CachedFile> read(@NotNull File file, @NotNull HashCode fingerprint) throws IOException {
+        if (!file.isFile()) {
+            return Collections.emptyList();
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !fingerprint.equals(HashCode.fromBytes(readBytes(input)))) {
+                return Collections.emptyList();
+            }
+
+            int count = input.readInt();
+            List<CachedFile> records = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                String path = readString(input);
+                long lastModified = input.readLong(), size = input.readLong();
+                HashCode hash = HashCode.fromBytes(readBytes(input));
+                records.add(new CachedFile(path, lastModified, size, hash, readBytes(input)));
+            }
+
+            return records;
+        }
+    }
+
+    /**
+     * Write all entries of the given manifest to the cache file. The file is first written
+     * to a temporary file and then moved into place such that a partially written cache is
+     * never read.
+     *
+     * @param file the cache file
+     * @param fingerprint the fingerprint
+     * @param manifest the manifest to write
+     *
+     * @throws IOException if the file could not be written
+     */
+    static void write(@NotNull File file, @NotNull HashCode fingerprint, @NotNull RecipeManifest manifest) throws IOException {
+        Path target = file.toPath();
+        Path temporary = target.resolveSibling(file.getName() + ".tmp");
+
+        // Entries no longer holding their encoded contents were restored from (or already written to) the cache being replaced
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        manifest.getEntries().forEach((path, entry) -> contents.put(path, entry.getEncodedContents()));
+
+        Map<String, CachedRange> previousRanges = contents.containsValue(null) ? readRanges(file, fingerprint) : Collections.emptyMap();
+
+        // Those whose contents cannot be found there are left out and will be read from their file next time
+        contents.entrySet().removeIf(entry -> {
+            if (entry.getValue() != null) {
+                return false;
+            }
+
+            CachedRange range = previousRanges.get(entry.getKey());
+            return range == null || !range.hash.equals(manifest.get(entry.getKey()).getHash());
+        });
+
+        try (FileChannel previous = previousRanges.isEmpty() ? null : FileChannel.open(target, StandardOpenOption.READ);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            writeBytes(output, fingerprint.asBytes());
+            output.writeInt(contents.size());
+
+            ByteBuffer copyBuffer = null;
+
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                RecipeManifest.Entry manifestEntry = manifest.get(entry.getKey());
+
+                writeString(output, entry.getKey());
+                output.writeLong(manifestEntry.getLastModified());
+                output.writeLong(manifestEntry.getSize());
+                writeBytes(output, manifestEntry.getHash().asBytes());
+
+                if (entry.getValue() != null) {
+                    writeBytes(output, entry.getValue());
+                    continue;
+                }
+
+                if (copyBuffer == null) {
+                    copyBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                }
+
+                CachedRange range = previousRanges.get(entry.getKey());
+                output.writeInt(range.length);
+                copy(previous, range, output, copyBuffer);
+            }
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Only the positions of encoded contents are recorded. They are skipped over rather than read. Nothing can be copied from a malformed cache
+    @NotNull
+    private static Map<@NotNull String, @NotNull CachedRange> readRanges(@NotNull File file, @NotNull HashCode fingerprint) {
+        if (!file.isFile()) {
+            return Collections.emptyMap();
+        }
+
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())));
+                DataInputStream input = new DataInputStream(counter)) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !fingerprint.equals(HashCode.fromBytes(readBytes(input)))) {
+                return Collections.emptyMap();
+            }
+
+            int count = input.readInt();
+            Map<String, CachedRange> ranges = new HashMap<>();
+
+            for (int i = 0; i < count; i++) {
+                String path = readString(input);
+                input.readLong(); // lastModified
+                input.readLong(); // size
+                HashCode hash = HashCode.fromBytes(readBytes(input));
+
+                int length = input.readInt();
+                if (length < 0) {
+                    throw new IOException("Negative length " + length);
+                }
+
+                ranges.put(path, new CachedRange(hash, counter.getCount(), length));
+                ByteStreams.skipFully(input, length);
+            }
+
+            return ranges;
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    private static void copy(@NotNull FileChannel channel, @NotNull CachedRange range, @NotNull DataOutput output, @NotNull ByteBuffer buffer) throws IOException {
+        long position = range.offset, end = range.offset + range.length;
+
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Recipe cache ended before the contents at " + range.offset + " could be copied");
+            }
+
+            output.write(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    /**
+     * Encode the JSON document read by the given reader to its binary form. The document is
+     * transcoded token by token without being read into a tree.
+     *
+     * @param reader the reader from which to read the document
+     *
+     * @return the encoded document
+     *
+     * @throws IOException if the document could not be read
+     */
+    @NotNull
+    static byte[] encode(@NotNull JsonReader reader) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            writeElement(output, reader);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Create a {@link JsonReader} that reads a document from its binary form. The document is
+     * read token by token without being decoded into a tree or formatted as text.
+     *
+     * @param bytes the encoded document
+     *
+     * @return the reader
+     */
+    @NotNull
+    static JsonReader newReader(@NotNull byte[] bytes) {
+        return new EncodedJsonReader(bytes);
+    }
+
+    private static void writeElement(@NotNull DataOutput output, @NotNull JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        switch (token) {
+            case BEGIN_OBJECT:
+                writeObject(output, reader);
+                break;
+            case BEGIN_ARRAY:
+                writeArray(output, reader);
+                break;
+            case BOOLEAN:
+                output.writeByte(TAG_BOOLEAN);
+                output.writeBoolean(reader.nextBoolean());
+                break;
+            case NUMBER:
+                output.writeByte(TAG_NUMBER);
+                writeString(output, reader.nextString()); // Retains the exact textual representation
+                break;
+            case STRING:
+                output.writeByte(TAG_STRING);
+                writeString(output, reader.nextString());
+                break;
+            case NULL:
+                reader.nextNull();
+                output.writeByte(TAG_NULL);
+                break;
+            default:
+                throw new IOException("Unexpected token " + token);
+        }
+    }
+
+    // Objects and arrays are buffered such that their size may be written before their contents
+    private static void writeObject(@NotNull DataOutput output, @NotNull JsonReader reader) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream contents = new DataOutputStream(bytes);
+        int size = 0;
+
+        reader.beginObject();
+
+        for (; reader.hasNext(); size++) {
+            writeString(contents, reader.nextName());
+            writeElement(contents, reader);
+        }
+
+        reader.endObject();
+
+        output.writeByte(TAG_OBJECT);
+        output.writeInt(size);
+        output.write(bytes.toByteArray());
+    }
+
+    private static void writeArray(@NotNull DataOutput output, @NotNull JsonReader reader) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream contents = new DataOutputStream(bytes);
+        int size = 0;
+
+        reader.beginArray();
+
+        for (; reader.hasNext(); size++) {
+            writeElement(contents, reader);
+        }
+
+        reader.endArray();
+
+        output.writeByte(TAG_ARRAY);
+        output.writeInt(size);
+        output.write(bytes.toByteArray());
+    }
+
+    // DataOutput#writeUTF() is limited to 65535 bytes which long lore may exceed
+    private static void writeString(@NotNull DataOutput output, @NotNull String string) throws IOException {
+        writeBytes(output, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @NotNull
+    private static String readString(@NotNull DataInput input) throws IOException {
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(@NotNull DataOutput output, @NotNull byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @NotNull
+    private static byte[] readBytes(@NotNull DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Negative length " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * A single recipe file read from the cache.
+     */
+    static final class CachedFile {
+
+        private final String path;
+        private final long lastModified;
+        private final long size;
+        private final HashCode hash;
+        private final byte[] encodedContents;
+
+        private CachedFile(@NotNull String path, long lastModified, long size, @NotNull HashCode hash, @NotNull byte[] encodedContents) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hash = hash;
+            this.encodedContents = encodedContents;
+        }
+
+        /**
+         * Get the path of the file relative to the recipes directory.
+         *
+         * @return the path
+         */
+        @NotNull
+        String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the time at which the file was last modified when it was cached.
+         *
+         * @return the modification time
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Get the size of the file in bytes when it was cached.
+         *
+         * @return the size
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * Get the hash of the file's contents when it was cached.
+         *
+         * @return the content hash
+         */
+        @NotNull
+        HashCode getHash() {
+            return hash;
+        }
+
+        /**
+         * Get the file's JSON contents in their binary form.
+         *
+         * @return the encoded contents
+         *
+         * @see RecipeCache#newReader(byte[])
+         */
+        @NotNull
+        byte[] getEncodedContents() {
+            return encodedContents;
+        }
+
+    }
+
+    /*
+     * The position and length of a record's encoded contents within a cache file, such that they may be copied without being read.
+     */
+    private static final class CachedRange {
+
+        private final HashCode hash;
+        private final long offset;
+        private final int length;
+
+        private CachedRange(@NotNull HashCode hash, long offset, int length) {
+            this.hash = hash;
+            this.offset = offset;
+            this.length = length;
+        }
+
+    }
+
+    /*
+     * Reads tokens directly from the binary form. Every object and array is prefixed with its size, so the amount of members
+     * remaining in each open container is tracked in place of the delimiters a text reader would look for.
+     */
+    private static final class EncodedJsonReader extends JsonReader {
+
+        private static final Reader UNREADABLE_READER = new Reader() {
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void close() { }
+
+        };
+
+        private final DataInputStream input;
+
+        private int[] remaining = new int[8];
+        private boolean[] object = new boolean[8], nameRead = new boolean[8];
+        private int depth = 0;
+
+        private JsonToken peeked = null;
+        private boolean documentRead = false;
+
+        private EncodedJsonReader(@NotNull byte[] bytes) {
+            super(UNREADABLE_READER);
+            this.input = new DataInputStream(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public JsonToken peek() throws IOException {
+            if (peeked != null) {
+                return peeked;
+            }
+
+            if (depth == 0) {
+                this.peeked = documentRead ? JsonToken.END_DOCUMENT : readValueToken();
+            } else if (remaining[depth - 1] == 0) {
+                this.peeked = object[depth - 1] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+            } else if (object[depth - 1] && !nameRead[depth - 1]) {
+                this.peeked = JsonToken.NAME;
+            } else {
+                this.peeked = readValueToken();
+            }
+
+            return peeked;
+        }
+
+        @Override
+        public void beginObject() throws IOException {
+            this.expect(JsonToken.BEGIN_OBJECT);
+            this.push(true, input.readInt());
+        }
+
+        @Override
+        public void endObject() throws IOException {
+            this.expect(JsonToken.END_OBJECT);
+            this.depth--;
+            this.valueRead();
+        }
+
+        @Override
+        public void beginArray() throws IOException {
+            this.expect(JsonToken.BEGIN_ARRAY);
+            this.push(false, input.readInt());
+        }
+
+        @Override
+        public void endArray() throws IOException {
+            this.expect(JsonToken.END_ARRAY);
+            this.depth--;
+            this.valueRead();
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            JsonToken token = peek();
+            return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+        }
+
+        @Override
+        public String nextName() throws IOException {
+            this.expect(JsonToken.NAME);
+            this.nameRead[depth - 1] = true;
+            return readString(input);
+        }
+
+        @Override
+        public String nextString() throws IOException {
+            JsonToken token = peek();
+            if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+                throw new IllegalStateException("Expected a string but was " + token);
+            }
+
+            this.peeked = null;
+            String value = readString(input);
+            this.valueRead();
+            return value;
+        }
+
+        @Override
+        public boolean nextBoolean() throws IOException {
+            this.expect(JsonToken.BOOLEAN);
+            boolean value = input.readBoolean();
+            this.valueRead();
+            return value;
+        }
+
+        @Override
+        public void nextNull() throws IOException {
+            this.expect(JsonToken.NULL);
+            this.valueRead();
+        }
+
+        @Override
+        public double nextDouble() throws IOException {
+            return Double.parseDouble(nextString());
+        }
+
+        @Override
+        public long nextLong() throws IOException {
+            String value = nextString();
+
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return new BigDecimal(value).longValueExact();
+            }
+        }
+
+        @Override
+        public int nextInt() throws IOException {
+            String value = nextString();
+
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return new BigDecimal(value).intValueExact();
+            }
+        }
+
+        @Override
+        public void skipValue() throws IOException {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    this.beginObject();
+                    while (hasNext()) {
+                        this.nextName();
+                        this.skipValue();
+                    }
+                    this.endObject();
+                    break;
+                case BEGIN_ARRAY:
+                    this.beginArray();
+                    while (hasNext()) {
+                        this.skipValue();
+                    }
+                    this.endArray();
+                    break;
+                case NAME:
+                    this.nextName();
+                    break;
+                case BOOLEAN:
+                    this.nextBoolean();
+                    break;
+                case NULL:
+                    this.nextNull();
+                    break;
+                case STRING:
+                case NUMBER:
+                    this.nextString();
+                    break;
+                default:
+                    throw new IllegalStateException("Expected a value but was " + peek());
+            }
+        }
+
+        @Override
+        public String getPath() {
+            return "$";
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.input.close();
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName();
+        }
+
+        @NotNull
+        private JsonToken readValueToken() throws IOException {
+            byte tag = input.readByte();
+
+            switch (tag) {
+                case TAG_OBJECT:
+                    return JsonToken.BEGIN_OBJECT;
+                case TAG_ARRAY:
+                    return JsonToken.BEGIN_ARRAY;
+                case TAG_STRING:
+                    return JsonToken.STRING;
+                case TAG_BOOLEAN:
+                    return JsonToken.BOOLEAN;
+                case TAG_NUMBER:
+                    return JsonToken.NUMBER;
+                case TAG_NULL:
+                    return JsonToken.NULL;
+                default:
+                    throw new IOException("Unknown element tag " + tag);
+            }
+        }
+
+        private void expect(@NotNull JsonToken expected) throws IOException {
+            JsonToken token = peek();
+            if (token != expected) {
+                throw new IllegalStateException("Expected " + expected + " but was " + token);
+            }
+
+            this.peeked = null;
+        }
+
+        private void push(boolean isObject, int size) throws IOException {
+            if (size < 0) {
+                throw new IOException("Negative size " + size);
+            }
+
+            if (depth == remaining.length) {
+                this.remaining = Arrays.copyOf(remaining, depth * 2);
+                this.object = Arrays.copyOf(object, depth * 2);
+                this.nameRead = Arrays.copyOf(nameRead, depth * 2);
+            }
+
+            this.remaining[depth] = size;
+            this.object[depth] = isObject;
+            this.nameRead[depth] = false;
+            this.depth++;
+        }
+
+        // Counts a completed value against its enclosing container, or completes the document if it was the root value
+        private void valueRead() {
+            if (depth == 0) {
+                this.documentRead = true;
+                return;
+            }
+
+            this.remaining[depth - 1]--;
+            this.nameRead[depth - 1] = false;
+        }
+
+    }
+
+}
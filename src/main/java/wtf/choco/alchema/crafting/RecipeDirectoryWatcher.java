@@ -0,0 +1,193 @@
+package wtf.choco.alchema.crafting;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+
+/**
+ * Watches Alchema's recipes directory for changes and reloads affected recipe files as they
+ * are created, modified or deleted.
+ * <p>
+ * Changes are debounced such that a burst of changes (e.g. saving many files at once or a
+ * file being written in several steps) results in a single reload once no change has been
+ * made for the configured debounce period. Affected files are parsed on the watcher thread
+ * and the resulting registrations and unregistrations are applied on the main thread.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class RecipeDirectoryWatcher {
+
+    private Thread thread;
+    private WatchService watchService;
+
+    // Only accessed by the watcher thread once started
+    private final Map<@NotNull WatchKey, @NotNull Path> directories = new HashMap<>();
+
+    private final Alchema plugin;
+    private final CauldronRecipeRegistry recipeRegistry;
+    private final File recipesDirectory;
+    private final long debounceMillis;
+
+    /**
+     * Construct a new {@link RecipeDirectoryWatcher}.
+     *
+     * @param plugin the plugin instance
+     * @param recipeRegistry the recipe registry into which changed recipes should be registered
+     * @param recipesDirectory the directory to watch
+     * @param debounceMillis the time, in milliseconds, without changes after which changed files
+     * are reloaded
+     */
+    public RecipeDirectoryWatcher(@NotNull Alchema plugin, @NotNull CauldronRecipeRegistry recipeRegistry, @NotNull File recipesDirectory, long debounceMillis) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(recipeRegistry != null, "recipeRegistry must not be null");
+        Preconditions.checkArgument(recipesDirectory != null, "recipesDirectory must not be null");
+        Preconditions.checkArgument(debounceMillis >= 0, "debounceMillis must be positive");
+
+        this.plugin = plugin;
+        this.recipeRegistry = recipeRegistry;
+        this.recipesDirectory = recipesDirectory;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Start watching the recipes directory for changes.
+     *
+     * @throws IOException if the directory could not be watched
+     * @throws IllegalStateException if this watcher has already been started
+     */
+    public void start() throws IOException {
+        Preconditions.checkState(thread == null, "Watcher has already been started");
+
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+
+        try {
+            this.registerRecursively(watchService, recipesDirectory.toPath());
+        } catch (IOException | UncheckedIOException e) {
+            watchService.close();
+            throw e;
+        }
+
+        this.watchService = watchService;
+
+        this.thread = new Thread(this::run, "Alchema Recipe Watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stop watching the recipes directory. Changes that have yet to be reloaded are discarded.
+     */
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        this.thread.interrupt();
+        this.thread = null;
+
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        this.watchService = null;
+    }
+
+    /**
+     * Check whether or not this watcher is currently watching the recipes directory.
+     *
+     * @return true if running, false otherwise
+     */
+    public boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+
+    private void run() {
+        WatchService watchService = this.watchService;
+        Set<Path> changedPaths = new LinkedHashSet<>();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Wait indefinitely for the first change, then only as long as the debounce period for any subsequent change
+                WatchKey key = changedPaths.isEmpty() ? watchService.take() : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    this.reloadRecipeFiles(changedPaths);
+                    changedPaths = new LinkedHashSet<>();
+                    continue;
+                }
+
+                Path directory = directories.get(key);
+                if (directory == null) {
+                    key.cancel();
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // Events were lost. Reconcile the whole directory
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changedPaths.add(recipesDirectory.toPath());
+                        continue;
+                    }
+
+                    Path path = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        try {
+                            this.registerRecursively(watchService, path);
+                        } catch (IOException | UncheckedIOException e) {
+                            // Changes to the directory's files are still reloaded, though later changes within it will go unnoticed
+                            this.plugin.getLogger().warning("Could not watch " + path + " for changes. Reason: " + e.getMessage());
+                        }
+                    }
+
+                    changedPaths.add(path);
+                }
+
+                if (!key.reset()) {
+                    this.directories.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was stopped
+        }
+    }
+
+    // A batch that fails to reload is logged and dropped such that the watcher keeps watching for later changes
+    private void reloadRecipeFiles(@NotNull Set<Path> changedPaths) {
+        try {
+            this.recipeRegistry.reloadRecipeFiles(plugin, recipesDirectory, changedPaths);
+        } catch (RuntimeException e) {
+            this.plugin.getLogger().warning("Could not reload changed recipe files. Reason: " + e.getMessage());
+        }
+    }
+
+    private void registerRecursively(@NotNull WatchService watchService, @NotNull Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                this.directories.put(key, directory);
+            }
+        }
+    }
+
+}
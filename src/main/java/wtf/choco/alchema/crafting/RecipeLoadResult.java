@@ -2,7 +2,9 @@ package wtf.choco.alchema.crafting;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
+import org.bukkit.NamespacedKey;
 import org.jetbrains.annotations.ApiStatus.NonExtendable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Unmodifiable;
@@ -48,6 +50,48 @@ public interface RecipeLoadResult {
     @Unmodifiable
     public List<@NotNull RecipeLoadFailureReport> getFailures();
 
+    /**
+     * Get an immutable List of the keys of all native recipes whose files were added since the
+     * previous load. On the first load, all natively loaded recipes are considered added.
+     *
+     * @return the added recipes. If none, an empty list is returned
+     */
+    @NotNull
+    @Unmodifiable
+    public List<@NotNull NamespacedKey> getAdded();
+
+    /**
+     * Get an immutable List of the keys of all native recipes whose files' contents changed
+     * since the previous load and were therefore parsed again.
+     *
+     * @return the changed recipes. If none, an empty list is returned
+     */
+    @NotNull
+    @Unmodifiable
+    public List<@NotNull NamespacedKey> getChanged();
+
+    /**
+     * Get an immutable List of the keys of all native recipes that were loaded by the previous
+     * load but were not loaded by this one, either because their files were deleted or because
+     * they could no longer be loaded.
+     *
+     * @return the removed recipes. If none, an empty list is returned
+     */
+    @NotNull
+    @Unmodifiable
+    public List<@NotNull NamespacedKey> getRemoved();
+
+    /**
+     * Get an immutable Map of the time, in nanoseconds, it took to read and parse each native
+     * recipe file that was read during this load. Files that were skipped because they had not
+     * changed since the previous load are not included.
+     *
+     * @return the load time of each read recipe file. If none, an empty map is returned
+     */
+    @NotNull
+    @Unmodifiable
+    public Map<@NotNull NamespacedKey, @NotNull Long> getLoadTimes();
+
     /**
      * Get the time, in milliseconds, it took for this process to complete.
      *
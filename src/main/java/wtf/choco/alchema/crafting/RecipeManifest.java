@@ -0,0 +1,222 @@
+package wtf.choco.alchema.crafting;
+
+import com.google.common.hash.HashCode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+/**
+ * A record of the recipe files read during a recipe load, keyed by their path relative to the
+ * recipes directory. Each entry holds the modification time, size and content hash of the file
+ * at the time it was read along with the recipe parsed from it such that subsequent loads may
+ * skip files that have not changed. The file's encoded contents are held only until they have
+ * been written to the {@link RecipeCache}.
+ * <p>
+ * Files within recipe packs are recorded by the path of the pack followed by {@code !/} and
+ * the path of the file within the pack (e.g. {@code packs/magic.zip!/bar/baz.json}).
+ *
+ * @author Parker Hawke - Choco
+ */
+final class RecipeManifest {
+
+    private final Map<@NotNull String, @NotNull Entry> entries;
+
+    /**
+     * Construct a new empty {@link RecipeManifest}.
+     */
+    RecipeManifest() {
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Construct a new {@link RecipeManifest} holding the same entries as another.
+     *
+     * @param other the manifest to copy
+     */
+    RecipeManifest(@NotNull RecipeManifest other) {
+        this.entries = new HashMap<>(other.entries);
+    }
+
+    /**
+     * Get the entry for the file at the given path.
+     *
+     * @param path the path of the file relative to the recipes directory
+     *
+     * @return the entry. null if no file was recorded at the given path
+     */
+    @Nullable
+    Entry get(@NotNull String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Record an entry for the file at the given path.
+     *
+     * @param path the path of the file relative to the recipes directory
+     * @param entry the entry
+     */
+    void put(@NotNull String path, @NotNull Entry entry) {
+        this.entries.put(path, entry);
+    }
+
+    /**
+     * Remove the entry for the file at the given path.
+     *
+     * @param path the path of the file relative to the recipes directory
+     *
+     * @return the removed entry. null if no file was recorded at the given path
+     */
+    @Nullable
+    Entry remove(@NotNull String path) {
+        return entries.remove(path);
+    }
+
+    /**
+     * Get the paths of all files recorded in this manifest.
+     *
+     * @return all recorded paths
+     */
+    @NotNull
+    @UnmodifiableView
+    Set<@NotNull String> getPaths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Get all entries recorded in this manifest, keyed by their path.
+     *
+     * @return all entries
+     */
+    @NotNull
+    @UnmodifiableView
+    Map<@NotNull String, @NotNull Entry> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Check whether or not this manifest has recorded any files.
+     *
+     * @return true if empty, false otherwise
+     */
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * A single recipe file recorded in a {@link RecipeManifest}.
+     */
+    static final class Entry {
+
+        private final long lastModified;
+        private final long size;
+        private final HashCode hash;
+        private volatile byte[] encodedContents;
+        private final CauldronRecipe recipe;
+
+        /**
+         * Construct a new {@link Entry}.
+         *
+         * @param lastModified the time at which the file was last modified
+         * @param size the size of the file in bytes
+         * @param hash the hash of the file's contents
+         * @param encodedContents the file's JSON contents encoded by {@link RecipeCache#encode(com.google.gson.stream.JsonReader)}.
+         * null if they are already held by the recipe cache
+         * @param recipe the recipe parsed from the file
+         */
+        Entry(long lastModified, long size, @NotNull HashCode hash, @Nullable byte[] encodedContents, @NotNull CauldronRecipe recipe) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hash = hash;
+            this.encodedContents = encodedContents;
+            this.recipe = recipe;
+        }
+
+        /**
+         * Check whether or not a file with the given modification time and size is likely to be
+         * unchanged since this entry was recorded.
+         *
+         * @param lastModified the file's current modification time
+         * @param size the file's current size in bytes
+         *
+         * @return true if the modification time and size both match
+         */
+        boolean matches(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+
+        /**
+         * Get the time at which the file was last modified when this entry was recorded.
+         *
+         * @return the modification time
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Get the size of the file in bytes when this entry was recorded.
+         *
+         * @return the size
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * Get the hash of the file's contents.
+         *
+         * @return the content hash
+         */
+        @NotNull
+        HashCode getHash() {
+            return hash;
+        }
+
+        /**
+         * Get the file's JSON contents in their binary form. Contents are only held until they
+         * have been written to the recipe cache.
+         *
+         * @return the encoded contents. null if released
+         */
+        @Nullable
+        byte[] getEncodedContents() {
+            return encodedContents;
+        }
+
+        /**
+         * Release this entry's encoded contents once they are held by the recipe cache.
+         */
+        void releaseEncodedContents() {
+            this.encodedContents = null;
+        }
+
+        /**
+         * Get the key of the recipe parsed from the file.
+         *
+         * @return the recipe key
+         */
+        @NotNull
+        NamespacedKey getKey() {
+            return recipe.getKey();
+        }
+
+        /**
+         * Get the recipe parsed from the file.
+         *
+         * @return the recipe
+         */
+        @NotNull
+        CauldronRecipe getRecipe() {
+            return recipe;
+        }
+
+    }
+
+}
@@ -0,0 +1,402 @@
+package wtf.choco.alchema.crafting;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.commons.util.NamespacedKeyUtil;
+
+/**
+ * Parses {@link CauldronRecipe CauldronRecipes} directly from a {@link JsonReader} without first
+ * reading the whole document into a {@link JsonObject} tree.
+ * <p>
+ * Ingredient and result objects are read into lightweight {@link Fields} and handed to the
+ * reader registered for their type, if any. Built-in types are read by the same constructors
+ * that deserialize them from a {@link JsonObject}, as those convert the object to fields with
+ * {@link Fields#of(JsonObject)}. Types without a reader (i.e. those registered by third-party
+ * plugins) fall back to their tree-based provider, for which the fields are converted to a
+ * {@link JsonObject}. This is the only place in which recipes are validated.
+ * {@link CauldronRecipe#fromJson(NamespacedKey, JsonObject, CauldronRecipeRegistry)} parses its
+ * tree by way of a {@link com.google.gson.internal.bind.JsonTreeReader JsonTreeReader}.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class RecipeStreamParser {
+
+    private RecipeStreamParser() { }
+
+    /**
+     * Parse a {@link CauldronRecipe} from the given reader.
+     *
+     * @param key the key of the recipe
+     * @param reader the reader positioned at the start of the recipe object
+     * @param recipeRegistry the registry with which to parse ingredient and result types
+     *
+     * @return the parsed recipe
+     *
+     * @throws IOException if the recipe could not be read
+     * @throws JsonParseException if the recipe is malformed
+     */
+    @NotNull
+    static CauldronRecipe parse(@NotNull NamespacedKey key, @NotNull JsonReader reader, @NotNull CauldronRecipeRegistry recipeRegistry) throws IOException {
+        CauldronRecipeResult result = null;
+        List<@NotNull CauldronIngredient> ingredients = null;
+        String name = null, description = null, comment = null;
+        int experience = 0, brewTime = 0;
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "result":
+                    result = readResult(reader, recipeRegistry);
+                    break;
+                case "ingredients":
+                    ingredients = readIngredients(reader, recipeRegistry);
+                    break;
+                case "experience":
+                    experience = readInt(reader, "experience");
+                    break;
+                case "name":
+                    name = readString(reader, "name");
+                    break;
+                case "description":
+                    description = readString(reader, "description");
+                    break;
+                case "comment":
+                    comment = readString(reader, "comment");
+                    break;
+                case "brew_time":
+                    brewTime = readInt(reader, "brew_time");
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        if (result == null) {
+            throw new JsonParseException("Missing result object");
+        }
+
+        if (ingredients == null) {
+            throw new JsonParseException("Missing ingredients array");
+        }
+
+        if (ingredients.size() < 2) {
+            throw new JsonParseException("ingredients array must contain at least two ingredients");
+        }
+
+        if (brewTime < 0) {
+            throw new JsonParseException("brew_time must be positive or 0");
+        }
+
+        return new SimpleCauldronRecipe(key, result, name, description, comment, experience, brewTime, ingredients);
+    }
+
+    // Numbers are read as JsonPrimitive#getAsInt() would, truncating any fractional part
+    private static int readInt(@NotNull JsonReader reader, @NotNull String name) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            throw new JsonParseException("Expected " + name + " to be an int. Got: " + token);
+        }
+
+        return parseInt(name, reader.nextString());
+    }
+
+    private static int parseInt(@NotNull String name, @NotNull String value) {
+        try {
+            return new BigDecimal(value).intValue();
+        } catch (NumberFormatException e) {
+            throw new JsonParseException("Expected " + name + " to be an int. Got: " + value);
+        }
+    }
+
+    @Nullable
+    private static String readString(@NotNull JsonReader reader, @NotNull String name) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                throw new JsonParseException("Expected " + name + " to be a string. Got: " + reader.peek());
+        }
+    }
+
+    @NotNull
+    private static CauldronRecipeResult readResult(@NotNull JsonReader reader, @NotNull CauldronRecipeRegistry recipeRegistry) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new JsonParseException("Missing result object");
+        }
+
+        Fields fields = Fields.read(reader);
+        String type = fields.getString("type");
+
+        NamespacedKey resultTypeKey = (type != null ? NamespacedKeyUtil.fromString(type, Alchema.getInstance()) : CauldronRecipeResultItemStack.KEY);
+        if (resultTypeKey == null) {
+            throw new JsonParseException("Invalid namespaced key \"" + type + "\". Expected format is \"alchema:example\"");
+        }
+
+        CauldronRecipeResult result = recipeRegistry.readResultType(resultTypeKey, fields);
+        if (result == null) {
+            throw new JsonParseException("Could not find result type with id \"" + resultTypeKey + "\"");
+        }
+
+        return result;
+    }
+
+    @NotNull
+    private static List<@NotNull CauldronIngredient> readIngredients(@NotNull JsonReader reader, @NotNull CauldronRecipeRegistry recipeRegistry) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new JsonParseException("Missing ingredients array");
+        }
+
+        List<@NotNull CauldronIngredient> ingredients = new ArrayList<>();
+
+        reader.beginArray();
+
+        for (int i = 0; reader.hasNext(); i++) {
+            JsonToken token = reader.peek();
+            if (token != JsonToken.BEGIN_OBJECT) {
+                throw new JsonParseException("ingredient at index " + i + " was a " + token + ". Expected object");
+            }
+
+            Fields fields = Fields.read(reader);
+            String type = fields.getString("type");
+            if (type == null) {
+                throw new JsonParseException("ingredient at index " + i + " does not have an ingredient type");
+            }
+
+            NamespacedKey typeKey = NamespacedKeyUtil.fromString(type, Alchema.getInstance());
+            if (typeKey == null) {
+                throw new JsonParseException("Invalid namespaced key \"" + type + "\". Expected format is \"alchema:example\"");
+            }
+
+            CauldronIngredient ingredient = recipeRegistry.readIngredientType(typeKey, fields);
+            if (ingredient == null) {
+                throw new JsonParseException("Could not find ingredient type with id \"" + typeKey + "\"");
+            }
+
+            ingredients.add(ingredient);
+        }
+
+        reader.endArray();
+        return ingredients;
+    }
+
+    /**
+     * The fields of a single JSON object read from a {@link JsonReader}. Primitive values are
+     * held as their string representation. Nested objects and arrays, which are not expected by
+     * built-in types, are held as trees.
+     */
+    static final class Fields {
+
+        private final List<@NotNull String> names = new ArrayList<>(4);
+        private final List<@NotNull JsonToken> tokens = new ArrayList<>(4);
+        private final List<@Nullable Object> values = new ArrayList<>(4);
+
+        private Fields() { }
+
+        /**
+         * Create fields holding the members of the given {@link JsonObject} such that types may
+         * be deserialized from a tree and from a stream by the same code.
+         *
+         * @param object the object
+         *
+         * @return the fields
+         */
+        @NotNull
+        static Fields of(@NotNull JsonObject object) {
+            Preconditions.checkArgument(object != null, "object must not be null");
+
+            Fields fields = new Fields();
+
+            for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+                JsonElement element = member.getValue();
+                JsonToken token;
+                Object value;
+
+                if (element.isJsonNull()) {
+                    token = JsonToken.NULL;
+                    value = null;
+                } else if (element.isJsonObject()) {
+                    token = JsonToken.BEGIN_OBJECT;
+                    value = element;
+                } else if (element.isJsonArray()) {
+                    token = JsonToken.BEGIN_ARRAY;
+                    value = element;
+                } else {
+                    JsonPrimitive primitive = element.getAsJsonPrimitive();
+                    token = primitive.isBoolean() ? JsonToken.BOOLEAN : (primitive.isNumber() ? JsonToken.NUMBER : JsonToken.STRING);
+                    value = primitive.isBoolean() ? (Object) primitive.getAsBoolean() : primitive.getAsString();
+                }
+
+                fields.names.add(member.getKey());
+                fields.tokens.add(token);
+                fields.values.add(value);
+            }
+
+            return fields;
+        }
+
+        @NotNull
+        private static Fields read(@NotNull JsonReader reader) throws IOException {
+            Fields fields = new Fields();
+
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                JsonToken token = reader.peek();
+                Object value;
+
+                switch (token) {
+                    case STRING:
+                    case NUMBER:
+                        value = reader.nextString();
+                        break;
+                    case BOOLEAN:
+                        value = reader.nextBoolean();
+                        break;
+                    case NULL:
+                        reader.nextNull();
+                        value = null;
+                        break;
+                    default:
+                        value = JsonParser.parseReader(reader);
+                        break;
+                }
+
+                // Later duplicates override earlier ones, as they would in a tree
+                int index = fields.names.indexOf(name);
+                if (index != -1) {
+                    fields.names.remove(index);
+                    fields.tokens.remove(index);
+                    fields.values.remove(index);
+                }
+
+                fields.names.add(name);
+                fields.tokens.add(token);
+                fields.values.add(value);
+            }
+
+            reader.endObject();
+            return fields;
+        }
+
+        /**
+         * Check whether or not a field with the given name is present.
+         *
+         * @param name the name of the field
+         *
+         * @return true if present, false otherwise
+         */
+        boolean has(@NotNull String name) {
+            return names.contains(name);
+        }
+
+        /**
+         * Get the value of the given field as a string.
+         *
+         * @param name the name of the field
+         *
+         * @return the value. null if not present or null
+         *
+         * @throws JsonParseException if the value is an object or array
+         */
+        @Nullable
+        String getString(@NotNull String name) {
+            int index = names.indexOf(name);
+            if (index == -1) {
+                return null;
+            }
+
+            Object value = values.get(index);
+            if (value instanceof JsonElement) {
+                throw new JsonParseException(name + " was a " + tokens.get(index) + ". Expected primitive");
+            }
+
+            return value != null ? value.toString() : null;
+        }
+
+        /**
+         * Get the value of the given field as an int.
+         *
+         * @param name the name of the field
+         * @param defaultValue the value to return if the field is not present
+         *
+         * @return the value
+         *
+         * @throws JsonParseException if the value is not a valid int
+         */
+        int getInt(@NotNull String name, int defaultValue) {
+            if (!has(name)) {
+                return defaultValue;
+            }
+
+            String value = getString(name);
+            if (value == null) {
+                throw new JsonParseException("Expected " + name + " to be an int. Got: null");
+            }
+
+            return parseInt(name, value);
+        }
+
+        /**
+         * Convert these fields to a {@link JsonObject} for providers that require a tree.
+         *
+         * @return the object
+         */
+        @NotNull
+        JsonObject toJsonObject() {
+            JsonObject object = new JsonObject();
+
+            for (int i = 0; i < names.size(); i++) {
+                Object value = values.get(i);
+                JsonElement element;
+
+                if (value == null) {
+                    element = JsonNull.INSTANCE;
+                } else if (value instanceof JsonElement jsonElement) {
+                    element = jsonElement;
+                } else if (value instanceof Boolean booleanValue) {
+                    element = new JsonPrimitive(booleanValue);
+                } else if (tokens.get(i) == JsonToken.NUMBER) {
+                    element = new JsonPrimitive(new BigDecimal(value.toString()));
+                } else {
+                    element = new JsonPrimitive(value.toString());
+                }
+
+                object.add(names.get(i), element);
+            }
+
+            return object;
+        }
+
+    }
+
+}
@@ -28,16 +28,18 @@ class SimpleCauldronRecipe implements CauldronRecipe {
     private final String name, description, comment;
     private final String craftingPermission;
     private final int experience;
+    private final int brewTime;
 
     private final List<CauldronIngredient> ingredients = new ArrayList<>();
 
-    SimpleCauldronRecipe(@NotNull NamespacedKey key, @NotNull CauldronRecipeResult result, @Nullable String name, @Nullable String description, @Nullable String comment, int experience, @NotNull List<@NotNull CauldronIngredient> ingredients) {
+    SimpleCauldronRecipe(@NotNull NamespacedKey key, @NotNull CauldronRecipeResult result, @Nullable String name, @Nullable String description, @Nullable String comment, int experience, int brewTime, @NotNull List<@NotNull CauldronIngredient> ingredients) {
         Preconditions.checkArgument(key != null, "key must not be null");
         Preconditions.checkArgument(result != null, "result must not be null");
 
         this.key = key;
         this.result = result;
         this.experience = experience;
+        this.brewTime = brewTime;
 
         this.name = name;
         this.description = description;
@@ -94,6 +96,11 @@ class SimpleCauldronRecipe implements CauldronRecipe {
         return experience;
     }
 
+    @Override
+    public int getBrewTime() {
+        return brewTime;
+    }
+
     @Override
     public boolean hasIngredient(@NotNull CauldronIngredient ingredient) {
         Preconditions.checkArgument(ingredient != null, "ingredient must not be null");
@@ -164,7 +171,7 @@ class SimpleCauldronRecipe implements CauldronRecipe {
 
     @Override
     public int hashCode() {
-        return Objects.hash(key, experience, ingredients, name, description, comment, result);
+        return Objects.hash(key, experience, brewTime, ingredients, name, description, comment, result);
     }
 
     @Override
@@ -177,7 +184,7 @@ class SimpleCauldronRecipe implements CauldronRecipe {
             return false;
         }
 
-        return experience == other.experience && Objects.equals(key, other.key) && Objects.equals(comment, other.comment)
+        return experience == other.experience && brewTime == other.brewTime && Objects.equals(key, other.key) && Objects.equals(comment, other.comment)
                 && Objects.equals(name, other.name) && Objects.equals(description, other.description)
                 && Objects.equals(result, other.result) && Objects.equals(ingredients, other.ingredients);
     }
@@ -0,0 +1,197 @@
+package wtf.choco.alchema.essence;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.metadata.FixedMetadataValue;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.util.AlchemaConstants;
+import wtf.choco.alchema.util.TimerWheel;
+
+/**
+ * Tracks the entities whose essence was recently extracted by a player with a vial and may not
+ * have it extracted again until their cooldown ends.
+ * <p>
+ * Cooldowns are keyed by entity UUID and expire through a {@link TimerWheel} advanced in 50
+ * millisecond ticks, so checking, starting and expiring a cooldown are all constant time
+ * operations and only entities that are both loaded and on cooldown are held in memory. When an
+ * entity is unloaded, the time at which its cooldown ends is written to its
+ * {@link PersistentDataContainer} and the cooldown is released. It is read back (and removed
+ * from the container) when the entity is loaded again, including after a restart. Cooldowns of
+ * entities that are still loaded when the server stops unexpectedly are lost.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class EssenceExtractionCooldowns implements Listener {
+
+    private static final long MILLIS_PER_TICK = 50;
+    private static final int TIMER_WHEEL_SLOTS = 4096;
+
+    private final Map<@NotNull UUID, TimerWheel.@NotNull Timeout> cooldowns = new HashMap<>();
+    private final TimerWheel timerWheel = new TimerWheel(TIMER_WHEEL_SLOTS, currentTick());
+
+    private final Alchema plugin;
+
+    /**
+     * Construct a new {@link EssenceExtractionCooldowns}.
+     *
+     * @param plugin the plugin instance
+     */
+    public EssenceExtractionCooldowns(@NotNull Alchema plugin) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+
+        this.plugin = plugin;
+    }
+
+    /**
+     * Start a cooldown for the given entity, replacing any cooldown it is already on.
+     *
+     * @param entity the entity
+     * @param durationMillis the duration (in milliseconds) of the cooldown. Must be {@literal >=} 1
+     */
+    public void startCooldown(@NotNull Entity entity, long durationMillis) {
+        Preconditions.checkArgument(entity != null, "entity must not be null");
+        Preconditions.checkArgument(durationMillis >= 1, "durationMillis must be >= 1");
+
+        this.schedule(entity.getUniqueId(), System.currentTimeMillis() + durationMillis);
+
+        if (plugin.getTransientStateStore().isBukkitMetadataEnabled()) {
+            entity.setMetadata(AlchemaConstants.METADATA_KEY_INTERACTED_WITH_VIAL, new FixedMetadataValue(plugin, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Check whether or not the given entity is on cooldown.
+     *
+     * @param entity the entity to check
+     *
+     * @return true if on cooldown, false otherwise
+     */
+    public synchronized boolean isOnCooldown(@NotNull Entity entity) {
+        this.timerWheel.advance(currentTick());
+        return cooldowns.containsKey(entity.getUniqueId());
+    }
+
+    /**
+     * Get the amount of entities currently on cooldown.
+     *
+     * @return the amount of entities
+     */
+    public synchronized int size() {
+        this.timerWheel.advance(currentTick());
+        return cooldowns.size();
+    }
+
+    /**
+     * Write the cooldowns of all loaded entities to their persistent data containers and release
+     * them. This is intended to be called when Alchema is disabled.
+     */
+    public void persistAll() {
+        List<UUID> entityUUIDs;
+        synchronized (this) {
+            entityUUIDs = new ArrayList<>(cooldowns.keySet());
+        }
+
+        for (UUID entityUUID : entityUUIDs) {
+            Entity entity = Bukkit.getEntity(entityUUID);
+            if (entity != null) {
+                this.persist(entity);
+            }
+        }
+    }
+
+    /**
+     * Read the cooldowns of all loaded entities from their persistent data containers. This is
+     * intended to be called when Alchema is enabled such that entities loaded before (e.g.
+     * during a reload) are known.
+     */
+    public void restoreAll() {
+        for (World world : Bukkit.getWorlds()) {
+            world.getEntities().forEach(this::restore);
+        }
+    }
+
+    /**
+     * Cancel and release all cooldowns without persisting them.
+     */
+    public synchronized void clear() {
+        this.cooldowns.clear();
+        this.timerWheel.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntitiesLoad(EntitiesLoadEvent event) {
+        event.getEntities().forEach(this::restore);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntitiesUnload(EntitiesUnloadEvent event) {
+        event.getEntities().forEach(this::persist);
+    }
+
+    private void persist(@NotNull Entity entity) {
+        TimerWheel.Timeout timeout;
+        synchronized (this) {
+            timeout = cooldowns.remove(entity.getUniqueId());
+            if (timeout == null || !timeout.cancel()) {
+                return;
+            }
+        }
+
+        entity.getPersistentDataContainer().set(AlchemaConstants.NBT_KEY_ESSENCE_EXTRACTION_COOLDOWN, PersistentDataType.LONG, timeout.getDeadline() * MILLIS_PER_TICK);
+    }
+
+    private void restore(@NotNull Entity entity) {
+        PersistentDataContainer container = entity.getPersistentDataContainer();
+        Long cooldownEnd = container.get(AlchemaConstants.NBT_KEY_ESSENCE_EXTRACTION_COOLDOWN, PersistentDataType.LONG);
+        if (cooldownEnd == null) {
+            return;
+        }
+
+        // Held in memory while loaded. Written back only if still on cooldown when unloaded
+        container.remove(AlchemaConstants.NBT_KEY_ESSENCE_EXTRACTION_COOLDOWN);
+
+        if (cooldownEnd > System.currentTimeMillis()) {
+            this.schedule(entity.getUniqueId(), cooldownEnd);
+        }
+    }
+
+    private synchronized void schedule(@NotNull UUID entityUUID, long cooldownEndMillis) {
+        long currentTick = currentTick();
+        this.timerWheel.advance(currentTick);
+
+        // Rounded up such that a cooldown never ends early
+        long deadline = (cooldownEndMillis + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK;
+        int delay = (int) Math.min(Math.max(deadline - currentTick, 1), Integer.MAX_VALUE);
+
+        // Replaced timeouts are cancelled, so an expiring timeout is always the one mapped to its entity
+        TimerWheel.Timeout previous = cooldowns.put(entityUUID, timerWheel.schedule(() -> cooldowns.remove(entityUUID), delay));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private static long currentTick() {
+        return System.currentTimeMillis() / MILLIS_PER_TICK;
+    }
+
+}
@@ -0,0 +1,36 @@
+package wtf.choco.alchema.listener;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import wtf.choco.alchema.cauldron.CauldronPlayerCache;
+
+public final class CauldronPlayerCacheListener implements Listener {
+
+    private final CauldronPlayerCache playerCache;
+
+    public CauldronPlayerCacheListener(CauldronPlayerCache playerCache) {
+        this.playerCache = playerCache;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    private void onJoin(PlayerJoinEvent event) {
+        this.playerCache.addPlayer(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(PlayerQuitEvent event) {
+        this.playerCache.removePlayer(event.getPlayer());
+    }
+
+    // Permission plugins commonly grant permissions per world
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onChangeWorld(PlayerChangedWorldEvent event) {
+        this.playerCache.invalidatePermissions(event.getPlayer());
+    }
+
+}
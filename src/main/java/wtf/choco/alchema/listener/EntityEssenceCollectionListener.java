@@ -1,6 +1,7 @@
 package wtf.choco.alchema.listener;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.ComponentBuilder;
@@ -24,7 +25,6 @@ import org.bukkit.event.player.PlayerInteractEntityEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
-import org.bukkit.metadata.FixedMetadataValue;
 import org.jetbrains.annotations.NotNull;
 
 import wtf.choco.alchema.Alchema;
@@ -155,7 +155,7 @@ public final class EntityEssenceCollectionListener implements Listener {
             player.playSound(player.getLocation(), Sound.ITEM_BOTTLE_FILL, 1.0F, 1.25F);
 
             if (!creativeMode) {
-                entity.setMetadata(AlchemaConstants.METADATA_KEY_INTERACTED_WITH_VIAL, new FixedMetadataValue(plugin, System.currentTimeMillis()));
+                this.markInteractedWithVial(entity, config);
             }
         }
 
@@ -210,11 +210,18 @@ public final class EntityEssenceCollectionListener implements Listener {
             player.playSound(player.getLocation(), Sound.ITEM_BOTTLE_FILL, 1.0F, 1.25F);
 
             if (!creativeMode) {
-                entity.setMetadata(AlchemaConstants.METADATA_KEY_INTERACTED_WITH_VIAL, new FixedMetadataValue(plugin, System.currentTimeMillis()));
+                this.markInteractedWithVial(entity, config);
             }
         }
     }
 
+    private void markInteractedWithVial(Entity entity, FileConfiguration config) {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(config.getInt(AlchemaConstants.CONFIG_VIAL_OF_ESSENCE_FROM_ENTITIES_ON_INTERACT_TIMEOUT_SECONDS, 300));
+        if (timeoutMillis > 0) {
+            this.plugin.getEssenceExtractionCooldowns().startCooldown(entity, timeoutMillis);
+        }
+    }
+
     private int getRandomEssenceAmount(ThreadLocalRandom random, FileConfiguration config, String minPath, int minDefault, String maxPath, int maxDefault) {
         int minimumEssence = config.getInt(minPath, minDefault);
         int maximumEssence = config.getInt(maxPath, maxDefault);
@@ -0,0 +1,535 @@
+package wtf.choco.alchema.storage;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads and writes cauldron records in Alchema's binary cauldrons.dat format.
+ * <p>
+ * A file starts with a magic number and a format version followed by a palette of strings
+ * (ingredient types, ingredient property names, short property values such as materials and
+ * entity types, and recipe keys) which are referenced by index throughout the rest of the
+ * file. Cauldrons are grouped by world and then by chunk such that the world UUID and chunk
+ * coordinates are written once per group, and every cauldron's position is written relative to
+ * its chunk. Integers are written as variable length integers (zig-zag encoded where they may
+ * be negative). Each ingredient is prefixed by its type and the length of its payload.
+ * <p>
+ * Single ingredients may also be encoded on their own (e.g. for the {@link CauldronJournal}),
+ * in which case the ingredient is preceded by a palette of only the strings it references.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class CauldronBinaryCodec {
+
+    private static final int MAGIC = 0x414C4344; // "ALCD"
+    private static final int VERSION = 1;
+
+    private static final byte FLAG_HEATING_UP = 1, FLAG_BUBBLING = 1 << 1, FLAG_HEATING_START_TIME = 1 << 2, FLAG_BREWING = 1 << 3;
+
+    private static final byte TAG_PALETTE_STRING = 0, TAG_STRING = 1, TAG_INTEGER = 2, TAG_NUMBER = 3, TAG_BOOLEAN = 4, TAG_JSON = 5;
+
+    // Longer strings (e.g. serialized items) are unlikely to repeat and are written inline instead
+    private static final int MAX_PALETTE_STRING_LENGTH = 64;
+
+    private CauldronBinaryCodec() { }
+
+    /**
+     * Read all records from the given file.
+     *
+     * @param file the file from which to read
+     * @param logger the logger to which invalid cauldrons should be logged
+     *
+     * @return the records
+     *
+     * @throws IOException if the file could not be read or is not a valid cauldrons.dat file
+     */
+    @NotNull
+    static List<@NotNull CauldronRecord> read(@NotNull Path file, @NotNull Logger logger) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        }
+
+        buffer.flip();
+
+        try {
+            return read(buffer, file, logger);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException(file.getFileName() + " is truncated or corrupt", e);
+        }
+    }
+
+    @NotNull
+    private static List<@NotNull CauldronRecord> read(@NotNull ByteBuffer buffer, @NotNull Path file, @NotNull Logger logger) throws IOException {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException(file.getFileName() + " is not a cauldron file");
+        }
+
+        int version = readVarInt(buffer);
+        if (version > VERSION) {
+            throw new IOException(file.getFileName() + " was written by a newer version of Alchema (format version " + version + ")");
+        }
+
+        String[] palette = readPalette(buffer);
+        List<CauldronRecord> records = new ArrayList<>();
+
+        int worldCount = readCount(buffer, Long.BYTES * 2);
+        for (int worldIndex = 0; worldIndex < worldCount; worldIndex++) {
+            UUID world = new UUID(buffer.getLong(), buffer.getLong());
+
+            int chunkCount = readCount(buffer, 3);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                int chunkX = readSignedVarInt(buffer), chunkZ = readSignedVarInt(buffer);
+
+                int cauldronCount = readCount(buffer, 4);
+                for (int cauldronIndex = 0; cauldronIndex < cauldronCount; cauldronIndex++) {
+                    int localXZ = buffer.get() & 0xFF;
+                    CauldronPosition position = new CauldronPosition(world, (chunkX << 4) | (localXZ >> 4), readSignedVarInt(buffer), (chunkZ << 4) | (localXZ & 15));
+
+                    byte flags = buffer.get();
+                    long heatingStartTime = ((flags & FLAG_HEATING_START_TIME) != 0) ? readVarLong(buffer) : -1;
+
+                    int ingredientCount = readCount(buffer, 2);
+                    List<JsonObject> ingredients = new ArrayList<>(ingredientCount);
+                    for (int i = 0; i < ingredientCount; i++) {
+                        String type = palette[readVarInt(buffer)];
+                        int payloadLength = readCount(buffer, 1);
+                        int payloadEnd = buffer.position() + payloadLength;
+
+                        try {
+                            ingredients.add(readIngredient(buffer, type, palette));
+                        } catch (JsonParseException e) {
+                            logger.warning("Could not read ingredient of type " + type + " for cauldron at " + position + ". Reason: " + e.getMessage());
+                        }
+
+                        buffer.position(payloadEnd);
+                    }
+
+                    NamespacedKey brewingRecipeKey = null;
+                    int brewTicksRemaining = 0;
+                    if ((flags & FLAG_BREWING) != 0) {
+                        String recipeKey = palette[readVarInt(buffer)];
+                        brewTicksRemaining = readVarInt(buffer);
+                        brewingRecipeKey = NamespacedKey.fromString(recipeKey);
+
+                        if (brewingRecipeKey == null) {
+                            logger.warning("Invalid brewing recipe key \"" + recipeKey + "\" for cauldron at " + position + ". Brewing will not resume.");
+                        }
+                    }
+
+                    records.add(new CauldronRecord(position, heatingStartTime, (flags & FLAG_HEATING_UP) != 0, (flags & FLAG_BUBBLING) != 0, ingredients, brewingRecipeKey, brewTicksRemaining));
+                }
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Decode a single ingredient encoded with {@link #encodeIngredient(JsonObject)}.
+     *
+     * @param bytes the encoded ingredient
+     *
+     * @return the ingredient, serialized with its "type" key
+     *
+     * @throws IOException if the encoded ingredient is truncated or corrupt
+     */
+    @NotNull
+    static JsonObject decodeIngredient(@NotNull byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            String[] palette = readPalette(buffer);
+            String type = palette[readVarInt(buffer)];
+            return readIngredient(buffer, type, palette);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | JsonParseException e) {
+            throw new IOException("Encoded ingredient is truncated or corrupt", e);
+        }
+    }
+
+    @NotNull
+    private static String[] readPalette(@NotNull ByteBuffer buffer) throws IOException {
+        String[] palette = new String[readCount(buffer, 1)];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = readString(buffer);
+        }
+
+        return palette;
+    }
+
+    @NotNull
+    private static JsonObject readIngredient(@NotNull ByteBuffer buffer, @NotNull String type, @NotNull String[] palette) throws IOException {
+        JsonObject object = new JsonObject();
+        object.addProperty("type", type);
+
+        int propertyCount = readCount(buffer, 2);
+        for (int i = 0; i < propertyCount; i++) {
+            String name = palette[readVarInt(buffer)];
+            object.add(name, readValue(buffer, palette));
+        }
+
+        return object;
+    }
+
+    @NotNull
+    private static JsonElement readValue(@NotNull ByteBuffer buffer, @NotNull String[] palette) throws IOException {
+        byte tag = buffer.get();
+
+        switch (tag) {
+            case TAG_PALETTE_STRING:
+                return new JsonPrimitive(palette[readVarInt(buffer)]);
+            case TAG_STRING:
+                return new JsonPrimitive(readString(buffer));
+            case TAG_INTEGER:
+                return new JsonPrimitive(readSignedVarLong(buffer));
+            case TAG_NUMBER:
+                return new JsonPrimitive(new BigDecimal(readString(buffer)));
+            case TAG_BOOLEAN:
+                return new JsonPrimitive(buffer.get() != 0);
+            case TAG_JSON:
+                return JsonParser.parseString(readString(buffer));
+            default:
+                throw new JsonParseException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Write the given records to the given file, replacing its contents.
+     *
+     * @param file the file to which to write
+     * @param records the records to write
+     *
+     * @throws IOException if the file could not be written
+     */
+    static void write(@NotNull Path file, @NotNull Collection<@NotNull CauldronRecord> records) throws IOException {
+        Map<UUID, Map<Long, List<CauldronRecord>>> recordsByChunk = new LinkedHashMap<>();
+        for (CauldronRecord record : records) {
+            CauldronPosition position = record.getPosition();
+            long chunkKey = ((long) position.getChunkX() << 32) | (position.getChunkZ() & 0xFFFFFFFFL);
+            recordsByChunk.computeIfAbsent(position.getWorld(), world -> new LinkedHashMap<>()).computeIfAbsent(chunkKey, key -> new ArrayList<>()).add(record);
+        }
+
+        // The body is written first such that the palette is complete by the time the header is written
+        Palette palette = new Palette();
+        Output body = new Output(records.size() * 32);
+        Output ingredient = new Output(64);
+
+        body.writeVarInt(recordsByChunk.size());
+        for (Map.Entry<UUID, Map<Long, List<CauldronRecord>>> worldEntry : recordsByChunk.entrySet()) {
+            UUID world = worldEntry.getKey();
+            body.writeLong(world.getMostSignificantBits());
+            body.writeLong(world.getLeastSignificantBits());
+
+            Map<Long, List<CauldronRecord>> chunks = worldEntry.getValue();
+            body.writeVarInt(chunks.size());
+
+            for (List<CauldronRecord> chunkRecords : chunks.values()) {
+                CauldronPosition chunkPosition = chunkRecords.get(0).getPosition();
+                body.writeSignedVarInt(chunkPosition.getChunkX());
+                body.writeSignedVarInt(chunkPosition.getChunkZ());
+                body.writeVarInt(chunkRecords.size());
+
+                for (CauldronRecord record : chunkRecords) {
+                    CauldronPosition position = record.getPosition();
+                    body.writeByte(((position.getX() & 15) << 4) | (position.getZ() & 15));
+                    body.writeSignedVarInt(position.getY());
+
+                    NamespacedKey brewingRecipeKey = record.getBrewingRecipeKey();
+                    int flags = 0;
+                    flags |= record.isHeatingUp() ? FLAG_HEATING_UP : 0;
+                    flags |= record.isBubbling() ? FLAG_BUBBLING : 0;
+                    flags |= (record.getHeatingStartTime() >= 0) ? FLAG_HEATING_START_TIME : 0;
+                    flags |= (brewingRecipeKey != null) ? FLAG_BREWING : 0;
+                    body.writeByte(flags);
+
+                    if (record.getHeatingStartTime() >= 0) {
+                        body.writeVarLong(record.getHeatingStartTime());
+                    }
+
+                    List<JsonObject> ingredients = record.getIngredients();
+                    body.writeVarInt(ingredients.size());
+                    for (JsonObject ingredientObject : ingredients) {
+                        ingredient.clear();
+                        writeIngredient(ingredient, ingredientObject, palette);
+
+                        body.writeVarInt(palette.indexOf(ingredientObject.get("type").getAsString()));
+                        body.writeVarInt(ingredient.size());
+                        body.write(ingredient);
+                    }
+
+                    if (brewingRecipeKey != null) {
+                        body.writeVarInt(palette.indexOf(brewingRecipeKey.toString()));
+                        body.writeVarInt(record.getBrewTicksRemaining());
+                    }
+                }
+            }
+        }
+
+        Output header = new Output(256);
+        header.writeInt(MAGIC);
+        header.writeVarInt(VERSION);
+        header.writeVarInt(palette.strings.size());
+        palette.strings.forEach(header::writeString);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = { header.toBuffer(), body.toBuffer() };
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Encode a single ingredient on its own, preceded by a palette of the strings it references.
+     *
+     * @param ingredient the ingredient, serialized with its "type" key
+     *
+     * @return the encoded ingredient
+     */
+    @NotNull
+    static byte[] encodeIngredient(@NotNull JsonObject ingredient) {
+        Palette palette = new Palette();
+        int type = palette.indexOf(ingredient.get("type").getAsString());
+
+        Output payload = new Output(64);
+        writeIngredient(payload, ingredient, palette);
+
+        Output out = new Output(payload.size() + 64);
+        out.writeVarInt(palette.strings.size());
+        palette.strings.forEach(out::writeString);
+        out.writeVarInt(type);
+        out.write(payload);
+        return out.toByteArray();
+    }
+
+    private static void writeIngredient(@NotNull Output out, @NotNull JsonObject object, @NotNull Palette palette) {
+        int propertyCount = object.has("type") ? object.size() - 1 : object.size();
+        out.writeVarInt(propertyCount);
+
+        for (Map.Entry<String, JsonElement> property : object.entrySet()) {
+            String name = property.getKey();
+            if (name.equals("type")) {
+                continue;
+            }
+
+            out.writeVarInt(palette.indexOf(name));
+
+            JsonElement value = property.getValue();
+            if (!value.isJsonPrimitive()) {
+                out.writeByte(TAG_JSON);
+                out.writeString(value.toString());
+                continue;
+            }
+
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeByte(TAG_BOOLEAN);
+                out.writeByte(primitive.getAsBoolean() ? 1 : 0);
+            } else if (primitive.isNumber()) {
+                String number = primitive.getAsString();
+                try {
+                    long integer = Long.parseLong(number);
+                    out.writeByte(TAG_INTEGER);
+                    out.writeSignedVarLong(integer);
+                } catch (NumberFormatException e) {
+                    out.writeByte(TAG_NUMBER);
+                    out.writeString(number); // Retains the exact textual representation
+                }
+            } else {
+                String string = primitive.getAsString();
+                if (string.length() <= MAX_PALETTE_STRING_LENGTH) {
+                    out.writeByte(TAG_PALETTE_STRING);
+                    out.writeVarInt(palette.indexOf(string));
+                } else {
+                    out.writeByte(TAG_STRING);
+                    out.writeString(string);
+                }
+            }
+        }
+    }
+
+    private static int readVarInt(@NotNull ByteBuffer buffer) {
+        return (int) readVarLong(buffer);
+    }
+
+    // Counts and lengths are checked against the bytes remaining before anything is allocated for them, as corrupt ones may be negative or huge
+    private static int readCount(@NotNull ByteBuffer buffer, int minimumElementBytes) throws IOException {
+        long count = readVarLong(buffer);
+        if (count < 0 || count > buffer.remaining() / minimumElementBytes) {
+            throw new IOException("Count of " + count + " exceeds the " + buffer.remaining() + " bytes remaining");
+        }
+
+        return (int) count;
+    }
+
+    private static int readSignedVarInt(@NotNull ByteBuffer buffer) {
+        return (int) readSignedVarLong(buffer);
+    }
+
+    private static long readSignedVarLong(@NotNull ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(@NotNull ByteBuffer buffer) {
+        long value = 0;
+
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("varint is too long");
+    }
+
+    @NotNull
+    private static String readString(@NotNull ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Strings referenced by index, in the order in which they were first referenced.
+     */
+    private static final class Palette {
+
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        private int indexOf(@NotNull String string) {
+            return indices.computeIfAbsent(string, ignore -> {
+                this.strings.add(string);
+                return strings.size() - 1;
+            });
+        }
+
+    }
+
+    /*
+     * A growable byte buffer with support for variable length integers.
+     */
+    private static final class Output {
+
+        private ByteBuffer buffer;
+
+        private Output(int initialCapacity) {
+            this.buffer = ByteBuffer.allocate(Math.max(initialCapacity, 16));
+        }
+
+        private void writeByte(int value) {
+            this.ensureCapacity(1);
+            this.buffer.put((byte) value);
+        }
+
+        private void writeInt(int value) {
+            this.ensureCapacity(Integer.BYTES);
+            this.buffer.putInt(value);
+        }
+
+        private void writeLong(long value) {
+            this.ensureCapacity(Long.BYTES);
+            this.buffer.putLong(value);
+        }
+
+        private void writeVarInt(int value) {
+            this.writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeSignedVarInt(int value) {
+            this.writeSignedVarLong(value);
+        }
+
+        private void writeSignedVarLong(long value) {
+            this.writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) {
+            this.ensureCapacity(10);
+
+            while ((value & ~0x7FL) != 0) {
+                this.buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+
+            this.buffer.put((byte) value);
+        }
+
+        private void writeString(@NotNull String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            this.writeVarInt(bytes.length);
+            this.ensureCapacity(bytes.length);
+            this.buffer.put(bytes);
+        }
+
+        private void write(@NotNull Output other) {
+            this.ensureCapacity(other.size());
+            this.buffer.put(other.buffer.array(), 0, other.size());
+        }
+
+        private int size() {
+            return buffer.position();
+        }
+
+        private void clear() {
+            this.buffer.clear();
+        }
+
+        @NotNull
+        private ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        }
+
+        @NotNull
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+
+            ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            newBuffer.put(buffer.array(), 0, buffer.position());
+            this.buffer = newBuffer;
+        }
+
+    }
+
+}
@@ -0,0 +1,164 @@
+package wtf.choco.alchema.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a format in which cauldrons may be saved to a single file.
+ *
+ * @author Parker Hawke - Choco
+ */
+public enum CauldronFileFormat {
+
+    /**
+     * The human readable cauldrons.json format.
+     */
+    JSON("cauldrons.json"),
+
+    /**
+     * The cauldrons.json format, GZIP compressed.
+     */
+    JSON_GZIP("cauldrons.json.gz"),
+
+    /**
+     * The compact, binary cauldrons.dat format.
+     *
+     * @see CauldronBinaryCodec
+     */
+    BINARY("cauldrons.dat");
+
+    private final String fileName;
+
+    CauldronFileFormat(@NotNull String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Get the name of the file in which cauldrons are saved in this format.
+     *
+     * @return the file name
+     */
+    @NotNull
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Load all records from this format's file in the given directory. If the file does not
+     * exist but a file written in another format does, its records are migrated to this format
+     * once and the other file is renamed with a ".migrated" suffix.
+     * <p>
+     * A file that cannot be read is moved aside with a ".corrupt" suffix and is treated as if
+     * it did not exist, such that it is never overwritten when cauldrons are next written.
+     *
+     * @param directory the directory containing the file
+     * @param logger the logger to which invalid cauldrons and migrations should be logged
+     *
+     * @return the records. Empty if no file exists
+     *
+     * @throws IOException if the file could not be migrated, or could neither be read nor
+     * moved aside. The file is then still in place and must not be written
+     */
+    @NotNull
+    List<@NotNull CauldronRecord> loadRecords(@NotNull File directory, @NotNull Logger logger) throws IOException {
+        Path file = directory.toPath().resolve(fileName);
+        if (Files.exists(file)) {
+            return readRecordsOrMoveAside(file, logger);
+        }
+
+        for (CauldronFileFormat format : values()) {
+            Path formatFile = directory.toPath().resolve(format.fileName);
+            if (format == this || !Files.exists(formatFile)) {
+                continue;
+            }
+
+            List<CauldronRecord> records = format.readRecordsOrMoveAside(formatFile, logger);
+            if (records.isEmpty() && !Files.exists(formatFile)) {
+                return records;
+            }
+
+            this.writeRecords(file, records);
+            Files.move(formatFile, formatFile.resolveSibling(format.fileName + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+
+            logger.info("Migrated " + records.size() + " cauldrons from " + format.fileName + " to " + fileName + ".");
+            return records;
+        }
+
+        return new ArrayList<>();
+    }
+
+    @NotNull
+    private List<@NotNull CauldronRecord> readRecordsOrMoveAside(@NotNull Path file, @NotNull Logger logger) throws IOException {
+        try {
+            return readRecords(file, logger);
+        } catch (IOException e) {
+            Path corruptFile = file.resolveSibling(file.getFileName() + "." + System.currentTimeMillis() + ".corrupt");
+
+            try {
+                Files.move(file, corruptFile);
+            } catch (IOException moveException) {
+                e.addSuppressed(moveException);
+                throw e;
+            }
+
+            logger.severe("Could not read cauldrons from " + file.getFileName() + ". It was moved to " + corruptFile.getFileName() + " and its cauldrons will not be loaded. Reason: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Read all records from the given file written in this format.
+     *
+     * @param file the file from which to read
+     * @param logger the logger to which invalid cauldrons should be logged
+     *
+     * @return the records
+     *
+     * @throws IOException if the file could not be read
+     */
+    @NotNull
+    List<@NotNull CauldronRecord> readRecords(@NotNull Path file, @NotNull Logger logger) throws IOException {
+        return (this == BINARY) ? CauldronBinaryCodec.read(file, logger) : CauldronJsonCodec.read(file, this == JSON_GZIP, logger);
+    }
+
+    /**
+     * Write the given records to the given file in this format. The records are written to a
+     * temporary file first which is then moved over the previous file such that a crash never
+     * leaves a partially written file behind. If there are no records, the file is deleted.
+     *
+     * @param file the file to which to write
+     * @param records the records to write
+     *
+     * @throws IOException if the file could not be written
+     */
+    void writeRecords(@NotNull Path file, @NotNull Collection<@NotNull CauldronRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        if (this == BINARY) {
+            CauldronBinaryCodec.write(temporary, records);
+        } else {
+            CauldronJsonCodec.write(temporary, this == JSON_GZIP, records);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+
+/**
+ * Persists alchemical cauldrons to a single file in a {@link CauldronFileFormat}.
+ * <p>
+ * The most recently saved {@link CauldronRecord} of every cauldron is kept in memory. When
+ * saving, only cauldrons whose state has changed since the last save are snapshot (on the
+ * calling thread, which should own the cauldrons) and the file is then written from the
+ * records on a dedicated writer thread. The file is written to a temporary file first and
+ * moved over the previous file such that a crash during a save never leaves a partially
+ * written file behind. If the file cannot be read and cannot be moved aside either, cauldrons
+ * are not saved at all such that the file is never overwritten.
+ * <p>
+ * Only cauldrons in loaded chunks are created when loading. All others are held as dormant
+ * records by a {@link CauldronMaterializer} until their chunk is loaded.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class CauldronFileStorage implements CauldronStorage, Listener {
+
+    private final Map<@NotNull CauldronPosition, @NotNull CauldronRecord> records = new ConcurrentHashMap<>();
+    private volatile boolean recordsChanged = false, loaded = false;
+
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Alchema Cauldron Writer").setDaemon(true).build());
+
+    private final Alchema plugin;
+    private final File directory;
+    private final CauldronFileFormat format;
+    private final CauldronMaterializer materializer;
+
+    /**
+     * Construct a new {@link CauldronFileStorage}.
+     *
+     * @param plugin the plugin instance
+     * @param directory the directory in which the cauldron file is located
+     * @param format the format in which cauldrons are written
+     */
+    public CauldronFileStorage(@NotNull Alchema plugin, @NotNull File directory, @NotNull CauldronFileFormat format) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(directory != null, "directory must not be null");
+        Preconditions.checkArgument(format != null, "format must not be null");
+
+        this.plugin = plugin;
+        this.directory = directory;
+        this.format = format;
+        this.materializer = new CauldronMaterializer(plugin, record -> {
+            this.records.remove(record.getPosition());
+            this.recordsChanged = true;
+        });
+    }
+
+    @Override
+    public void loadCauldrons() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, this::readCauldrons);
+    }
+
+    private void readCauldrons() {
+        List<CauldronRecord> loadedRecords;
+        try {
+            loadedRecords = format.loadRecords(directory, plugin.getLogger());
+        } catch (IOException e) {
+            // The file is still in place. Never mark as loaded, else the next save would overwrite it
+            this.plugin.getLogger().severe("Could not read cauldrons from " + format.getFileName() + ". Cauldrons will not be saved until it can be read (or is removed) and the server is restarted. Reason: " + e.getMessage());
+            return;
+        }
+
+        // Cauldrons that are not created (e.g. in worlds that are not loaded) are kept as they are such that they are not lost
+        loadedRecords.forEach(record -> records.put(record.getPosition(), record));
+
+        new CauldronLoadTask(plugin, loadedRecords, materializer::materialize, () -> this.loaded = true).start();
+    }
+
+    @Override
+    public void removeCauldron(@NotNull AlchemicalCauldron cauldron) {
+        if (records.remove(CauldronPosition.of(cauldron.getCauldronBlock())) != null) {
+            this.recordsChanged = true;
+        }
+    }
+
+    @Override
+    public void save() {
+        // Never write before the file has been read, else it would be overwritten
+        if (!loaded || !collectChanges()) {
+            return;
+        }
+
+        List<CauldronRecord> records = new ArrayList<>(this.records.values());
+        this.writeExecutor.execute(() -> write(records));
+    }
+
+    @Override
+    public void close() {
+        this.save();
+        this.writeExecutor.shutdown();
+
+        try {
+            if (!writeExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                this.plugin.getLogger().warning("Timed out while waiting for cauldrons to be saved.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventHandler
+    private void onChunkLoad(ChunkLoadEvent event) {
+        this.materializer.loadChunk(event.getChunk());
+    }
+
+    @EventHandler
+    private void onWorldLoad(WorldLoadEvent event) {
+        this.materializer.loadWorld(event.getWorld());
+    }
+
+    // Changes are collected first such that the evicted cauldrons are saved as they were
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(WorldUnloadEvent event) {
+        if (collectChanges()) {
+            this.recordsChanged = true;
+        }
+
+        this.materializer.unloadWorld(event.getWorld());
+    }
+
+    private boolean collectChanges() {
+        boolean changed = recordsChanged;
+        this.recordsChanged = false;
+
+        for (AlchemicalCauldron cauldron : plugin.getCauldronManager().getCauldrons()) {
+            if (!cauldron.isDirty()) {
+                continue;
+            }
+
+            CauldronRecord record = cauldron.toRecord();
+            cauldron.setDirty(false);
+
+            this.records.put(record.getPosition(), record);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private void write(@NotNull List<@NotNull CauldronRecord> records) {
+        try {
+            this.format.writeRecords(directory.toPath().resolve(format.getFileName()), records);
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("Could not save cauldrons. They will be saved again with the next save. Reason: " + e.getMessage());
+            this.recordsChanged = true;
+        }
+    }
+
+}
@@ -0,0 +1,502 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An append-only binary journal of changes made to cauldrons since the last base snapshot.
+ * <p>
+ * The journal starts with a header (a magic number and format version) followed by any number
+ * of groups of entries. Each group is prefixed by its length and a CRC32 checksum of its
+ * contents such that a group torn by a crash is detected and discarded when the journal is
+ * replayed. Every entry sets part of the state of a single cauldron rather than describing a
+ * relative change. Ingredients are journaled individually, each in the encoding of the
+ * {@link CauldronBinaryCodec}, as the ingredient set at an index (or appended) and the size to
+ * which the ingredients are truncated. Removing an ingredient sets those after it one index
+ * lower before truncating, such that replaying the journal onto a snapshot that already
+ * contains some or all of its entries is harmless.
+ * <p>
+ * A journal is not thread safe and should only be used from a single thread.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class CauldronJournal implements Closeable {
+
+    private static final int MAGIC = 0x414C434A; // "ALCJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int GROUP_HEADER_SIZE = Integer.BYTES * 2;
+
+    private static final byte OP_ADD = 1, OP_REMOVE = 2, OP_STATE = 3, OP_BREWING = 4, OP_SET_INGREDIENT = 5, OP_TRUNCATE_INGREDIENTS = 6;
+
+    private final Path file;
+    private FileChannel channel;
+
+    /**
+     * Construct a new {@link CauldronJournal}. The journal must be opened with
+     * {@link #open(Map, Logger)} before it can be appended to.
+     *
+     * @param file the journal file
+     */
+    CauldronJournal(@NotNull Path file) {
+        Preconditions.checkArgument(file != null, "file must not be null");
+        this.file = file;
+    }
+
+    /**
+     * Open this journal, replaying all of its entries onto the given records. A partially
+     * written group at the end of the journal is logged and discarded.
+     *
+     * @param records the records onto which entries should be replayed
+     * @param logger the logger to which discarded groups should be logged
+     *
+     * @return the amount of replayed entries
+     *
+     * @throws IOException if the journal could not be opened or is not a cauldron journal
+     */
+    int open(@NotNull Map<@NotNull CauldronPosition, @NotNull CauldronRecord> records, @NotNull Logger logger) throws IOException {
+        Preconditions.checkState(channel == null, "journal is already open");
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            this.channel.truncate(0);
+            this.writeFully(header, 0);
+            this.channel.force(false);
+            this.channel.position(HEADER_SIZE);
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException(file.getFileName() + " is not a cauldron journal");
+        }
+
+        int version = buffer.getInt();
+        if (version > VERSION) {
+            throw new IOException(file.getFileName() + " was written by a newer version of Alchema (journal version " + version + ")");
+        }
+
+        int entries = 0;
+        long validEnd = buffer.position();
+
+        while (buffer.remaining() >= GROUP_HEADER_SIZE) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            try {
+                entries += readGroup(payload, records);
+            } catch (IOException | JsonParseException | IllegalArgumentException e) {
+                break;
+            }
+
+            validEnd = buffer.position();
+        }
+
+        if (validEnd < size) {
+            logger.warning("Discarded " + (size - validEnd) + " bytes of partially written changes at the end of " + file.getFileName() + ".");
+            this.channel.truncate(validEnd);
+        }
+
+        this.channel.position(validEnd);
+        return entries;
+    }
+
+    /**
+     * Check whether or not this journal has no entries.
+     *
+     * @return true if empty, false otherwise
+     *
+     * @throws IOException if the size of the journal could not be read
+     */
+    boolean isEmpty() throws IOException {
+        return channel.size() <= HEADER_SIZE;
+    }
+
+    /**
+     * Append the given entries as a single group and force them to disk.
+     *
+     * @param entries the entries to append
+     *
+     * @throws IOException if the entries could not be written
+     */
+    void append(@NotNull List<@NotNull Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Entry entry : entries) {
+                writeEntry(out, entry);
+            }
+        }
+
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(GROUP_HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+        long position = channel.position();
+        try {
+            this.writeFully(buffer, position);
+            this.channel.force(false);
+            this.channel.position(position + buffer.limit());
+        } catch (IOException e) {
+            // Do not leave a torn group behind that would hide groups appended after it
+            this.channel.truncate(position);
+            throw e;
+        }
+    }
+
+    /**
+     * Discard all entries in this journal. This should be called once all entries have been
+     * folded into a base snapshot.
+     *
+     * @throws IOException if the journal could not be truncated
+     */
+    void truncate() throws IOException {
+        this.channel.truncate(HEADER_SIZE);
+        this.channel.force(false);
+        this.channel.position(HEADER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    private void writeFully(@NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeEntry(@NotNull DataOutputStream out, @NotNull Entry entry) throws IOException {
+        writeEntryHeader(out, entry.operation, entry.position);
+
+        CauldronRecord record = entry.record;
+        switch (entry.operation) {
+            case OP_ADD:
+                writeState(out, record);
+                writeBrewing(out, record);
+
+                // Ingredients follow as individual entries
+
+                List<JsonObject> ingredients = record.getIngredients();
+                for (int i = 0; i < ingredients.size(); i++) {
+                    writeEntryHeader(out, OP_SET_INGREDIENT, entry.position);
+                    writeIngredient(out, i, ingredients.get(i));
+                }
+                break;
+            case OP_STATE:
+                writeState(out, record);
+                break;
+            case OP_SET_INGREDIENT:
+                writeIngredient(out, entry.index, entry.ingredient);
+                break;
+            case OP_TRUNCATE_INGREDIENTS:
+                out.writeInt(entry.index);
+                break;
+            case OP_BREWING:
+                writeBrewing(out, record);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeEntryHeader(@NotNull DataOutputStream out, byte operation, @NotNull CauldronPosition position) throws IOException {
+        out.writeByte(operation);
+        out.writeLong(position.getWorld().getMostSignificantBits());
+        out.writeLong(position.getWorld().getLeastSignificantBits());
+        out.writeInt(position.getX());
+        out.writeInt(position.getY());
+        out.writeInt(position.getZ());
+    }
+
+    private static void writeState(@NotNull DataOutputStream out, @NotNull CauldronRecord record) throws IOException {
+        out.writeLong(record.getHeatingStartTime());
+        out.writeByte((record.isHeatingUp() ? 1 : 0) | (record.isBubbling() ? 2 : 0));
+    }
+
+    private static void writeIngredient(@NotNull DataOutputStream out, int index, @NotNull JsonObject ingredient) throws IOException {
+        byte[] ingredientBytes = CauldronBinaryCodec.encodeIngredient(ingredient);
+        out.writeInt(index);
+        out.writeInt(ingredientBytes.length);
+        out.write(ingredientBytes);
+    }
+
+    private static void writeBrewing(@NotNull DataOutputStream out, @NotNull CauldronRecord record) throws IOException {
+        NamespacedKey brewingRecipeKey = record.getBrewingRecipeKey();
+        out.writeBoolean(brewingRecipeKey != null);
+
+        if (brewingRecipeKey != null) {
+            out.writeUTF(brewingRecipeKey.toString());
+            out.writeInt(record.getBrewTicksRemaining());
+        }
+    }
+
+    private static int readGroup(byte[] payload, @NotNull Map<@NotNull CauldronPosition, @NotNull CauldronRecord> records) throws IOException {
+        int entries = 0;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            while (in.available() > 0) {
+                byte operation = in.readByte();
+                CauldronPosition position = new CauldronPosition(new UUID(in.readLong(), in.readLong()), in.readInt(), in.readInt(), in.readInt());
+                CauldronRecord record = records.get(position);
+
+                switch (operation) {
+                    case OP_ADD:
+                        record = new CauldronRecord(position, -1, false, false, List.of(), null, 0);
+                        record = readState(in, record);
+                        record = readBrewing(in, record);
+                        records.put(position, record);
+                        break;
+                    case OP_REMOVE:
+                        records.remove(position);
+                        break;
+                    case OP_STATE:
+                        record = readState(in, record);
+                        break;
+                    case OP_SET_INGREDIENT:
+                        record = readSetIngredient(in, record);
+                        break;
+                    case OP_TRUNCATE_INGREDIENTS:
+                        record = readTruncateIngredients(in, record);
+                        break;
+                    case OP_BREWING:
+                        record = readBrewing(in, record);
+                        break;
+                    default:
+                        throw new IOException("Unknown journal operation: " + operation);
+                }
+
+                // Changes to cauldrons that were never added (e.g. a lost base snapshot) are read but ignored
+                if (operation != OP_ADD && operation != OP_REMOVE && record != null) {
+                    records.put(position, record);
+                }
+
+                entries++;
+            }
+        }
+
+        return entries;
+    }
+
+    @Nullable
+    private static CauldronRecord readState(@NotNull DataInputStream in, @Nullable CauldronRecord record) throws IOException {
+        long heatingStartTime = in.readLong();
+        int flags = in.readByte();
+        return (record != null) ? record.withState(heatingStartTime, (flags & 1) != 0, (flags & 2) != 0) : null;
+    }
+
+    // An index past the end is only journaled before a truncation already contained in the snapshot, so it is skipped
+    @Nullable
+    private static CauldronRecord readSetIngredient(@NotNull DataInputStream in, @Nullable CauldronRecord record) throws IOException {
+        int index = in.readInt(), length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid ingredient length " + length);
+        }
+
+        byte[] ingredientBytes = new byte[length];
+        in.readFully(ingredientBytes);
+
+        JsonObject ingredient = CauldronBinaryCodec.decodeIngredient(ingredientBytes);
+        if (index < 0) {
+            throw new IOException("Invalid ingredient index " + index);
+        }
+
+        if (record == null || index > record.getIngredients().size()) {
+            return record;
+        }
+
+        List<JsonObject> ingredients = new ArrayList<>(record.getIngredients());
+        if (index == ingredients.size()) {
+            ingredients.add(ingredient);
+        } else {
+            ingredients.set(index, ingredient);
+        }
+
+        return record.withIngredients(ingredients);
+    }
+
+    @Nullable
+    private static CauldronRecord readTruncateIngredients(@NotNull DataInputStream in, @Nullable CauldronRecord record) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid ingredient count " + size);
+        }
+
+        if (record == null || size >= record.getIngredients().size()) {
+            return record;
+        }
+
+        return record.withIngredients(record.getIngredients().subList(0, size));
+    }
+
+    @Nullable
+    private static CauldronRecord readBrewing(@NotNull DataInputStream in, @Nullable CauldronRecord record) throws IOException {
+        NamespacedKey brewingRecipeKey = null;
+        int brewTicksRemaining = 0;
+
+        if (in.readBoolean()) {
+            brewingRecipeKey = NamespacedKey.fromString(in.readUTF());
+            brewTicksRemaining = in.readInt();
+
+            if (brewingRecipeKey == null) {
+                throw new IOException("Invalid brewing recipe key");
+            }
+        }
+
+        return (record != null) ? record.withBrewing(brewingRecipeKey, brewTicksRemaining) : null;
+    }
+
+    /**
+     * A single change to be appended to a {@link CauldronJournal}.
+     */
+    static final class Entry {
+
+        private final byte operation;
+        private final CauldronPosition position;
+        private final CauldronRecord record;
+        private final int index;
+        private final JsonObject ingredient;
+
+        private Entry(byte operation, @NotNull CauldronPosition position, @Nullable CauldronRecord record) {
+            this(operation, position, record, 0, null);
+        }
+
+        private Entry(byte operation, @NotNull CauldronPosition position, @Nullable CauldronRecord record, int index, @Nullable JsonObject ingredient) {
+            this.operation = operation;
+            this.position = position;
+            this.record = record;
+            this.index = index;
+            this.ingredient = ingredient;
+        }
+
+        /**
+         * Create an entry that adds a cauldron with the full state of the given record.
+         *
+         * @param record the record
+         *
+         * @return the entry
+         */
+        @NotNull
+        static Entry add(@NotNull CauldronRecord record) {
+            return new Entry(OP_ADD, record.getPosition(), record);
+        }
+
+        /**
+         * Create an entry that removes the cauldron at the given position.
+         *
+         * @param position the position
+         *
+         * @return the entry
+         */
+        @NotNull
+        static Entry remove(@NotNull CauldronPosition position) {
+            return new Entry(OP_REMOVE, position, null);
+        }
+
+        /**
+         * Create an entry that sets the heating and bubbling state of a cauldron to that of the
+         * given record.
+         *
+         * @param record the record
+         *
+         * @return the entry
+         */
+        @NotNull
+        static Entry state(@NotNull CauldronRecord record) {
+            return new Entry(OP_STATE, record.getPosition(), record);
+        }
+
+        /**
+         * Create the entries that change the ingredients of a cauldron from those of the previous
+         * record to those of the given record. Only ingredients that differ at their index are
+         * included.
+         *
+         * @param previous the record as it was last journaled
+         * @param record the record
+         *
+         * @return the entries. May be empty if the ingredients did not change
+         */
+        @NotNull
+        static List<@NotNull Entry> ingredients(@NotNull CauldronRecord previous, @NotNull CauldronRecord record) {
+            List<JsonObject> previousIngredients = previous.getIngredients(), ingredients = record.getIngredients();
+            List<Entry> entries = new ArrayList<>();
+
+            for (int i = 0; i < ingredients.size(); i++) {
+                JsonObject ingredient = ingredients.get(i);
+                if (i >= previousIngredients.size() || !previousIngredients.get(i).equals(ingredient)) {
+                    entries.add(new Entry(OP_SET_INGREDIENT, record.getPosition(), null, i, ingredient));
+                }
+            }
+
+            if (ingredients.size() < previousIngredients.size()) {
+                entries.add(new Entry(OP_TRUNCATE_INGREDIENTS, record.getPosition(), null, ingredients.size(), null));
+            }
+
+            return entries;
+        }
+
+        /**
+         * Create an entry that sets the brewing state of a cauldron to that of the given record.
+         *
+         * @param record the record
+         *
+         * @return the entry
+         */
+        @NotNull
+        static Entry brewing(@NotNull CauldronRecord record) {
+            return new Entry(OP_BREWING, record.getPosition(), record);
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package wtf.choco.alchema.storage;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads and writes cauldron records in Alchema's cauldrons.json format, optionally GZIP
+ * compressed.
+ * <p>
+ * Cauldrons are streamed one at a time through a {@link JsonReader} or {@link JsonWriter} such
+ * that the JSON representation of at most one cauldron is held in memory at any given time,
+ * regardless of how many cauldrons are in the file.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class CauldronJsonCodec {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CauldronJsonCodec() { }
+
+    /**
+     * Read all valid records from the given file. Invalid cauldrons are logged and skipped.
+     *
+     * @param file the file from which to read
+     * @param compressed whether or not the file is GZIP compressed
+     * @param logger the logger to which invalid cauldrons should be logged
+     *
+     * @return the records
+     *
+     * @throws IOException if the file could not be read or is not valid JSON
+     */
+    @NotNull
+    static List<@NotNull CauldronRecord> read(@NotNull Path file, boolean compressed, @NotNull Logger logger) throws IOException {
+        List<CauldronRecord> records = new ArrayList<>();
+
+        try (InputStream in = openInput(file, compressed); JsonReader reader = new JsonReader(new InputStreamReader(in, Charset.defaultCharset()))) {
+            // An empty file contains no cauldrons
+            try {
+                reader.beginArray();
+            } catch (EOFException e) {
+                return records;
+            }
+
+            while (reader.hasNext()) {
+                JsonElement element = JsonParser.parseReader(reader);
+                if (!element.isJsonObject()) {
+                    continue;
+                }
+
+                try {
+                    records.add(CauldronRecord.fromJson(element.getAsJsonObject()));
+                } catch (JsonParseException e) {
+                    logger.warning("Could not read cauldron from " + file.getFileName() + ". Reason: " + e.getMessage());
+                }
+            }
+
+            reader.endArray();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        return records;
+    }
+
+    /**
+     * Write the given records to the given file, replacing its contents.
+     *
+     * @param file the file to which to write
+     * @param compressed whether or not to GZIP compress the file
+     * @param records the records to write
+     *
+     * @throws IOException if the file could not be written
+     */
+    static void write(@NotNull Path file, boolean compressed, @NotNull Collection<@NotNull CauldronRecord> records) throws IOException {
+        try (OutputStream out = openOutput(file, compressed); JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, Charset.defaultCharset()))) {
+            writer.beginArray();
+
+            for (CauldronRecord record : records) {
+                record.write(writer);
+            }
+
+            writer.endArray();
+        }
+    }
+
+    @NotNull
+    private static InputStream openInput(@NotNull Path file, boolean compressed) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (!compressed) {
+            return new BufferedInputStream(in, BUFFER_SIZE);
+        }
+
+        try {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @NotNull
+    private static OutputStream openOutput(@NotNull Path file, boolean compressed) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (!compressed) {
+            return new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+
+        try {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+
+/**
+ * Adds cauldrons from previously read records to the cauldron manager on the main thread.
+ * <p>
+ * Creating a cauldron requires world access, so records are read off the main thread and then
+ * applied by this task in batches, one batch per tick, each limited by a time budget such that
+ * loading many cauldrons does not stall the server.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class CauldronLoadTask extends BukkitRunnable {
+
+    private static final long BUDGET_NANOS_PER_TICK = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private int index = 0, loaded = 0;
+
+    private final Alchema plugin;
+    private final List<@NotNull CauldronRecord> records;
+    private final Predicate<@NotNull CauldronRecord> loader;
+    private final Runnable completionHandler;
+
+    /**
+     * Construct a new {@link CauldronLoadTask}.
+     *
+     * @param plugin the plugin instance
+     * @param records the records to load
+     * @param loader creates a cauldron from a record and returns true, or returns false if no
+     * cauldron was created (e.g. because its chunk is not loaded)
+     * @param completionHandler called once all records have been loaded
+     */
+    CauldronLoadTask(@NotNull Alchema plugin, @NotNull List<@NotNull CauldronRecord> records, @NotNull Predicate<@NotNull CauldronRecord> loader, @NotNull Runnable completionHandler) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(records != null, "records must not be null");
+        Preconditions.checkArgument(loader != null, "loader must not be null");
+        Preconditions.checkArgument(completionHandler != null, "completionHandler must not be null");
+
+        this.plugin = plugin;
+        this.records = records;
+        this.loader = loader;
+        this.completionHandler = completionHandler;
+    }
+
+    /**
+     * Start loading records, beginning on the next tick. This may be called from any thread.
+     */
+    void start() {
+        this.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + BUDGET_NANOS_PER_TICK;
+
+        while (index < records.size()) {
+            if (loader.test(records.get(index++))) {
+                this.loaded++;
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                return;
+            }
+        }
+
+        this.cancel();
+
+        if (loaded > 0) {
+            this.plugin.getLogger().info("Loaded " + loaded + " alchemical cauldrons.");
+        }
+
+        this.completionHandler.run();
+    }
+
+}
@@ -0,0 +1,200 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+import wtf.choco.alchema.cauldron.CauldronManager;
+
+/**
+ * Creates {@link AlchemicalCauldron AlchemicalCauldrons} from records only once the chunk in
+ * which they are located is loaded.
+ * <p>
+ * Records in chunks or worlds that are not loaded are held as dormant records, indexed by world
+ * and chunk, rather than as cauldrons. This way, loading a record never loads a chunk, records
+ * in worlds that are not loaded are not lost, and no cauldron (and by extension, no block) keeps
+ * a reference to a world that is not loaded. Cauldrons in a world that is unloaded are evicted
+ * back to dormant records.
+ * <p>
+ * A materializer is not thread safe and should only be used from the main thread.
+ *
+ * @author Parker Hawke - Choco
+ */
+final class CauldronMaterializer {
+
+    private final Map<@NotNull UUID, @NotNull Map<@NotNull Long, @NotNull List<@NotNull CauldronRecord>>> dormantRecords = new HashMap<>();
+
+    private final Alchema plugin;
+    private final Consumer<@NotNull CauldronRecord> missingCauldronHandler;
+
+    /**
+     * Construct a new {@link CauldronMaterializer}.
+     *
+     * @param plugin the plugin instance
+     * @param missingCauldronHandler called for each record whose block is no longer a cauldron
+     */
+    CauldronMaterializer(@NotNull Alchema plugin, @NotNull Consumer<@NotNull CauldronRecord> missingCauldronHandler) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(missingCauldronHandler != null, "missingCauldronHandler must not be null");
+
+        this.plugin = plugin;
+        this.missingCauldronHandler = missingCauldronHandler;
+    }
+
+    /**
+     * Create a cauldron from the given record if its chunk is loaded, or hold it as a dormant
+     * record until it is.
+     *
+     * @param record the record
+     *
+     * @return true if a cauldron was created, false otherwise
+     */
+    boolean materialize(@NotNull CauldronRecord record) {
+        CauldronPosition position = record.getPosition();
+        World world = Bukkit.getWorld(position.getWorld());
+        if (world == null || !world.isChunkLoaded(position.getChunkX(), position.getChunkZ())) {
+            this.addDormantRecord(record);
+            return false;
+        }
+
+        return create(record);
+    }
+
+    /**
+     * Create a cauldron from the given record and add it to the cauldron manager. The world and
+     * chunk in which the record is located must be loaded.
+     *
+     * @param record the record
+     *
+     * @return true if a cauldron was created, false otherwise
+     */
+    boolean create(@NotNull CauldronRecord record) {
+        CauldronPosition position = record.getPosition();
+
+        AlchemicalCauldron cauldron;
+        try {
+            cauldron = AlchemicalCauldron.fromRecord(record, plugin.getRecipeRegistry());
+        } catch (JsonParseException e) {
+            this.plugin.getLogger().warning("Could not load cauldron at " + position + ". Reason: " + e.getMessage());
+            return false;
+        }
+
+        if (cauldron == null) {
+            this.plugin.getLogger().info("Attempted to load cauldron at a position where a cauldron was not present.");
+            this.missingCauldronHandler.accept(record);
+            return false;
+        }
+
+        // A cauldron created in the meantime is newer than the one that was saved
+        CauldronManager cauldronManager = plugin.getCauldronManager();
+        if (cauldronManager.getCauldron(cauldron.getCauldronBlock()) != null) {
+            return false;
+        }
+
+        // Loaded cauldrons are already saved as they are and need not be written again until they change
+        cauldron.setDirty(false);
+        cauldronManager.addCauldron(cauldron);
+        return true;
+    }
+
+    /**
+     * Create cauldrons from all dormant records in the given chunk. This should be called when
+     * the chunk is loaded.
+     *
+     * @param chunk the chunk
+     */
+    void loadChunk(@NotNull Chunk chunk) {
+        Map<Long, List<CauldronRecord>> worldRecords = dormantRecords.get(chunk.getWorld().getUID());
+        if (worldRecords == null) {
+            return;
+        }
+
+        List<CauldronRecord> chunkRecords = worldRecords.remove(chunkKey(chunk.getX(), chunk.getZ()));
+        if (chunkRecords == null) {
+            return;
+        }
+
+        if (worldRecords.isEmpty()) {
+            this.dormantRecords.remove(chunk.getWorld().getUID());
+        }
+
+        chunkRecords.forEach(this::materialize);
+    }
+
+    /**
+     * Create cauldrons from all dormant records in the loaded chunks of the given world. This
+     * should be called when the world is loaded.
+     *
+     * @param world the world
+     */
+    void loadWorld(@NotNull World world) {
+        Map<Long, List<CauldronRecord>> worldRecords = dormantRecords.get(world.getUID());
+        if (worldRecords == null) {
+            return;
+        }
+
+        List<CauldronRecord> loadedRecords = new ArrayList<>();
+        Iterator<Map.Entry<Long, List<CauldronRecord>>> iterator = worldRecords.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, List<CauldronRecord>> entry = iterator.next();
+            long chunkKey = entry.getKey();
+            if (!world.isChunkLoaded((int) (chunkKey >> 32), (int) chunkKey)) {
+                continue;
+            }
+
+            loadedRecords.addAll(entry.getValue());
+            iterator.remove();
+        }
+
+        if (worldRecords.isEmpty()) {
+            this.dormantRecords.remove(world.getUID());
+        }
+
+        loadedRecords.forEach(this::materialize);
+    }
+
+    /**
+     * Remove all cauldrons in the given world from the cauldron manager and hold them as dormant
+     * records. This should be called when the world is unloaded, after any changes made to its
+     * cauldrons have been collected as the evicted records are taken from the cauldrons as they
+     * are.
+     *
+     * @param world the world
+     */
+    void unloadWorld(@NotNull World world) {
+        CauldronManager cauldronManager = plugin.getCauldronManager();
+
+        for (AlchemicalCauldron cauldron : new ArrayList<>(cauldronManager.getCauldrons())) {
+            if (!cauldron.getWorld().equals(world)) {
+                continue;
+            }
+
+            this.addDormantRecord(cauldron.toRecord());
+            cauldronManager.unloadCauldron(cauldron);
+        }
+    }
+
+    private void addDormantRecord(@NotNull CauldronRecord record) {
+        CauldronPosition position = record.getPosition();
+        this.dormantRecords.computeIfAbsent(position.getWorld(), ignore -> new HashMap<>()).computeIfAbsent(chunkKey(position.getChunkX(), position.getChunkZ()), ignore -> new ArrayList<>()).add(record);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,126 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+
+import java.util.UUID;
+
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable position of an alchemical cauldron, identified by the UUID of its world and its
+ * block coordinates. Unlike a {@link Block}, a position does not hold a reference to its world
+ * and may refer to a world that is not loaded.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class CauldronPosition {
+
+    private final UUID world;
+    private final int x, y, z;
+
+    /**
+     * Construct a new {@link CauldronPosition}.
+     *
+     * @param world the UUID of the world
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     */
+    public CauldronPosition(@NotNull UUID world, int x, int y, int z) {
+        Preconditions.checkArgument(world != null, "world must not be null");
+
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * Get the position of the given block.
+     *
+     * @param block the block
+     *
+     * @return the block's position
+     */
+    @NotNull
+    public static CauldronPosition of(@NotNull Block block) {
+        Preconditions.checkArgument(block != null, "block must not be null");
+        return new CauldronPosition(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Get the UUID of the world.
+     *
+     * @return the world UUID
+     */
+    @NotNull
+    public UUID getWorld() {
+        return world;
+    }
+
+    /**
+     * Get the block x coordinate.
+     *
+     * @return the x coordinate
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the block y coordinate.
+     *
+     * @return the y coordinate
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get the block z coordinate.
+     *
+     * @return the z coordinate
+     */
+    public int getZ() {
+        return z;
+    }
+
+    /**
+     * Get the x coordinate of the chunk containing this position.
+     *
+     * @return the chunk x coordinate
+     */
+    public int getChunkX() {
+        return x >> 4;
+    }
+
+    /**
+     * Get the z coordinate of the chunk containing this position.
+     *
+     * @return the chunk z coordinate
+     */
+    public int getChunkZ() {
+        return z >> 4;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = world.hashCode();
+        result = 31 * result + x;
+        result = 31 * result + y;
+        result = 31 * result + z;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this || (obj instanceof CauldronPosition other && x == other.x && y == other.y && z == other.z && world.equals(other.world));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CauldronPosition[world=%s, x=%s, y=%s, z=%s]", world, x, y, z);
+    }
+
+}
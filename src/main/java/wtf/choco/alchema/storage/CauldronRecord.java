@@ -0,0 +1,320 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+import wtf.choco.commons.util.NamespacedKeyUtil;
+
+/**
+ * An immutable snapshot of the persistent state of an {@link AlchemicalCauldron}. Records are
+ * taken on the thread that owns the cauldron and may then be freely passed to other threads to
+ * be written.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class CauldronRecord {
+
+    // Only used to write ingredient objects to a JsonWriter
+    private static final Gson GSON = new Gson();
+
+    private final CauldronPosition position;
+    private final long heatingStartTime;
+    private final boolean heatingUp, bubbling;
+    private final List<@NotNull JsonObject> ingredients;
+    private final NamespacedKey brewingRecipeKey;
+    private final int brewTicksRemaining;
+
+    /**
+     * Construct a new {@link CauldronRecord}.
+     *
+     * @param position the position of the cauldron
+     * @param heatingStartTime the time at which the cauldron started heating up. -1 if not heating up
+     * @param heatingUp whether or not the cauldron is heating up
+     * @param bubbling whether or not the cauldron is bubbling
+     * @param ingredients the cauldron's ingredients, each serialized with its "type" key. The
+     * objects must not be modified after being passed to the record
+     * @param brewingRecipeKey the key of the recipe being brewed. null if none
+     * @param brewTicksRemaining the ticks remaining until brewing completes
+     */
+    public CauldronRecord(@NotNull CauldronPosition position, long heatingStartTime, boolean heatingUp, boolean bubbling, @NotNull List<@NotNull JsonObject> ingredients, @Nullable NamespacedKey brewingRecipeKey, int brewTicksRemaining) {
+        Preconditions.checkArgument(position != null, "position must not be null");
+        Preconditions.checkArgument(ingredients != null, "ingredients must not be null");
+
+        this.position = position;
+        this.heatingStartTime = heatingStartTime;
+        this.heatingUp = heatingUp;
+        this.bubbling = bubbling;
+        this.ingredients = Collections.unmodifiableList(new ArrayList<>(ingredients));
+        this.brewingRecipeKey = brewingRecipeKey;
+        this.brewTicksRemaining = brewTicksRemaining;
+    }
+
+    /**
+     * Get the position of the cauldron.
+     *
+     * @return the position
+     */
+    @NotNull
+    public CauldronPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the time at which the cauldron started heating up.
+     *
+     * @return the heating start time. -1 if not heating up
+     */
+    public long getHeatingStartTime() {
+        return heatingStartTime;
+    }
+
+    /**
+     * Check whether or not the cauldron was heating up.
+     *
+     * @return true if heating up, false otherwise
+     */
+    public boolean isHeatingUp() {
+        return heatingUp;
+    }
+
+    /**
+     * Check whether or not the cauldron was bubbling.
+     *
+     * @return true if bubbling, false otherwise
+     */
+    public boolean isBubbling() {
+        return bubbling;
+    }
+
+    /**
+     * Get the cauldron's ingredients, each serialized with its "type" key. The returned objects
+     * must not be modified.
+     *
+     * @return the serialized ingredients
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<@NotNull JsonObject> getIngredients() {
+        return ingredients;
+    }
+
+    /**
+     * Get the key of the recipe that was being brewed.
+     *
+     * @return the brewing recipe key. null if none
+     */
+    @Nullable
+    public NamespacedKey getBrewingRecipeKey() {
+        return brewingRecipeKey;
+    }
+
+    /**
+     * Get the ticks that were remaining until brewing completed.
+     *
+     * @return the remaining brew ticks
+     */
+    public int getBrewTicksRemaining() {
+        return brewTicksRemaining;
+    }
+
+    /**
+     * Get a copy of this record with the given heating and bubbling state.
+     *
+     * @param heatingStartTime the new heating start time
+     * @param heatingUp the new heating state
+     * @param bubbling the new bubbling state
+     *
+     * @return the new record
+     */
+    @NotNull
+    CauldronRecord withState(long heatingStartTime, boolean heatingUp, boolean bubbling) {
+        return new CauldronRecord(position, heatingStartTime, heatingUp, bubbling, ingredients, brewingRecipeKey, brewTicksRemaining);
+    }
+
+    /**
+     * Get a copy of this record with the given ingredients.
+     *
+     * @param ingredients the new ingredients
+     *
+     * @return the new record
+     */
+    @NotNull
+    CauldronRecord withIngredients(@NotNull List<@NotNull JsonObject> ingredients) {
+        return new CauldronRecord(position, heatingStartTime, heatingUp, bubbling, ingredients, brewingRecipeKey, brewTicksRemaining);
+    }
+
+    /**
+     * Get a copy of this record with the given brewing state.
+     *
+     * @param brewingRecipeKey the new brewing recipe key. null if none
+     * @param brewTicksRemaining the new remaining brew ticks
+     *
+     * @return the new record
+     */
+    @NotNull
+    CauldronRecord withBrewing(@Nullable NamespacedKey brewingRecipeKey, int brewTicksRemaining) {
+        return new CauldronRecord(position, heatingStartTime, heatingUp, bubbling, ingredients, brewingRecipeKey, brewTicksRemaining);
+    }
+
+    /**
+     * Write this record to a new {@link JsonObject} in the format used by cauldrons.json.
+     *
+     * @return the written object
+     */
+    @NotNull
+    public JsonObject toJson() {
+        JsonObject object = new JsonObject();
+
+        object.addProperty("heatingStartTime", heatingStartTime);
+        object.addProperty("heatingUp", heatingUp);
+        object.addProperty("bubbling", bubbling);
+        object.addProperty("world", position.getWorld().toString());
+
+        JsonObject cauldronBlockObject = new JsonObject();
+        cauldronBlockObject.addProperty("x", position.getX());
+        cauldronBlockObject.addProperty("y", position.getY());
+        cauldronBlockObject.addProperty("z", position.getZ());
+        object.add("cauldron", cauldronBlockObject);
+
+        if (!ingredients.isEmpty()) {
+            JsonArray ingredientsArray = new JsonArray();
+            this.ingredients.forEach(ingredientObject -> ingredientsArray.add(ingredientObject.deepCopy()));
+            object.add("ingredients", ingredientsArray);
+        }
+
+        if (brewingRecipeKey != null) {
+            JsonObject brewingObject = new JsonObject();
+            brewingObject.addProperty("recipe", brewingRecipeKey.toString());
+            brewingObject.addProperty("remainingTicks", brewTicksRemaining);
+            object.add("brewing", brewingObject);
+        }
+
+        return object;
+    }
+
+    /**
+     * Write this record directly to the given {@link JsonWriter} in the format used by
+     * cauldrons.json, without first building a {@link JsonObject}.
+     *
+     * @param writer the writer to which to write
+     *
+     * @throws IOException if the record could not be written
+     *
+     * @see #toJson()
+     */
+    public void write(@NotNull JsonWriter writer) throws IOException {
+        Preconditions.checkArgument(writer != null, "writer must not be null");
+
+        writer.beginObject();
+        writer.name("heatingStartTime").value(heatingStartTime);
+        writer.name("heatingUp").value(heatingUp);
+        writer.name("bubbling").value(bubbling);
+        writer.name("world").value(position.getWorld().toString());
+
+        writer.name("cauldron").beginObject();
+        writer.name("x").value(position.getX());
+        writer.name("y").value(position.getY());
+        writer.name("z").value(position.getZ());
+        writer.endObject();
+
+        if (!ingredients.isEmpty()) {
+            writer.name("ingredients").beginArray();
+            for (JsonObject ingredientObject : ingredients) {
+                GSON.toJson(ingredientObject, writer);
+            }
+            writer.endArray();
+        }
+
+        if (brewingRecipeKey != null) {
+            writer.name("brewing").beginObject();
+            writer.name("recipe").value(brewingRecipeKey.toString());
+            writer.name("remainingTicks").value(brewTicksRemaining);
+            writer.endObject();
+        }
+
+        writer.endObject();
+    }
+
+    /**
+     * Read a {@link CauldronRecord} from a {@link JsonObject} in the format used by cauldrons.json.
+     * No world access is made.
+     *
+     * @param object the object from which to read
+     *
+     * @return the record
+     *
+     * @throws JsonParseException if the object is not a valid cauldron
+     */
+    @NotNull
+    public static CauldronRecord fromJson(@NotNull JsonObject object) {
+        Preconditions.checkArgument(object != null, "object must not be null");
+
+        UUID worldUUID;
+        try {
+            worldUUID = object.has("world") ? UUID.fromString(object.get("world").getAsString()) : null;
+        } catch (IllegalArgumentException e) {
+            worldUUID = null;
+        }
+
+        if (worldUUID == null) {
+            throw new JsonParseException("World could not be deserialized for cauldron.");
+        }
+
+        JsonObject cauldronBlockObject = object.has("cauldron") ? object.getAsJsonObject("cauldron") : null;
+        if (cauldronBlockObject == null) {
+            throw new JsonParseException("Location could not be deserialized for cauldron.");
+        }
+
+        CauldronPosition position = new CauldronPosition(worldUUID, cauldronBlockObject.get("x").getAsInt(), cauldronBlockObject.get("y").getAsInt(), cauldronBlockObject.get("z").getAsInt());
+        long heatingStartTime = object.has("heatingStartTime") ? object.get("heatingStartTime").getAsLong() : -1;
+        boolean heatingUp = object.has("heatingUp") && object.get("heatingUp").getAsBoolean();
+        boolean bubbling = object.has("bubbling") && object.get("bubbling").getAsBoolean();
+
+        List<JsonObject> ingredients = new ArrayList<>();
+        if (object.has("ingredients")) {
+            JsonArray ingredientsArray = object.getAsJsonArray("ingredients");
+            for (int i = 0; i < ingredientsArray.size(); i++) {
+                JsonElement ingredientElement = ingredientsArray.get(i);
+                if (!ingredientElement.isJsonObject()) {
+                    continue;
+                }
+
+                JsonObject ingredientObject = ingredientElement.getAsJsonObject();
+                if (!ingredientObject.has("type")) {
+                    throw new JsonParseException("ingredient at index " + i + " does not have an ingredient type");
+                }
+
+                ingredients.add(ingredientObject);
+            }
+        }
+
+        NamespacedKey brewingRecipeKey = null;
+        int brewTicksRemaining = 0;
+        if (object.has("brewing")) {
+            JsonObject brewingObject = object.getAsJsonObject("brewing");
+            brewingRecipeKey = brewingObject.has("recipe") ? NamespacedKeyUtil.fromString(brewingObject.get("recipe").getAsString(), Alchema.getInstance()) : null;
+            brewTicksRemaining = brewingObject.has("remainingTicks") ? Math.max(brewingObject.get("remainingTicks").getAsInt(), 0) : 0;
+        }
+
+        return new CauldronRecord(position, heatingStartTime, heatingUp, bubbling, ingredients, brewingRecipeKey, brewTicksRemaining);
+    }
+
+}
@@ -0,0 +1,46 @@
+package wtf.choco.alchema.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+
+/**
+ * Persists the state of alchemical cauldrons between server restarts.
+ * <p>
+ * All methods are called on the main server thread. Implementations are free to perform I/O
+ * asynchronously but must snapshot cauldron state on the calling thread. Implementations that
+ * also implement {@link org.bukkit.event.Listener} are registered as such while Alchema is
+ * enabled.
+ *
+ * @author Parker Hawke - Choco
+ */
+public interface CauldronStorage {
+
+    /**
+     * Load persisted cauldrons and add them to the plugin's cauldron manager. This is called once
+     * when Alchema is enabled.
+     */
+    public void loadCauldrons();
+
+    /**
+     * Remove a cauldron from this storage. This is called when a cauldron is destroyed, not when
+     * its chunk is unloaded.
+     *
+     * @param cauldron the cauldron to remove
+     */
+    public void removeCauldron(@NotNull AlchemicalCauldron cauldron);
+
+    /**
+     * Save all cauldrons whose state has changed since the last save. This is called periodically
+     * while Alchema is enabled.
+     */
+    public void save();
+
+    /**
+     * Save all cauldrons whose state has changed since the last save and release any resources
+     * held by this storage. This is called once when Alchema is disabled. The storage will not be
+     * used again after it has been closed.
+     */
+    public void close();
+
+}
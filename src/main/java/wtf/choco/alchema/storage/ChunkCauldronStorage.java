@@ -0,0 +1,391 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+import wtf.choco.alchema.cauldron.CauldronManager;
+
+/**
+ * Persists alchemical cauldrons in the {@link PersistentDataContainer} of the chunk in which they
+ * are located.
+ * <p>
+ * Cauldrons are read when their chunk is loaded and written (if changed) when their chunk is
+ * unloaded or their world is saved, such that only cauldrons in loaded chunks are held in memory
+ * and cauldron state is saved and backed up along with the world itself. Cauldrons previously
+ * saved in a cauldron file of any {@link CauldronFileFormat} are migrated into their chunks once.
+ * Only cauldrons in chunks that are already loaded are migrated immediately. All others are held
+ * as records until their chunk is loaded such that migrating never loads a chunk, and the file is
+ * rewritten with the records yet to be migrated whenever cauldrons are saved.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class ChunkCauldronStorage implements CauldronStorage, Listener {
+
+    private static final NamespacedKey KEY_CAULDRONS = Alchema.key("cauldrons");
+    private static final Gson GSON = new Gson();
+
+    // Positions of cauldrons that were removed since their chunk was last written
+    private final Set<@NotNull CauldronPosition> removedCauldrons = ConcurrentHashMap.newKeySet();
+
+    // Cauldron files with records yet to be migrated. Only accessed from the main thread
+    private final List<@NotNull PendingMigration> pendingMigrations = new ArrayList<>();
+
+    private final Alchema plugin;
+    private final File directory;
+
+    /**
+     * Construct a new {@link ChunkCauldronStorage}.
+     *
+     * @param plugin the plugin instance
+     * @param directory the directory containing cauldron files from which cauldrons should be migrated, if any exist
+     */
+    public ChunkCauldronStorage(@NotNull Alchema plugin, @NotNull File directory) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(directory != null, "directory must not be null");
+
+        this.plugin = plugin;
+        this.directory = directory;
+    }
+
+    @Override
+    public void loadCauldrons() {
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                this.readChunk(chunk);
+            }
+        }
+
+        for (CauldronFileFormat format : CauldronFileFormat.values()) {
+            if (new File(directory, format.getFileName()).exists()) {
+                this.migrateFile(format);
+            }
+        }
+    }
+
+    @Override
+    public void removeCauldron(@NotNull AlchemicalCauldron cauldron) {
+        this.removedCauldrons.add(CauldronPosition.of(cauldron.getCauldronBlock()));
+    }
+
+    @Override
+    public void save() {
+        Bukkit.getWorlds().forEach(this::saveWorld);
+        this.updateMigratedFiles();
+    }
+
+    @Override
+    public void close() {
+        this.save();
+        this.removedCauldrons.clear();
+        this.pendingMigrations.clear();
+    }
+
+    @EventHandler
+    private void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+
+        if (!event.isNewChunk()) {
+            this.readChunk(chunk);
+        }
+
+        if (!pendingMigrations.isEmpty()) {
+            this.migrateChunk(chunk);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onChunkUnload(ChunkUnloadEvent event) {
+        this.unloadChunk(event.getChunk());
+    }
+
+    @EventHandler
+    private void onWorldSave(WorldSaveEvent event) {
+        this.saveWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onWorldUnload(WorldUnloadEvent event) {
+        for (Chunk chunk : event.getWorld().getLoadedChunks()) {
+            this.unloadChunk(chunk);
+        }
+    }
+
+    private void saveWorld(@NotNull World world) {
+        for (Chunk chunk : world.getLoadedChunks()) {
+            this.saveChunk(chunk, plugin.getCauldronManager().getCauldrons(chunk));
+        }
+    }
+
+    private void unloadChunk(@NotNull Chunk chunk) {
+        CauldronManager cauldronManager = plugin.getCauldronManager();
+        List<AlchemicalCauldron> cauldrons = cauldronManager.getCauldrons(chunk);
+
+        this.saveChunk(chunk, cauldrons);
+        cauldrons.forEach(cauldronManager::unloadCauldron);
+    }
+
+    private void readChunk(@NotNull Chunk chunk) {
+        String cauldronsData = chunk.getPersistentDataContainer().get(KEY_CAULDRONS, PersistentDataType.STRING);
+        if (cauldronsData == null) {
+            return;
+        }
+
+        JsonArray cauldronsArray;
+        try {
+            cauldronsArray = GSON.fromJson(cauldronsData, JsonArray.class);
+        } catch (JsonParseException e) {
+            this.plugin.getLogger().warning("Could not read cauldrons in chunk " + chunk.getX() + ", " + chunk.getZ() + " in world " + chunk.getWorld().getName() + ". Reason: " + e.getMessage());
+            return;
+        }
+
+        for (JsonElement element : cauldronsArray) {
+            if (!element.isJsonObject()) {
+                continue;
+            }
+
+            try {
+                CauldronRecord record = CauldronRecord.fromJson(element.getAsJsonObject());
+                AlchemicalCauldron cauldron = AlchemicalCauldron.fromRecord(record, plugin.getRecipeRegistry());
+
+                // The cauldron was broken without Alchema knowing (e.g. while Alchema was disabled). It will be dropped the next time the chunk is written
+                if (cauldron == null) {
+                    this.removedCauldrons.add(record.getPosition());
+                    continue;
+                }
+
+                cauldron.setDirty(false);
+                this.plugin.getCauldronManager().addCauldron(cauldron);
+            } catch (JsonParseException e) {
+                this.plugin.getLogger().warning("Could not read cauldron in chunk " + chunk.getX() + ", " + chunk.getZ() + " in world " + chunk.getWorld().getName() + ". Reason: " + e.getMessage());
+            }
+        }
+    }
+
+    private void saveChunk(@NotNull Chunk chunk, @NotNull List<@NotNull AlchemicalCauldron> cauldrons) {
+        boolean changed = false;
+
+        if (!removedCauldrons.isEmpty()) {
+            UUID worldUUID = chunk.getWorld().getUID();
+            changed = removedCauldrons.removeIf(position -> position.getChunkX() == chunk.getX() && position.getChunkZ() == chunk.getZ() && position.getWorld().equals(worldUUID));
+        }
+
+        for (AlchemicalCauldron cauldron : cauldrons) {
+            changed |= cauldron.isDirty();
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        if (cauldrons.isEmpty()) {
+            container.remove(KEY_CAULDRONS);
+            return;
+        }
+
+        JsonArray cauldronsArray = new JsonArray();
+        for (AlchemicalCauldron cauldron : cauldrons) {
+            cauldronsArray.add(cauldron.toRecord().toJson());
+            cauldron.setDirty(false);
+        }
+
+        container.set(KEY_CAULDRONS, PersistentDataType.STRING, GSON.toJson(cauldronsArray));
+    }
+
+    // Records in chunks that are not loaded are held until their chunk is loaded, leaving them in the file until then
+    private void migrateFile(@NotNull CauldronFileFormat format) {
+        Path file = directory.toPath().resolve(format.getFileName());
+
+        List<CauldronRecord> records;
+        try {
+            records = format.readRecords(file, plugin.getLogger());
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("Could not migrate cauldrons from " + format.getFileName() + ". Reason: " + e.getMessage());
+            return;
+        }
+
+        PendingMigration migration = new PendingMigration(format, file);
+        List<CauldronRecord> loadedRecords = new ArrayList<>();
+
+        for (CauldronRecord record : records) {
+            CauldronPosition position = record.getPosition();
+            World world = Bukkit.getWorld(position.getWorld());
+
+            if (world != null && world.isChunkLoaded(position.getChunkX(), position.getChunkZ())) {
+                loadedRecords.add(record);
+            } else {
+                migration.add(record);
+            }
+        }
+
+        // Rewritten (or moved aside) on the next save
+        migration.changed = !loadedRecords.isEmpty() || records.isEmpty();
+        this.pendingMigrations.add(migration);
+
+        int migrated = migrateRecords(loadedRecords, format);
+        this.plugin.getLogger().info("Migrated " + migrated + " cauldrons from " + format.getFileName() + " into chunk data" + (migration.size > 0 ? " (" + migration.size + " remain in chunks that are not loaded and will be migrated when loaded)" : "") + ".");
+    }
+
+    private void migrateChunk(@NotNull Chunk chunk) {
+        UUID worldUUID = chunk.getWorld().getUID();
+
+        for (PendingMigration migration : pendingMigrations) {
+            List<CauldronRecord> records = migration.remove(worldUUID, chunk.getX(), chunk.getZ());
+            if (records != null) {
+                this.migrateRecords(records, migration.format);
+            }
+        }
+    }
+
+    // All records must be in loaded chunks. Returns the amount of cauldrons migrated
+    private int migrateRecords(@NotNull List<@NotNull CauldronRecord> records, @NotNull CauldronFileFormat format) {
+        CauldronManager cauldronManager = plugin.getCauldronManager();
+        Set<Chunk> changedChunks = new HashSet<>();
+        int migrated = 0;
+
+        for (CauldronRecord record : records) {
+            try {
+                AlchemicalCauldron cauldron = AlchemicalCauldron.fromRecord(record, plugin.getRecipeRegistry());
+
+                // Cauldrons already in chunk data are newer than the ones in the file
+                if (cauldron == null || cauldronManager.getCauldron(cauldron.getCauldronBlock()) != null) {
+                    continue;
+                }
+
+                cauldronManager.addCauldron(cauldron);
+                changedChunks.add(cauldron.getCauldronBlock().getChunk());
+                migrated++;
+            } catch (JsonParseException e) {
+                this.plugin.getLogger().warning("Could not migrate cauldron from " + format.getFileName() + ". Reason: " + e.getMessage());
+            }
+        }
+
+        for (Chunk chunk : changedChunks) {
+            this.saveChunk(chunk, cauldronManager.getCauldrons(chunk));
+        }
+
+        return migrated;
+    }
+
+    private void updateMigratedFiles() {
+        Iterator<PendingMigration> iterator = pendingMigrations.iterator();
+        while (iterator.hasNext()) {
+            PendingMigration migration = iterator.next();
+            if (!migration.changed) {
+                continue;
+            }
+
+            String fileName = migration.format.getFileName();
+            try {
+                if (migration.size == 0) {
+                    Files.move(migration.file, migration.file.resolveSibling(fileName + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+                    iterator.remove();
+                    this.plugin.getLogger().info("Finished migrating cauldrons from " + fileName + " into chunk data.");
+                } else {
+                    migration.format.writeRecords(migration.file, migration.getRecords());
+                }
+
+                migration.changed = false;
+            } catch (IOException e) {
+                this.plugin.getLogger().warning("Could not update " + fileName + " after migration. Reason: " + e.getMessage());
+            }
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /*
+     * The records of a cauldron file that are yet to be migrated, indexed by world and chunk.
+     */
+    private static final class PendingMigration {
+
+        private final Map<@NotNull UUID, @NotNull Map<@NotNull Long, @NotNull List<@NotNull CauldronRecord>>> records = new HashMap<>();
+        private int size = 0;
+        private boolean changed = false;
+
+        private final CauldronFileFormat format;
+        private final Path file;
+
+        private PendingMigration(@NotNull CauldronFileFormat format, @NotNull Path file) {
+            this.format = format;
+            this.file = file;
+        }
+
+        private void add(@NotNull CauldronRecord record) {
+            CauldronPosition position = record.getPosition();
+            this.records.computeIfAbsent(position.getWorld(), ignore -> new HashMap<>()).computeIfAbsent(chunkKey(position.getChunkX(), position.getChunkZ()), ignore -> new ArrayList<>()).add(record);
+            this.size++;
+        }
+
+        @Nullable
+        private List<@NotNull CauldronRecord> remove(@NotNull UUID world, int chunkX, int chunkZ) {
+            Map<Long, List<CauldronRecord>> worldRecords = records.get(world);
+            if (worldRecords == null) {
+                return null;
+            }
+
+            List<CauldronRecord> chunkRecords = worldRecords.remove(chunkKey(chunkX, chunkZ));
+            if (chunkRecords == null) {
+                return null;
+            }
+
+            if (worldRecords.isEmpty()) {
+                this.records.remove(world);
+            }
+
+            this.size -= chunkRecords.size();
+            this.changed = true;
+            return chunkRecords;
+        }
+
+        @NotNull
+        private List<@NotNull CauldronRecord> getRecords() {
+            List<CauldronRecord> result = new ArrayList<>(size);
+            for (Map<Long, List<CauldronRecord>> worldRecords : records.values()) {
+                worldRecords.values().forEach(result::addAll);
+            }
+
+            return result;
+        }
+
+    }
+
+}
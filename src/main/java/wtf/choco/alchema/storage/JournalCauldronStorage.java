@@ -0,0 +1,271 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+
+/**
+ * Persists alchemical cauldrons to a base snapshot in a {@link CauldronFileFormat} and an
+ * append-only {@link CauldronJournal} of the changes made since that snapshot was written.
+ * <p>
+ * Changed cauldrons are collected on the main thread at a short, fixed interval and only the
+ * parts of their state that changed are appended to the journal as a single group on a
+ * dedicated writer thread. Saving folds the journal into a new base snapshot and truncates it.
+ * When loading, the journal is replayed onto the base snapshot such that changes made after the
+ * last save survive a crash. If the base snapshot cannot be read and cannot be moved aside
+ * either, neither it nor the journal is ever written.
+ * <p>
+ * Only cauldrons in loaded chunks are created when loading. All others are held as dormant
+ * records by a {@link CauldronMaterializer} until their chunk is loaded.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class JournalCauldronStorage implements CauldronStorage, Listener {
+
+    private final Map<@NotNull CauldronPosition, @NotNull CauldronRecord> records = new ConcurrentHashMap<>();
+    private final Queue<CauldronJournal.@NotNull Entry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private volatile boolean loaded = false, changedSinceCompaction = false;
+
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Alchema Cauldron Writer").setDaemon(true).build());
+    private BukkitTask flushTask;
+
+    // Only accessed on the writer thread
+    private boolean journalOpen = false;
+
+    private final Alchema plugin;
+    private final File directory;
+    private final CauldronFileFormat format;
+    private final CauldronJournal journal;
+    private final CauldronMaterializer materializer;
+    private final int flushIntervalTicks;
+
+    /**
+     * Construct a new {@link JournalCauldronStorage}.
+     *
+     * @param plugin the plugin instance
+     * @param directory the directory in which the base snapshot is located
+     * @param format the format in which the base snapshot is written
+     * @param journalFile the journal file
+     * @param flushIntervalTicks the interval (in ticks) at which changes are appended to the journal
+     */
+    public JournalCauldronStorage(@NotNull Alchema plugin, @NotNull File directory, @NotNull CauldronFileFormat format, @NotNull File journalFile, int flushIntervalTicks) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(directory != null, "directory must not be null");
+        Preconditions.checkArgument(format != null, "format must not be null");
+        Preconditions.checkArgument(journalFile != null, "journalFile must not be null");
+        Preconditions.checkArgument(flushIntervalTicks >= 1, "flushIntervalTicks must be >= 1");
+
+        this.plugin = plugin;
+        this.directory = directory;
+        this.format = format;
+        this.journal = new CauldronJournal(journalFile.toPath());
+        this.flushIntervalTicks = flushIntervalTicks;
+        this.materializer = new CauldronMaterializer(plugin, record -> {
+            this.records.remove(record.getPosition());
+            this.pendingEntries.add(CauldronJournal.Entry.remove(record.getPosition()));
+        });
+    }
+
+    @Override
+    public void loadCauldrons() {
+        this.writeExecutor.execute(this::readCauldrons);
+    }
+
+    private void readCauldrons() {
+        Map<CauldronPosition, CauldronRecord> records = new HashMap<>();
+
+        try {
+            this.format.loadRecords(directory, plugin.getLogger()).forEach(record -> records.put(record.getPosition(), record));
+        } catch (IOException e) {
+            // The snapshot is still in place. The journal is left unopened and nothing is compacted, else the snapshot would be overwritten
+            this.plugin.getLogger().severe("Could not read cauldrons from " + format.getFileName() + ". Cauldrons will not be saved until it can be read (or is removed) and the server is restarted. Reason: " + e.getMessage());
+            return;
+        }
+
+        try {
+            int replayed = journal.open(records, plugin.getLogger());
+            this.journalOpen = true;
+
+            if (replayed > 0) {
+                this.plugin.getLogger().info("Recovered " + replayed + " unsaved cauldron changes from the journal.");
+                this.compact(new ArrayList<>(records.values()));
+            }
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("Could not open the cauldron journal. Cauldrons will only be written when saved. Reason: " + e.getMessage());
+        }
+
+        this.records.putAll(records);
+
+        new CauldronLoadTask(plugin, new ArrayList<>(records.values()), materializer::materialize, () -> {
+            this.loaded = true;
+            this.flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, flushIntervalTicks, flushIntervalTicks);
+        }).start();
+    }
+
+    @Override
+    public void removeCauldron(@NotNull AlchemicalCauldron cauldron) {
+        CauldronPosition position = CauldronPosition.of(cauldron.getCauldronBlock());
+        if (records.remove(position) != null) {
+            this.pendingEntries.add(CauldronJournal.Entry.remove(position));
+        }
+    }
+
+    @Override
+    public void save() {
+        // Never compact before the base snapshot and journal have been read, else they would be overwritten
+        if (!loaded) {
+            return;
+        }
+
+        this.flush();
+
+        if (!changedSinceCompaction) {
+            return;
+        }
+
+        this.changedSinceCompaction = false;
+
+        List<CauldronRecord> records = new ArrayList<>(this.records.values());
+        this.writeExecutor.execute(() -> compact(records));
+    }
+
+    @Override
+    public void close() {
+        if (flushTask != null) {
+            this.flushTask.cancel();
+            this.flushTask = null;
+        }
+
+        this.save();
+        this.writeExecutor.execute(() -> {
+            try {
+                this.journal.close();
+            } catch (IOException e) {
+                this.plugin.getLogger().warning("Could not close the cauldron journal. Reason: " + e.getMessage());
+            }
+        });
+        this.writeExecutor.shutdown();
+
+        try {
+            if (!writeExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                this.plugin.getLogger().warning("Timed out while waiting for cauldrons to be saved.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventHandler
+    private void onChunkLoad(ChunkLoadEvent event) {
+        this.materializer.loadChunk(event.getChunk());
+    }
+
+    @EventHandler
+    private void onWorldLoad(WorldLoadEvent event) {
+        this.materializer.loadWorld(event.getWorld());
+    }
+
+    // Changes are collected first such that the evicted cauldrons are saved as they were
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(WorldUnloadEvent event) {
+        this.flush();
+
+        this.materializer.unloadWorld(event.getWorld());
+    }
+
+    private void flush() {
+        List<CauldronJournal.Entry> entries = new ArrayList<>();
+
+        CauldronJournal.Entry pendingEntry;
+        while ((pendingEntry = pendingEntries.poll()) != null) {
+            entries.add(pendingEntry);
+        }
+
+        for (AlchemicalCauldron cauldron : plugin.getCauldronManager().getCauldrons()) {
+            int dirtyFlags = cauldron.getDirtyFlags();
+            if (dirtyFlags == 0) {
+                continue;
+            }
+
+            CauldronRecord record = cauldron.toRecord();
+            cauldron.setDirty(false);
+
+            CauldronRecord previous = records.put(record.getPosition(), record);
+            if (previous == null) {
+                entries.add(CauldronJournal.Entry.add(record));
+                continue;
+            }
+
+            if ((dirtyFlags & AlchemicalCauldron.DIRTY_STATE) != 0) {
+                entries.add(CauldronJournal.Entry.state(record));
+            }
+
+            if ((dirtyFlags & AlchemicalCauldron.DIRTY_INGREDIENTS) != 0) {
+                entries.addAll(CauldronJournal.Entry.ingredients(previous, record));
+            }
+
+            if ((dirtyFlags & AlchemicalCauldron.DIRTY_BREWING) != 0) {
+                entries.add(CauldronJournal.Entry.brewing(record));
+            }
+        }
+
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        this.changedSinceCompaction = true;
+        this.writeExecutor.execute(() -> append(entries));
+    }
+
+    private void append(@NotNull List<CauldronJournal.@NotNull Entry> entries) {
+        if (!journalOpen) {
+            return;
+        }
+
+        try {
+            this.journal.append(entries);
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("Could not append " + entries.size() + " cauldron changes to the journal. They will be written with the next save. Reason: " + e.getMessage());
+        }
+    }
+
+    private void compact(@NotNull List<@NotNull CauldronRecord> records) {
+        try {
+            this.format.writeRecords(directory.toPath().resolve(format.getFileName()), records);
+
+            // The snapshot contains every change appended so far. Should truncation fail, replaying them again is harmless
+            if (journalOpen) {
+                this.journal.truncate();
+            }
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("Could not save cauldrons. They will be saved again with the next save. Reason: " + e.getMessage());
+            this.changedSinceCompaction = true;
+        }
+    }
+
+}
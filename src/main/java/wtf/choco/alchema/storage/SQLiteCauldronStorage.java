@@ -0,0 +1,433 @@
+package wtf.choco.alchema.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+import wtf.choco.alchema.cauldron.AlchemicalCauldron;
+import wtf.choco.alchema.cauldron.CauldronManager;
+
+/**
+ * Persists alchemical cauldrons in an embedded SQLite database.
+ * <p>
+ * Cauldrons are stored one per row, indexed by world and chunk. Only cauldrons in loaded chunks
+ * are held in memory. The cauldrons of a chunk are queried from the database when the chunk is
+ * loaded, and written (if changed) and released when it is unloaded. Changed and removed
+ * cauldrons are otherwise written periodically in a single transaction of batched prepared
+ * statements. All database access happens on a dedicated thread which owns the connection.
+ * Cauldrons previously saved in a cauldron file of any {@link CauldronFileFormat} are migrated
+ * into the database once.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class SQLiteCauldronStorage implements CauldronStorage, Listener {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS cauldrons ("
+            + "world TEXT NOT NULL, chunk_x INTEGER NOT NULL, chunk_z INTEGER NOT NULL, x INTEGER NOT NULL, y INTEGER NOT NULL, z INTEGER NOT NULL, "
+            + "heating_start_time INTEGER NOT NULL, heating_up INTEGER NOT NULL, bubbling INTEGER NOT NULL, "
+            + "ingredients TEXT, brewing_recipe TEXT, brew_ticks_remaining INTEGER NOT NULL, "
+            + "PRIMARY KEY (world, x, y, z))";
+    private static final String CREATE_CHUNK_INDEX = "CREATE INDEX IF NOT EXISTS cauldrons_by_chunk ON cauldrons (world, chunk_x, chunk_z)";
+    private static final String SELECT_CHUNK = "SELECT x, y, z, heating_start_time, heating_up, bubbling, ingredients, brewing_recipe, brew_ticks_remaining FROM cauldrons WHERE world = ? AND chunk_x = ? AND chunk_z = ?";
+    private static final String UPSERT = "INSERT OR REPLACE INTO cauldrons (world, chunk_x, chunk_z, x, y, z, heating_start_time, heating_up, bubbling, ingredients, brewing_recipe, brew_ticks_remaining) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM cauldrons WHERE world = ? AND x = ? AND y = ? AND z = ?";
+
+    // Each position has at most one pending change such that changes in a batch may be written in any order
+    private final Map<@NotNull CauldronPosition, @NotNull CauldronRecord> pendingRecords = new ConcurrentHashMap<>();
+    private final Set<@NotNull CauldronPosition> pendingDeletions = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Alchema Cauldron Database").setDaemon(true).build());
+
+    // Only accessed on the database thread
+    private Connection connection;
+
+    private final Alchema plugin;
+    private final File databaseFile;
+    private final CauldronMaterializer materializer;
+
+    /**
+     * Construct a new {@link SQLiteCauldronStorage}.
+     *
+     * @param plugin the plugin instance
+     * @param databaseFile the database file
+     */
+    public SQLiteCauldronStorage(@NotNull Alchema plugin, @NotNull File databaseFile) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+        Preconditions.checkArgument(databaseFile != null, "databaseFile must not be null");
+
+        this.plugin = plugin;
+        this.databaseFile = databaseFile;
+        this.materializer = new CauldronMaterializer(plugin, record -> deleteRecord(record.getPosition()));
+    }
+
+    @Override
+    public void loadCauldrons() {
+        List<Chunk> loadedChunks = new ArrayList<>();
+        Bukkit.getWorlds().forEach(world -> loadedChunks.addAll(List.of(world.getLoadedChunks())));
+
+        this.databaseExecutor.execute(() -> {
+            if (!openDatabase()) {
+                return;
+            }
+
+            this.migrateFiles();
+
+            List<CauldronRecord> records = new ArrayList<>();
+            for (Chunk chunk : loadedChunks) {
+                records.addAll(queryChunk(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ()));
+            }
+
+            new CauldronLoadTask(plugin, records, this::createCauldron, () -> { }).start();
+        });
+    }
+
+    @Override
+    public void removeCauldron(@NotNull AlchemicalCauldron cauldron) {
+        this.deleteRecord(CauldronPosition.of(cauldron.getCauldronBlock()));
+    }
+
+    @Override
+    public void save() {
+        for (AlchemicalCauldron cauldron : plugin.getCauldronManager().getCauldrons()) {
+            this.collectChanges(cauldron);
+        }
+
+        this.writePendingChanges();
+    }
+
+    @Override
+    public void close() {
+        this.save();
+        this.databaseExecutor.execute(this::closeDatabase);
+        this.databaseExecutor.shutdown();
+
+        try {
+            if (!databaseExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                this.plugin.getLogger().warning("Timed out while waiting for cauldrons to be saved.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventHandler
+    private void onChunkLoad(ChunkLoadEvent event) {
+        if (event.isNewChunk()) {
+            return;
+        }
+
+        Chunk chunk = event.getChunk();
+        UUID worldUUID = chunk.getWorld().getUID();
+        int chunkX = chunk.getX(), chunkZ = chunk.getZ();
+
+        this.databaseExecutor.execute(() -> {
+            List<CauldronRecord> records = queryChunk(worldUUID, chunkX, chunkZ);
+            if (!records.isEmpty()) {
+                Bukkit.getScheduler().runTask(plugin, () -> records.forEach(this::createCauldron));
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onChunkUnload(ChunkUnloadEvent event) {
+        this.unloadCauldrons(plugin.getCauldronManager().getCauldrons(event.getChunk()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(WorldUnloadEvent event) {
+        World world = event.getWorld();
+        List<AlchemicalCauldron> cauldrons = new ArrayList<>();
+
+        for (AlchemicalCauldron cauldron : plugin.getCauldronManager().getCauldrons()) {
+            if (cauldron.getWorld().equals(world)) {
+                cauldrons.add(cauldron);
+            }
+        }
+
+        this.unloadCauldrons(cauldrons);
+    }
+
+    // Cauldrons in chunks that were unloaded again while their records were queried remain in the database only
+    private boolean createCauldron(@NotNull CauldronRecord record) {
+        CauldronPosition position = record.getPosition();
+        World world = Bukkit.getWorld(position.getWorld());
+        if (world == null || !world.isChunkLoaded(position.getChunkX(), position.getChunkZ())) {
+            return false;
+        }
+
+        return materializer.create(record);
+    }
+
+    private void unloadCauldrons(@NotNull Collection<@NotNull AlchemicalCauldron> cauldrons) {
+        if (cauldrons.isEmpty()) {
+            return;
+        }
+
+        CauldronManager cauldronManager = plugin.getCauldronManager();
+        for (AlchemicalCauldron cauldron : cauldrons) {
+            this.collectChanges(cauldron);
+            cauldronManager.unloadCauldron(cauldron);
+        }
+
+        // Written immediately such that the chunk reads its changes should it be loaded again
+        this.writePendingChanges();
+    }
+
+    private void collectChanges(@NotNull AlchemicalCauldron cauldron) {
+        if (!cauldron.isDirty()) {
+            return;
+        }
+
+        CauldronRecord record = cauldron.toRecord();
+        cauldron.setDirty(false);
+
+        this.pendingDeletions.remove(record.getPosition());
+        this.pendingRecords.put(record.getPosition(), record);
+    }
+
+    private void deleteRecord(@NotNull CauldronPosition position) {
+        this.pendingRecords.remove(position);
+        this.pendingDeletions.add(position);
+    }
+
+    private void writePendingChanges() {
+        if (pendingRecords.isEmpty() && pendingDeletions.isEmpty()) {
+            return;
+        }
+
+        List<CauldronRecord> records = new ArrayList<>(pendingRecords.size());
+        for (Iterator<CauldronRecord> iterator = pendingRecords.values().iterator(); iterator.hasNext();) {
+            records.add(iterator.next());
+            iterator.remove();
+        }
+
+        List<CauldronPosition> deletions = new ArrayList<>(pendingDeletions.size());
+        for (Iterator<CauldronPosition> iterator = pendingDeletions.iterator(); iterator.hasNext();) {
+            deletions.add(iterator.next());
+            iterator.remove();
+        }
+
+        this.databaseExecutor.execute(() -> write(records, deletions));
+    }
+
+    private boolean openDatabase() {
+        try {
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute(CREATE_TABLE);
+                statement.execute(CREATE_CHUNK_INDEX);
+            }
+
+            return true;
+        } catch (SQLException e) {
+            this.plugin.getLogger().severe("Could not open cauldron database " + databaseFile.getName() + ". Cauldrons will not be loaded or saved. Reason: " + e.getMessage());
+            this.connection = null;
+            return false;
+        }
+    }
+
+    private void closeDatabase() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            this.connection.close();
+        } catch (SQLException e) {
+            this.plugin.getLogger().warning("Could not close cauldron database. Reason: " + e.getMessage());
+        }
+
+        this.connection = null;
+    }
+
+    // Files are migrated in full, including cauldrons in worlds that are not loaded
+    private void migrateFiles() {
+        for (CauldronFileFormat format : CauldronFileFormat.values()) {
+            Path file = databaseFile.toPath().resolveSibling(format.getFileName());
+            if (!Files.exists(file)) {
+                continue;
+            }
+
+            try {
+                List<CauldronRecord> records = format.readRecords(file, plugin.getLogger());
+                if (!write(records, List.of())) {
+                    continue;
+                }
+
+                Files.move(file, file.resolveSibling(format.getFileName() + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+                this.plugin.getLogger().info("Migrated " + records.size() + " cauldrons from " + format.getFileName() + " into " + databaseFile.getName() + ".");
+            } catch (IOException e) {
+                this.plugin.getLogger().warning("Could not migrate cauldrons from " + format.getFileName() + ". Reason: " + e.getMessage());
+            }
+        }
+    }
+
+    @NotNull
+    private List<@NotNull CauldronRecord> queryChunk(@NotNull UUID worldUUID, int chunkX, int chunkZ) {
+        List<CauldronRecord> records = new ArrayList<>();
+        if (connection == null) {
+            return records;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_CHUNK)) {
+            statement.setString(1, worldUUID.toString());
+            statement.setInt(2, chunkX);
+            statement.setInt(3, chunkZ);
+
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    CauldronPosition position = new CauldronPosition(worldUUID, result.getInt("x"), result.getInt("y"), result.getInt("z"));
+
+                    try {
+                        records.add(readRecord(position, result));
+                    } catch (JsonParseException e) {
+                        this.plugin.getLogger().warning("Could not read cauldron at " + position + ". Reason: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            this.plugin.getLogger().warning("Could not query cauldrons in chunk " + chunkX + ", " + chunkZ + ". Reason: " + e.getMessage());
+        }
+
+        return records;
+    }
+
+    @NotNull
+    private CauldronRecord readRecord(@NotNull CauldronPosition position, @NotNull ResultSet result) throws SQLException {
+        List<JsonObject> ingredients = new ArrayList<>();
+
+        String ingredientsJson = result.getString("ingredients");
+        if (ingredientsJson != null) {
+            JsonArray ingredientsArray = JsonParser.parseString(ingredientsJson).getAsJsonArray();
+            for (JsonElement ingredientElement : ingredientsArray) {
+                if (!ingredientElement.isJsonObject() || !ingredientElement.getAsJsonObject().has("type")) {
+                    throw new JsonParseException("ingredient does not have an ingredient type");
+                }
+
+                ingredients.add(ingredientElement.getAsJsonObject());
+            }
+        }
+
+        String brewingRecipe = result.getString("brewing_recipe");
+        NamespacedKey brewingRecipeKey = (brewingRecipe != null) ? NamespacedKey.fromString(brewingRecipe) : null;
+
+        return new CauldronRecord(position, result.getLong("heating_start_time"), result.getBoolean("heating_up"), result.getBoolean("bubbling"), ingredients, brewingRecipeKey, result.getInt("brew_ticks_remaining"));
+    }
+
+    private boolean write(@NotNull List<@NotNull CauldronRecord> records, @NotNull List<@NotNull CauldronPosition> deletions) {
+        if (connection == null) {
+            return false;
+        }
+
+        try {
+            this.connection.setAutoCommit(false);
+
+            try (PreparedStatement delete = connection.prepareStatement(DELETE); PreparedStatement upsert = connection.prepareStatement(UPSERT)) {
+                for (CauldronPosition position : deletions) {
+                    delete.setString(1, position.getWorld().toString());
+                    delete.setInt(2, position.getX());
+                    delete.setInt(3, position.getY());
+                    delete.setInt(4, position.getZ());
+                    delete.addBatch();
+                }
+
+                for (CauldronRecord record : records) {
+                    this.bindRecord(upsert, record);
+                    upsert.addBatch();
+                }
+
+                delete.executeBatch();
+                upsert.executeBatch();
+                this.connection.commit();
+                return true;
+            } catch (SQLException e) {
+                this.connection.rollback();
+                throw e;
+            } finally {
+                this.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            this.plugin.getLogger().warning("Could not save " + (records.size() + deletions.size()) + " cauldron changes. They will be saved again with the next save. Reason: " + e.getMessage());
+
+            // Changes made since are newer and take precedence
+            records.forEach(record -> pendingRecords.putIfAbsent(record.getPosition(), record));
+            deletions.forEach(position -> {
+                if (!pendingRecords.containsKey(position)) {
+                    this.pendingDeletions.add(position);
+                }
+            });
+
+            return false;
+        }
+    }
+
+    private void bindRecord(@NotNull PreparedStatement statement, @NotNull CauldronRecord record) throws SQLException {
+        CauldronPosition position = record.getPosition();
+        statement.setString(1, position.getWorld().toString());
+        statement.setInt(2, position.getChunkX());
+        statement.setInt(3, position.getChunkZ());
+        statement.setInt(4, position.getX());
+        statement.setInt(5, position.getY());
+        statement.setInt(6, position.getZ());
+        statement.setLong(7, record.getHeatingStartTime());
+        statement.setBoolean(8, record.isHeatingUp());
+        statement.setBoolean(9, record.isBubbling());
+
+        if (record.getIngredients().isEmpty()) {
+            statement.setNull(10, Types.VARCHAR);
+        } else {
+            JsonArray ingredientsArray = new JsonArray();
+            record.getIngredients().forEach(ingredientsArray::add);
+            statement.setString(10, ingredientsArray.toString());
+        }
+
+        NamespacedKey brewingRecipeKey = record.getBrewingRecipeKey();
+        statement.setString(11, (brewingRecipeKey != null) ? brewingRecipeKey.toString() : null);
+        statement.setInt(12, record.getBrewTicksRemaining());
+    }
+
+}
@@ -17,7 +17,7 @@ import wtf.choco.alchema.Alchema;
  */
 public final class AlchemaConstants {
 
-    // Metadata keys
+    // Metadata keys. Only attached if Compatibility.BukkitMetadata is enabled, see TransientStateStore
     /** A metadata key used by Alchema to denote that a block is an alchemical cauldron */
     public static final String METADATA_KEY_ALCHEMICAL_CAULDRON = "alchema:alchemical_cauldron";
 
@@ -44,6 +44,12 @@ public final class AlchemaConstants {
     /** A {@link NamespacedKey} used as an NBT key for empty vial items. Acts as an identifier */
     public static final NamespacedKey NBT_KEY_EMPTY_VIAL = Alchema.key("empty_vial");
 
+    /** A {@link NamespacedKey} used as an NBT key for unloaded entities. The time (in epoch milliseconds) at which their essence may be extracted again */
+    public static final NamespacedKey NBT_KEY_ESSENCE_EXTRACTION_COOLDOWN = Alchema.key("essence_extraction_cooldown");
+
+    /** A {@link NamespacedKey} used as an NBT key for item entities. Denotes that the item was crafted by a cauldron */
+    public static final NamespacedKey NBT_KEY_CAULDRON_CRAFTED = Alchema.key("cauldron_crafted");
+
 
     // Recipe keys
     /** A {@link NamespacedKey} used as a key for the empty vial crafting recipe */
@@ -60,6 +66,27 @@ public final class AlchemaConstants {
     /** Configuration path, Metrics.AnonymousCustomRecipeTypes */
     public static final String CONFIG_METRICS_ANONYMOUS_CUSTOM_RECIPE_TYPES = "Metrics.AnonymousCustomRecipeTypes";
 
+    /** Configuration path, Recipes.LiveReload.Enabled */
+    public static final String CONFIG_RECIPES_LIVE_RELOAD_ENABLED = "Recipes.LiveReload.Enabled";
+
+    /** Configuration path, Recipes.LiveReload.DebounceMillis */
+    public static final String CONFIG_RECIPES_LIVE_RELOAD_DEBOUNCE_MILLIS = "Recipes.LiveReload.DebounceMillis";
+
+    /** Configuration path, Compatibility.BukkitMetadata */
+    public static final String CONFIG_COMPATIBILITY_BUKKIT_METADATA = "Compatibility.BukkitMetadata";
+
+    /** Configuration path, Storage.Type */
+    public static final String CONFIG_STORAGE_TYPE = "Storage.Type";
+
+    /** Configuration path, Storage.Format */
+    public static final String CONFIG_STORAGE_FORMAT = "Storage.Format";
+
+    /** Configuration path, Storage.AutosaveIntervalSeconds */
+    public static final String CONFIG_STORAGE_AUTOSAVE_INTERVAL_SECONDS = "Storage.AutosaveIntervalSeconds";
+
+    /** Configuration path, Storage.Journal.FlushIntervalTicks */
+    public static final String CONFIG_STORAGE_JOURNAL_FLUSH_INTERVAL_TICKS = "Storage.Journal.FlushIntervalTicks";
+
     /** Configuration path, Cauldron.ItemSearchInterval */
     public static final String CONFIG_CAULDRON_ITEM_SEARCH_INTERVAL = "Cauldron.ItemSearchInterval";
 
@@ -90,6 +117,27 @@ public final class AlchemaConstants {
     /** Configuration path, Cauldron.Sound.SuccessfulCraftVolume */
     public static final String CONFIG_CAULDRON_SOUND_SUCCESSFUL_CRAFT_VOLUME = "Cauldron.Sound.SuccessfulCraftVolume";
 
+    /** Configuration path, Cauldron.LevelOfDetail.Enabled */
+    public static final String CONFIG_CAULDRON_LEVEL_OF_DETAIL_ENABLED = "Cauldron.LevelOfDetail.Enabled";
+
+    /** Configuration path, Cauldron.LevelOfDetail.Tiers */
+    public static final String CONFIG_CAULDRON_LEVEL_OF_DETAIL_TIERS = "Cauldron.LevelOfDetail.Tiers";
+
+    /** Configuration path, Cauldron.LevelOfDetail.FallbackInterval */
+    public static final String CONFIG_CAULDRON_LEVEL_OF_DETAIL_FALLBACK_INTERVAL = "Cauldron.LevelOfDetail.FallbackInterval";
+
+    /** Configuration path, Cauldron.AsyncRecipeMatching */
+    public static final String CONFIG_CAULDRON_ASYNC_RECIPE_MATCHING = "Cauldron.AsyncRecipeMatching";
+
+    /** Configuration path, Cauldron.Throttle.Enabled */
+    public static final String CONFIG_CAULDRON_THROTTLE_ENABLED = "Cauldron.Throttle.Enabled";
+
+    /** Configuration path, Cauldron.Throttle.MaxTickShare */
+    public static final String CONFIG_CAULDRON_THROTTLE_MAX_TICK_SHARE = "Cauldron.Throttle.MaxTickShare";
+
+    /** Configuration path, Cauldron.Throttle.MaxLevel */
+    public static final String CONFIG_CAULDRON_THROTTLE_MAX_LEVEL = "Cauldron.Throttle.MaxLevel";
+
     /** Configuration path, VialOfEssence.MaximumEssence */
     public static final String CONFIG_VIAL_OF_ESSENCE_MAXIMUM_ESSENCE = "VialOfEssence.MaximumEssence";
 
@@ -164,6 +212,9 @@ public final class AlchemaConstants {
     /** Permission node, alchema.command.saverecipe, grants access to /alchema saverecipe */
     public static final String PERMISSION_COMMAND_SAVERECIPE = "alchema.command.saverecipe";
 
+    /** Permission node, alchema.command.throttle, grants access to /alchema throttle */
+    public static final String PERMISSION_COMMAND_THROTTLE = "alchema.command.throttle";
+
     /** Permission node, alchema.command.givevialofessence, grants access to /givevialofessence */
     public static final String PERMISSION_COMMAND_GIVE_VIAL_OF_ESSENCE = "alchema.command.givevialofessence";
 
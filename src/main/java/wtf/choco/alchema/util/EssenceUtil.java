@@ -1,10 +1,6 @@
 package wtf.choco.alchema.util;
 
-import java.util.List;
-import java.util.concurrent.TimeUnit;
-
 import org.bukkit.entity.Entity;
-import org.bukkit.metadata.MetadataValue;
 import org.jetbrains.annotations.NotNull;
 
 import wtf.choco.alchema.Alchema;
@@ -29,19 +25,7 @@ public final class EssenceUtil {
      */
     public static boolean canHaveEssenceExtracted(@NotNull Entity entity, @NotNull Alchema plugin) {
         int timeoutSeconds = plugin.getConfig().getInt(AlchemaConstants.CONFIG_VIAL_OF_ESSENCE_FROM_ENTITIES_ON_INTERACT_TIMEOUT_SECONDS, 300);
-        if (timeoutSeconds <= 0) {
-            return true;
-        }
-
-        List<MetadataValue> interactionMetadata = entity.getMetadata(AlchemaConstants.METADATA_KEY_INTERACTED_WITH_VIAL);
-        long lastInteractedWith = -1;
-
-        for (MetadataValue value : interactionMetadata) {
-            lastInteractedWith = Math.max(lastInteractedWith, value.asLong());
-        }
-
-        long secondsSinceLastInteraction = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - lastInteractedWith);
-        return secondsSinceLastInteraction >= timeoutSeconds;
+        return timeoutSeconds <= 0 || !plugin.getEssenceExtractionCooldowns().isOnCooldown(entity);
     }
 
 }
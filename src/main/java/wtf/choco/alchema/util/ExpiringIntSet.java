@@ -0,0 +1,204 @@
+package wtf.choco.alchema.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.LongSupplier;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A set of int keys, each of which expires after its own time to live.
+ * <p>
+ * Keys are held in a primitive, open addressing hash table such that adding, checking and
+ * removing a key are constant time operations that neither box keys nor allocate entries.
+ * Expired keys are treated as absent. They are removed when they are next looked up, and all
+ * others are discarded whenever the table is resized such that the table's capacity is bounded
+ * by the number of keys that have not yet expired rather than by the number of keys ever added.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class ExpiringIntSet {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    // Deadlines are never 0 for keys in the table, so a deadline of 0 denotes an empty slot
+    private int[] keys;
+    private long[] deadlines;
+    private int mask, size = 0;
+
+    private final LongSupplier clock;
+
+    /**
+     * Construct a new {@link ExpiringIntSet} whose times to live are measured in milliseconds.
+     */
+    public ExpiringIntSet() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Construct a new {@link ExpiringIntSet} whose times to live are measured against the given
+     * clock.
+     *
+     * @param clock the clock returning the current time. Must never return a value {@literal <} 0
+     */
+    ExpiringIntSet(@NotNull LongSupplier clock) {
+        this.clock = clock;
+        this.allocate(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Add a key to this set, or reset its time to live if it is already present.
+     *
+     * @param key the key to add
+     * @param timeToLive the time after which the key should expire. Must be {@literal >=} 1
+     */
+    public void add(int key, long timeToLive) {
+        Preconditions.checkArgument(timeToLive >= 1, "timeToLive must be >= 1");
+
+        long now = clock.getAsLong();
+        long deadline = now + timeToLive;
+
+        int slot = find(key);
+        if (slot >= 0) {
+            this.deadlines[slot] = deadline;
+            return;
+        }
+
+        if ((size + 1) * 4 > keys.length * 3) {
+            this.rehash(now);
+        }
+
+        this.insert(key, deadline);
+        this.size++;
+    }
+
+    /**
+     * Check whether or not this set contains the given key and it has not yet expired.
+     *
+     * @param key the key to check
+     *
+     * @return true if present, false otherwise
+     */
+    public boolean contains(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        if (deadlines[slot] <= clock.getAsLong()) {
+            this.removeAt(slot);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove the given key from this set.
+     *
+     * @param key the key to remove
+     *
+     * @return true if the key was present and had not yet expired, false otherwise
+     */
+    public boolean remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        boolean expired = deadlines[slot] <= clock.getAsLong();
+        this.removeAt(slot);
+        return !expired;
+    }
+
+    /**
+     * Get the amount of keys held by this set. This may include keys that have expired but have
+     * not yet been discarded.
+     *
+     * @return the amount of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all keys from this set.
+     */
+    public void clear() {
+        this.allocate(MINIMUM_CAPACITY);
+        this.size = 0;
+    }
+
+    private int find(int key) {
+        for (int slot = slot(key); deadlines[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    private void insert(int key, long deadline) {
+        int slot = slot(key);
+        while (deadlines[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        this.keys[slot] = key;
+        this.deadlines[slot] = deadline;
+    }
+
+    // Shifts subsequent keys back into the freed slot such that no key becomes unreachable
+    private void removeAt(int slot) {
+        int gap = slot;
+
+        for (int i = (slot + 1) & mask; deadlines[i] != 0; i = (i + 1) & mask) {
+            if (((i - slot(keys[i])) & mask) >= ((i - gap) & mask)) {
+                this.keys[gap] = keys[i];
+                this.deadlines[gap] = deadlines[i];
+                gap = i;
+            }
+        }
+
+        this.deadlines[gap] = 0;
+        this.size--;
+    }
+
+    // Discards expired keys and sizes the table for the remaining ones, growing or shrinking it
+    private void rehash(long now) {
+        int[] oldKeys = keys;
+        long[] oldDeadlines = deadlines;
+
+        int live = 0;
+        for (long deadline : oldDeadlines) {
+            if (deadline > now) {
+                live++;
+            }
+        }
+
+        this.allocate(Math.max(Integer.highestOneBit((live + 1) * 2) * 2, MINIMUM_CAPACITY));
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldDeadlines[i] > now) {
+                this.insert(oldKeys[i], oldDeadlines[i]);
+            }
+        }
+
+        this.size = live;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.deadlines = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
@@ -14,6 +14,7 @@ import org.bukkit.util.io.BukkitObjectInputStream;
 import org.bukkit.util.io.BukkitObjectOutputStream;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A series of utilities pertaining to {@link ItemStack ItemStacks}.
@@ -78,21 +79,32 @@ public final class ItemUtil {
      */
     @NotNull
     public static ItemStack parseItemStack(@NotNull JsonObject object) {
-        if (!object.has("item")) {
+        return parseItemStack(object.has("item") ? object.get("item").getAsString() : null, object.has("amount") ? object.get("amount").getAsInt() : 1);
+    }
+
+    /**
+     * Parse an {@link ItemStack} from a /give-formatted item stack string.
+     *
+     * @param item the /give-formatted item stack string. null if absent
+     * @param amount the amount of the item. Values {@literal <} 1 are treated as 1
+     *
+     * @return the parsed ItemStack
+     *
+     * @throws JsonParseException if the item is absent or malformatted
+     */
+    @NotNull
+    public static ItemStack parseItemStack(@Nullable String item, int amount) {
+        if (item == null) {
             throw new JsonParseException("Could not find \"item\"");
         }
 
-        String resultString = object.get("item").getAsString();
         ItemStack result = null;
 
         try {
-            result = Bukkit.getItemFactory().createItemStack(resultString);
-
-            if (object.has("amount")) {
-                result.setAmount(Math.max(object.get("amount").getAsInt(), 1));
-            }
+            result = Bukkit.getItemFactory().createItemStack(item);
+            result.setAmount(Math.max(amount, 1));
         } catch (IllegalArgumentException e) {
-            throw new JsonParseException("Malformatted \"item\" input. Got: \"" + resultString + "\"");
+            throw new JsonParseException("Malformatted \"item\" input. Got: \"" + item + "\"");
         }
 
         return result;
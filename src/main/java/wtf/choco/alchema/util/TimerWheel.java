@@ -0,0 +1,311 @@
+package wtf.choco.alchema.util;
+
+import com.google.common.base.Preconditions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A hashed timer wheel used to schedule tasks to be run on a given tick.
+ * <p>
+ * Timeouts are hashed into a fixed number of slots according to their deadline. Advancing
+ * the wheel by a tick only visits the single slot for that tick, and only the timeouts in
+ * that slot whose deadline has been reached are run. Timeouts whose deadline is more than
+ * one rotation away simply remain in their slot until a later rotation. Scheduling and
+ * cancelling a timeout are both constant time operations.
+ * <p>
+ * This class is not thread-safe and should be advanced and scheduled on a single thread.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class TimerWheel {
+
+    private final Timeout[] slots;
+    private final int mask;
+
+    private long currentTick;
+    private int size = 0;
+
+    /**
+     * Construct a new {@link TimerWheel}.
+     *
+     * @param slotCount the amount of slots in the wheel. Must be a positive power of two
+     * @param currentTick the tick at which the wheel should start
+     */
+    public TimerWheel(int slotCount, long currentTick) {
+        Preconditions.checkArgument(slotCount > 0 && Integer.bitCount(slotCount) == 1, "slotCount must be a positive power of two");
+
+        this.slots = new Timeout[slotCount];
+        this.mask = slotCount - 1;
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * Schedule a task to run once after the given delay.
+     *
+     * @param task the task to run
+     * @param delay the delay (in ticks) after which to run the task. Must be {@literal >=} 1
+     *
+     * @return the scheduled timeout
+     */
+    @NotNull
+    public Timeout schedule(@NotNull Runnable task, int delay) {
+        return scheduleRepeating(task, delay, 0);
+    }
+
+    /**
+     * Schedule a task to run after the given delay and every period thereafter until it is
+     * cancelled.
+     *
+     * @param task the task to run
+     * @param delay the delay (in ticks) after which to first run the task. Must be {@literal >=} 1
+     * @param period the period (in ticks) at which to repeat the task. Must be {@literal >=} 1, or
+     * 0 if the task should not repeat
+     *
+     * @return the scheduled timeout
+     */
+    @NotNull
+    public Timeout scheduleRepeating(@NotNull Runnable task, int delay, int period) {
+        Preconditions.checkArgument(task != null, "task must not be null");
+        Preconditions.checkArgument(delay >= 1, "delay must be >= 1");
+        Preconditions.checkArgument(period >= 0, "period must be >= 0");
+
+        Timeout timeout = new Timeout(this, task, currentTick + delay, period);
+        this.insert(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advance the wheel to the given tick, running all tasks whose deadline has been reached.
+     * If the wheel is advanced by more than a single rotation, every slot is visited at most
+     * once and repeating timeouts will not attempt to catch up on missed periods.
+     *
+     * @param tick the tick to which the wheel should be advanced
+     */
+    public void advance(long tick) {
+        if (tick <= currentTick) {
+            return;
+        }
+
+        long steps = Math.min(tick - currentTick, slots.length);
+        long startTick = currentTick;
+        this.currentTick = tick;
+
+        for (long step = 1; step <= steps && size > 0; step++) {
+            int slot = (int) ((startTick + step) & mask);
+
+            // Unlink all due timeouts before running any of them. Tasks may schedule or cancel other timeouts
+            Timeout due = null;
+            Timeout timeout = slots[slot];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+
+                if (timeout.deadline <= tick) {
+                    this.unlink(timeout);
+                    timeout.next = due;
+                    due = timeout;
+                }
+
+                timeout = next;
+            }
+
+            while (due != null) {
+                Timeout next = due.next;
+                due.next = null;
+
+                if (!due.cancelled) {
+                    this.expire(due, tick);
+                }
+
+                due = next;
+            }
+        }
+    }
+
+    /**
+     * Get the tick to which this wheel was last advanced.
+     *
+     * @return the current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Get the amount of timeouts currently scheduled in this wheel.
+     *
+     * @return the amount of scheduled timeouts
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cancel all timeouts scheduled in this wheel.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            Timeout timeout = slots[i];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.cancelled = true;
+                timeout.linked = false;
+                timeout.prev = timeout.next = null;
+                timeout = next;
+            }
+
+            this.slots[i] = null;
+        }
+
+        this.size = 0;
+    }
+
+    private void expire(@NotNull Timeout timeout, long tick) {
+        if (timeout.period > 0) {
+            // Reschedule before running so the task may cancel itself
+            timeout.deadline += timeout.period;
+            if (timeout.deadline <= tick) {
+                timeout.deadline += (((tick - timeout.deadline) / timeout.period) + 1) * timeout.period;
+            }
+
+            this.insert(timeout);
+        }
+        else {
+            timeout.expired = true;
+        }
+
+        timeout.task.run();
+    }
+
+    private void insert(@NotNull Timeout timeout) {
+        int slot = (int) (timeout.deadline & mask);
+
+        Timeout head = slots[slot];
+        timeout.prev = null;
+        timeout.next = head;
+        timeout.slot = slot;
+        timeout.linked = true;
+
+        if (head != null) {
+            head.prev = timeout;
+        }
+
+        this.slots[slot] = timeout;
+        this.size++;
+    }
+
+    private void unlink(@NotNull Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        }
+        else {
+            this.slots[timeout.slot] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+
+        timeout.prev = timeout.next = null;
+        timeout.linked = false;
+        this.size--;
+    }
+
+    /**
+     * A handle to a task scheduled in a {@link TimerWheel}.
+     */
+    public static final class Timeout {
+
+        private Timeout prev, next;
+        private int slot;
+        private boolean linked = false;
+
+        private long deadline;
+        private boolean expired = false, cancelled = false;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final int period;
+
+        private Timeout(@NotNull TimerWheel wheel, @NotNull Runnable task, long deadline, int period) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        /**
+         * Get the tick at which this timeout will next run.
+         *
+         * @return the deadline
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Check whether or not this timeout has run. Repeating timeouts never expire.
+         *
+         * @return true if expired, false otherwise
+         */
+        public boolean isExpired() {
+            return expired;
+        }
+
+        /**
+         * Check whether or not this timeout has been cancelled.
+         *
+         * @return true if cancelled, false otherwise
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Check whether or not this timeout is still waiting to be run.
+         *
+         * @return true if pending, false if expired or cancelled
+         */
+        public boolean isPending() {
+            return !expired && !cancelled;
+        }
+
+        /**
+         * Cancel this timeout such that its task will not be run.
+         *
+         * @return true if cancelled, false if the timeout had already expired or was cancelled
+         */
+        public boolean cancel() {
+            if (!isPending()) {
+                return false;
+            }
+
+            this.cancelled = true;
+
+            // Timeouts that are due in the tick currently being advanced are no longer linked
+            if (linked) {
+                this.wheel.unlink(this);
+            }
+
+            return true;
+        }
+
+        /**
+         * Cancel the given timeout if it is not null.
+         *
+         * @param timeout the timeout to cancel
+         *
+         * @return always null. Allows for {@code timeout = Timeout.cancel(timeout)}
+         */
+        @Nullable
+        public static Timeout cancel(@Nullable Timeout timeout) {
+            if (timeout != null) {
+                timeout.cancel();
+            }
+
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+package wtf.choco.alchema.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.metadata.FixedMetadataValue;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+
+import wtf.choco.alchema.Alchema;
+
+/**
+ * Holds short-lived state that Alchema attaches to entities, such as whether an entity was
+ * recently damaged by a cauldron.
+ * <p>
+ * Short-lived state is held in {@link ExpiringIntSet ExpiringIntSets} keyed by entity id rather
+ * than as Bukkit metadata such that it may be checked in constant time and is released once it
+ * expires rather than for as long as the entity lives. Entity ids change when an entity is
+ * reloaded, so only state that expires within seconds is held this way. Whether an item was
+ * crafted by a cauldron must last for as long as the item does (regardless of the item despawn
+ * rate or the item's chunk being unloaded), so it is instead held in the item's
+ * {@link PersistentDataContainer}. For plugins that still read Alchema's metadata, the same
+ * state may additionally be attached as metadata under the keys declared in
+ * {@link AlchemaConstants}, though it is then never read back by Alchema.
+ * <p>
+ * Essence extraction cooldowns, which must outlive the entity being unloaded, are instead held
+ * by {@link wtf.choco.alchema.essence.EssenceExtractionCooldowns}.
+ * <p>
+ * This class is not thread-safe and should only be accessed from the main thread.
+ *
+ * @author Parker Hawke - Choco
+ */
+public final class TransientStateStore {
+
+    /** The time (in milliseconds) for which an entity is considered to have been damaged by a cauldron */
+    public static final long DAMAGED_BY_CAULDRON_MILLIS = TimeUnit.SECONDS.toMillis(3);
+
+    private final ExpiringIntSet damagedByCauldron = new ExpiringIntSet();
+
+    private boolean bukkitMetadataEnabled = true;
+
+    private final Alchema plugin;
+
+    /**
+     * Construct a new {@link TransientStateStore}.
+     *
+     * @param plugin the plugin instance
+     */
+    public TransientStateStore(@NotNull Alchema plugin) {
+        Preconditions.checkArgument(plugin != null, "plugin must not be null");
+
+        this.plugin = plugin;
+    }
+
+    /**
+     * Set whether or not state should additionally be attached as Bukkit metadata for use by
+     * other plugins. This includes the metadata attached to alchemical cauldron blocks.
+     *
+     * @param bukkitMetadataEnabled the new state
+     */
+    public void setBukkitMetadataEnabled(boolean bukkitMetadataEnabled) {
+        this.bukkitMetadataEnabled = bukkitMetadataEnabled;
+    }
+
+    /**
+     * Check whether or not state is additionally attached as Bukkit metadata.
+     *
+     * @return true if enabled, false otherwise
+     */
+    public boolean isBukkitMetadataEnabled() {
+        return bukkitMetadataEnabled;
+    }
+
+    /**
+     * Mark the given entity as having been damaged by a cauldron.
+     *
+     * @param entity the entity to mark
+     */
+    public void markDamagedByCauldron(@NotNull Entity entity) {
+        this.damagedByCauldron.add(entity.getEntityId(), DAMAGED_BY_CAULDRON_MILLIS);
+
+        if (bukkitMetadataEnabled) {
+            entity.setMetadata(AlchemaConstants.METADATA_KEY_DAMAGED_BY_CAULDRON, new FixedMetadataValue(plugin, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Check whether or not the given entity was damaged by a cauldron within the last
+     * {@link #DAMAGED_BY_CAULDRON_MILLIS} milliseconds and clear the mark.
+     *
+     * @param entity the entity to check
+     *
+     * @return true if recently damaged by a cauldron, false otherwise
+     */
+    public boolean consumeDamagedByCauldron(@NotNull Entity entity) {
+        if (bukkitMetadataEnabled) {
+            entity.removeMetadata(AlchemaConstants.METADATA_KEY_DAMAGED_BY_CAULDRON, plugin);
+        }
+
+        return damagedByCauldron.remove(entity.getEntityId());
+    }
+
+    /**
+     * Mark the given item as having been crafted by a cauldron such that it is not absorbed by
+     * a cauldron again.
+     *
+     * @param item the item to mark
+     */
+    public void markCauldronCrafted(@NotNull Item item) {
+        item.getPersistentDataContainer().set(AlchemaConstants.NBT_KEY_CAULDRON_CRAFTED, PersistentDataType.BYTE, (byte) 1);
+
+        if (bukkitMetadataEnabled) {
+            item.setMetadata(AlchemaConstants.METADATA_KEY_CAULDRON_CRAFTED, new FixedMetadataValue(plugin, true));
+        }
+    }
+
+    /**
+     * Check whether or not the given item was crafted by a cauldron.
+     *
+     * @param item the item to check
+     *
+     * @return true if crafted by a cauldron, false otherwise
+     */
+    public boolean isCauldronCrafted(@NotNull Item item) {
+        return item.getPersistentDataContainer().has(AlchemaConstants.NBT_KEY_CAULDRON_CRAFTED, PersistentDataType.BYTE);
+    }
+
+    /**
+     * Clear all state held in memory by this store. Marks held by items are kept.
+     */
+    public void clear() {
+        this.damagedByCauldron.clear();
+    }
+
+}
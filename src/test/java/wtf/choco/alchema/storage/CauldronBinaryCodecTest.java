@@ -0,0 +1,91 @@
+package wtf.choco.alchema.storage;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Tests:
+ * - testIngredientRoundTrip(): Ensure that an ingredient with every kind of property value decodes to an equal ingredient
+ * - testCorruptIngredient(): Ensure that a truncated encoded ingredient is rejected with an IOException
+ * - testCorruptCount(): Ensure that negative and huge counts are rejected with an IOException before anything is allocated
+ * - testFileRoundTrip(): Ensure that records written to a file are read back equal, across worlds and chunks
+ */
+class CauldronBinaryCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testIngredientRoundTrip() throws IOException {
+        JsonObject ingredient = createIngredient();
+        JsonObject decoded = CauldronBinaryCodec.decodeIngredient(CauldronBinaryCodec.encodeIngredient(ingredient));
+
+        Assertions.assertEquals(ingredient, decoded);
+        Assertions.assertEquals(new BigDecimal("0.50"), decoded.get("chance").getAsBigDecimal()); // Exact representation retained
+    }
+
+    @Test
+    void testCorruptIngredient() {
+        byte[] encoded = CauldronBinaryCodec.encodeIngredient(createIngredient());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 4);
+
+        Assertions.assertThrows(IOException.class, () -> CauldronBinaryCodec.decodeIngredient(truncated));
+    }
+
+    @Test
+    void testCorruptCount() {
+        byte[] negative = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01 };
+        byte[] huge = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x00 };
+
+        Assertions.assertThrows(IOException.class, () -> CauldronBinaryCodec.decodeIngredient(negative));
+        Assertions.assertThrows(IOException.class, () -> CauldronBinaryCodec.decodeIngredient(huge));
+    }
+
+    @Test
+    void testFileRoundTrip() throws IOException {
+        UUID world = UUID.randomUUID(), otherWorld = UUID.randomUUID();
+        List<CauldronRecord> records = List.of(
+            new CauldronRecord(new CauldronPosition(world, 1, 64, -1), -1, false, false, List.of(), null, 0),
+            new CauldronRecord(new CauldronPosition(world, 2, -60, -2), 1234, true, false, List.of(createIngredient()), null, 0),
+            new CauldronRecord(new CauldronPosition(world, -500, 70, 300), 5678, false, true, List.of(createIngredient(), createIngredient()), null, 0),
+            new CauldronRecord(new CauldronPosition(otherWorld, 0, 0, 0), -1, false, false, List.of(), null, 0)
+        );
+
+        Path file = directory.resolve("cauldrons.dat");
+        CauldronBinaryCodec.write(file, records);
+        List<CauldronRecord> readRecords = CauldronBinaryCodec.read(file, Logger.getAnonymousLogger());
+
+        Assertions.assertEquals(records.size(), readRecords.size());
+        for (int i = 0; i < records.size(); i++) {
+            Assertions.assertEquals(records.get(i).toJson(), readRecords.get(i).toJson());
+        }
+    }
+
+    private static JsonObject createIngredient() {
+        JsonArray lore = new JsonArray();
+        lore.add("Bubbling");
+
+        JsonObject ingredient = new JsonObject();
+        ingredient.addProperty("type", "alchema:material");
+        ingredient.addProperty("material", "DIAMOND");
+        ingredient.addProperty("amount", 3);
+        ingredient.addProperty("chance", new BigDecimal("0.50"));
+        ingredient.addProperty("glowing", true);
+        ingredient.addProperty("item_base64", "x".repeat(100)); // Too long for the palette
+        ingredient.add("lore", lore);
+        return ingredient;
+    }
+
+}
@@ -0,0 +1,157 @@
+package wtf.choco.alchema.storage;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Tests:
+ * - testReplay(): Ensure that added, changed and removed cauldrons are replayed as they were journaled
+ * - testTornGroupDiscarded(): Ensure that a partially written group is discarded as a whole and truncated from the journal
+ * - testReplayOntoNewerSnapshot(): Ensure that replaying ingredient changes onto a snapshot that already contains them is harmless
+ */
+class CauldronJournalTest {
+
+    private static final Logger LOGGER = Logger.getAnonymousLogger();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplay() throws IOException {
+        Path file = directory.resolve("cauldrons.journal");
+        CauldronRecord first = createRecord(0, ingredient("DIAMOND", 1));
+        CauldronRecord second = createRecord(1);
+
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            Assertions.assertEquals(0, journal.open(new HashMap<>(), LOGGER));
+
+            journal.append(List.of(CauldronJournal.Entry.add(first), CauldronJournal.Entry.add(second)));
+
+            CauldronRecord changed = first.withState(1000, true, false).withIngredients(List.of(ingredient("DIAMOND", 2), ingredient("STICK", 1)));
+            List<CauldronJournal.Entry> entries = new ArrayList<>();
+            entries.add(CauldronJournal.Entry.state(changed));
+            entries.addAll(CauldronJournal.Entry.ingredients(first, changed));
+            entries.add(CauldronJournal.Entry.remove(second.getPosition()));
+            journal.append(entries);
+
+            first = changed;
+        }
+
+        Map<CauldronPosition, CauldronRecord> records = new HashMap<>();
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            journal.open(records, LOGGER);
+        }
+
+        Assertions.assertEquals(1, records.size());
+        assertRecordEquals(first, records.get(first.getPosition()));
+    }
+
+    @Test
+    void testTornGroupDiscarded() throws IOException {
+        Path file = directory.resolve("cauldrons.journal");
+        CauldronRecord record = createRecord(0, ingredient("DIAMOND", 1));
+        CauldronRecord changed = record.withIngredients(List.of(ingredient("DIAMOND", 1), ingredient("STICK", 1)));
+
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            journal.open(new HashMap<>(), LOGGER);
+            journal.append(List.of(CauldronJournal.Entry.add(record)));
+        }
+
+        long validSize = Files.size(file);
+
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            journal.open(new HashMap<>(), LOGGER);
+            journal.append(CauldronJournal.Entry.ingredients(record, changed));
+        }
+
+        // Tear the second group as a crash while appending it would
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        Map<CauldronPosition, CauldronRecord> records = new HashMap<>();
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            Assertions.assertEquals(2, journal.open(records, LOGGER)); // The add and its one ingredient
+            Assertions.assertEquals(validSize, Files.size(file));
+
+            // Groups appended after the torn group was discarded are replayed
+            journal.append(CauldronJournal.Entry.ingredients(record, changed));
+        }
+
+        assertRecordEquals(record, records.get(record.getPosition()));
+
+        records.clear();
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            journal.open(records, LOGGER);
+        }
+
+        assertRecordEquals(changed, records.get(record.getPosition()));
+    }
+
+    @Test
+    void testReplayOntoNewerSnapshot() throws IOException {
+        Path file = directory.resolve("cauldrons.journal");
+
+        List<CauldronRecord> history = new ArrayList<>();
+        CauldronRecord record = createRecord(0, ingredient("DIAMOND", 1), ingredient("STICK", 1));
+        history.add(record);
+        history.add(record = record.withIngredients(List.of(ingredient("DIAMOND", 1), ingredient("STICK", 1), ingredient("COAL", 4))));
+        history.add(record = record.withIngredients(List.of(ingredient("DIAMOND", 1), ingredient("COAL", 4)))); // Removed from the middle
+        history.add(record = record.withIngredients(List.of(ingredient("DIAMOND", 3), ingredient("COAL", 4))));
+        history.add(record = record.withIngredients(List.of()));
+        history.add(record = record.withIngredients(List.of(ingredient("STICK", 2))));
+
+        try (CauldronJournal journal = new CauldronJournal(file)) {
+            journal.open(new HashMap<>(), LOGGER);
+            journal.append(List.of(CauldronJournal.Entry.add(history.get(0))));
+
+            for (int i = 1; i < history.size(); i++) {
+                journal.append(CauldronJournal.Entry.ingredients(history.get(i - 1), history.get(i)));
+            }
+        }
+
+        // As if a snapshot had been written after each change but the journal was never truncated
+        for (CauldronRecord snapshot : history) {
+            Map<CauldronPosition, CauldronRecord> records = new HashMap<>();
+            records.put(snapshot.getPosition(), snapshot);
+
+            try (CauldronJournal journal = new CauldronJournal(file)) {
+                journal.open(records, LOGGER);
+            }
+
+            assertRecordEquals(record, records.get(record.getPosition()));
+        }
+    }
+
+    private static CauldronRecord createRecord(int x, @NotNull JsonObject... ingredients) {
+        return new CauldronRecord(new CauldronPosition(new UUID(0, 1), x, 64, 0), -1, false, false, List.of(ingredients), null, 0);
+    }
+
+    private static JsonObject ingredient(@NotNull String material, int amount) {
+        JsonObject ingredient = new JsonObject();
+        ingredient.addProperty("type", "alchema:material");
+        ingredient.addProperty("material", material);
+        ingredient.addProperty("amount", amount);
+        return ingredient;
+    }
+
+    private static void assertRecordEquals(@NotNull CauldronRecord expected, CauldronRecord actual) {
+        Assertions.assertNotNull(actual);
+        Assertions.assertEquals(expected.toJson(), actual.toJson());
+    }
+
+}
@@ -0,0 +1,86 @@
+package wtf.choco.alchema.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Tests:
+ * - testExpiry(): Ensure that keys are present until exactly their time to live has passed
+ * - testRemove(): Ensure that removed keys are absent and that removing reports whether they had expired
+ * - testRemoveKeepsCollidingKeysReachable(): Ensure that removing a key does not hide keys probed past it
+ * - testExpiredKeysDiscardedOnResize(): Ensure that the set does not grow with keys that have expired
+ */
+class ExpiringIntSetTest {
+
+    @Test
+    void testExpiry() {
+        long[] now = { 100 };
+        ExpiringIntSet set = new ExpiringIntSet(() -> now[0]);
+
+        set.add(1, 10);
+        now[0] = 109;
+        Assertions.assertTrue(set.contains(1));
+
+        now[0] = 110;
+        Assertions.assertFalse(set.contains(1));
+        Assertions.assertEquals(0, set.size());
+
+        set.add(1, 10);
+        now[0] = 115;
+        set.add(1, 10); // Resets the time to live
+        now[0] = 124;
+        Assertions.assertTrue(set.contains(1));
+        Assertions.assertEquals(1, set.size());
+    }
+
+    @Test
+    void testRemove() {
+        long[] now = { 1 };
+        ExpiringIntSet set = new ExpiringIntSet(() -> now[0]);
+
+        set.add(1, 10);
+        set.add(2, 10);
+        Assertions.assertTrue(set.remove(1));
+        Assertions.assertFalse(set.contains(1));
+        Assertions.assertFalse(set.remove(1));
+
+        now[0] = 20;
+        Assertions.assertFalse(set.remove(2));
+        Assertions.assertEquals(0, set.size());
+    }
+
+    @Test
+    void testRemoveKeepsCollidingKeysReachable() {
+        ExpiringIntSet set = new ExpiringIntSet(() -> 1);
+
+        // Enough keys that many of them share probe sequences
+        for (int key = 0; key < 10_000; key++) {
+            set.add(key, 10);
+        }
+
+        for (int key = 0; key < 10_000; key += 2) {
+            Assertions.assertTrue(set.remove(key));
+        }
+
+        for (int key = 0; key < 10_000; key++) {
+            Assertions.assertEquals(key % 2 != 0, set.contains(key), "unexpected state of key " + key);
+        }
+    }
+
+    @Test
+    void testExpiredKeysDiscardedOnResize() {
+        long[] now = { 1 };
+        ExpiringIntSet set = new ExpiringIntSet(() -> now[0]);
+
+        for (int key = 0; key < 100_000; key++) {
+            set.add(key, 5);
+            now[0]++;
+        }
+
+        // Only keys added within the last 5 ticks are alive, so resizing should have kept the set small
+        Assertions.assertTrue(set.size() < 64, "set holds " + set.size() + " keys");
+        Assertions.assertTrue(set.contains(99_999));
+        Assertions.assertFalse(set.contains(99_990));
+    }
+
+}
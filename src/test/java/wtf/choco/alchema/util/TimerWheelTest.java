@@ -0,0 +1,103 @@
+package wtf.choco.alchema.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Tests:
+ * - testScheduleRunsOnDeadline(): Ensure that a timeout runs on exactly its deadline tick
+ * - testScheduleBeyondRotation(): Ensure that timeouts further than one rotation away are not run early
+ * - testCancel(): Ensure that cancelled timeouts are not run and are removed from the wheel
+ * - testRepeating(): Ensure that repeating timeouts run every period and do not catch up on missed periods
+ * - testCancelDuringAdvance(): Ensure that a task may cancel another timeout due on the same tick
+ */
+class TimerWheelTest {
+
+    @Test
+    void testScheduleRunsOnDeadline() {
+        TimerWheel wheel = new TimerWheel(16, 0);
+        List<@NotNull Long> runs = new ArrayList<>();
+
+        wheel.schedule(() -> runs.add(wheel.getCurrentTick()), 5);
+
+        for (int tick = 1; tick <= 10; tick++) {
+            wheel.advance(tick);
+        }
+
+        Assertions.assertEquals(List.of(5L), runs);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testScheduleBeyondRotation() {
+        TimerWheel wheel = new TimerWheel(8, 0);
+        TimerWheel.Timeout timeout = wheel.schedule(() -> { }, 20);
+
+        for (int tick = 1; tick < 20; tick++) {
+            wheel.advance(tick);
+            Assertions.assertTrue(timeout.isPending(), "timeout expired early on tick " + tick);
+        }
+
+        wheel.advance(20);
+        Assertions.assertTrue(timeout.isExpired());
+    }
+
+    @Test
+    void testCancel() {
+        TimerWheel wheel = new TimerWheel(16, 0);
+        int[] runs = new int[1];
+
+        TimerWheel.Timeout timeout = wheel.schedule(() -> runs[0]++, 3);
+        Assertions.assertTrue(timeout.cancel());
+        Assertions.assertFalse(timeout.cancel());
+        Assertions.assertEquals(0, wheel.size());
+
+        wheel.advance(10);
+        Assertions.assertEquals(0, runs[0]);
+    }
+
+    @Test
+    void testRepeating() {
+        TimerWheel wheel = new TimerWheel(16, 0);
+        List<@NotNull Long> runs = new ArrayList<>();
+
+        wheel.scheduleRepeating(() -> runs.add(wheel.getCurrentTick()), 2, 3);
+
+        for (int tick = 1; tick <= 11; tick++) {
+            wheel.advance(tick);
+        }
+
+        Assertions.assertEquals(List.of(2L, 5L, 8L, 11L), runs);
+
+        // Skipping many ticks should run the task once rather than once per missed period
+        wheel.advance(100);
+        Assertions.assertEquals(5, runs.size());
+        Assertions.assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void testCancelDuringAdvance() {
+        TimerWheel wheel = new TimerWheel(16, 0);
+        int[] runs = new int[1];
+
+        TimerWheel.Timeout[] timeouts = new TimerWheel.Timeout[2];
+        timeouts[0] = wheel.schedule(() -> {
+            runs[0]++;
+            timeouts[1].cancel();
+        }, 4);
+        timeouts[1] = wheel.schedule(() -> {
+            runs[0]++;
+            timeouts[0].cancel();
+        }, 4);
+
+        wheel.advance(4);
+
+        Assertions.assertEquals(1, runs[0]);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+}